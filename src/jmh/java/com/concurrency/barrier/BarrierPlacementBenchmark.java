@@ -0,0 +1,145 @@
+package com.concurrency.barrier;
+
+import com.concurrency.thread.CpuPlacement;
+import com.concurrency.thread.CpuTopology;
+import com.concurrency.thread.MyThreadFactory;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 线程放置策略（{@link CpuPlacement}）对屏障同步的计算的影响。
+ *
+ * <pre>
+ * 负载
+ *    与 {@link CellularAutomata} 相同的模式：threads 个工作者各自负责棋盘上连续的若干行，
+ *    每一代读取上一代的棋盘（包括相邻工作者负责的边界行）写入下一代，然后在 CyclicBarrier 上等待，
+ *    屏障动作交换两块棋盘。一次操作是 generations 代。
+ * 参数
+ *    placement    NONE（由操作系统调度）、SPREAD（分散到各个 NUMA 节点）、PACK（集中在一个节点上）
+ *    threads      工作者个数，0 表示 CPU 个数
+ *    size         棋盘的边长，决定每个工作者的数据是否放得进它的缓存
+ * 运行示例
+ *    mvn -P jmh package
+ *    java -jar target/benchmarks.jar BarrierPlacementBenchmark -p size=2048 -rf json -rff target/jmh-result.json
+ * </pre>
+ *
+ * <p>在多插槽的机器上才能看到 NUMA 的影响；在容器中 taskset 可能被 cpuset 拒绝，这时三种策略的结果相同。
+ *
+ * @author Bert Lee 2026年10月18日 20:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BarrierPlacementBenchmark {
+
+    @Param({"NONE", "SPREAD", "PACK"})
+    public CpuPlacement placement;
+
+    @Param({"0"})
+    public int threads;
+
+    @Param({"512", "2048"})
+    public int size;
+
+    @Param({"20"})
+    public int generations;
+
+    private int[] current;
+    private int[] next;
+    private CyclicBarrier start;
+    private CyclicBarrier generation;
+    private CyclicBarrier end;
+    private ExecutorService workers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final int n = (threads > 0) ? threads : CpuTopology.current().cpuCount();
+        current = new int[size * size];
+        next = new int[size * size];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = i * 31;
+        }
+        start = new CyclicBarrier(n + 1);
+        end = new CyclicBarrier(n + 1);
+        generation = new CyclicBarrier(n, new Runnable() {
+            @Override
+            public void run() {
+                int[] swap = current;
+                current = next;
+                next = swap;
+            }
+        });
+
+        workers = Executors.newFixedThreadPool(n, new MyThreadFactory("barrier-benchmark", placement));
+        for (int i = 0; i < n; i++) {
+            final int fromRow = Math.max(1, size * i / n);
+            final int toRow = Math.min(size - 1, size * (i + 1) / n);
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            start.await();
+                            for (int g = 0; g < generations; g++) {
+                                step(fromRow, toRow);
+                                generation.await();
+                            }
+                            end.await();
+                        }
+                    } catch (InterruptedException | BrokenBarrierException e) {
+                        // 基准测试结束
+                    }
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int generations() throws InterruptedException, BrokenBarrierException {
+        start.await();
+        end.await();
+        return current[size + 1];
+    }
+
+    /*
+     * 每个格子取上下左右四个邻居的平均值，边界行和列保持不变。
+     */
+    private void step(int fromRow, int toRow) {
+        int[] from = current;
+        int[] to = next;
+        for (int row = fromRow; row < toRow; row++) {
+            int base = row * size;
+            for (int column = 1; column < size - 1; column++) {
+                int i = base + column;
+                to[i] = (from[i - size] + from[i + size] + from[i - 1] + from[i + 1]) >> 2;
+            }
+        }
+    }
+}
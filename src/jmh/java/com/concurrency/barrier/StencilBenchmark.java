@@ -0,0 +1,108 @@
+package com.concurrency.barrier;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 单线程计算一代的开销：逐格调用 Board.getValue/setNewValue 与 {@link StencilKernel} 的比较。
+ *
+ * <pre>
+ * 参数
+ *    impl    perCell（原来 Worker.computeValue 的逐格循环）、scalar（不分块的 kernel）、
+ *            tiled（按 DEFAULT_TILE_WIDTH 列分块的 kernel）、vector（分块的 SIMD kernel）
+ *    rule    life（生命游戏）、diffusion（扩散）
+ *    size    棋盘的边长
+ * 运行示例
+ *    mvn -P jmh,vector package
+ *    java -jar target/benchmarks.jar StencilBenchmark -jvmArgsAppend --add-modules=jdk.incubator.vector
+ * </pre>
+ *
+ * <p>没有用 vector profile 构建时 vector 退回标量实现，结果与 tiled 相同。
+ *
+ * @author Bert Lee 2026年10月18日 21:55
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StencilBenchmark {
+
+    @Param({"perCell", "scalar", "tiled", "vector"})
+    public String impl;
+
+    @Param({"life", "diffusion"})
+    public String rule;
+
+    @Param({"512", "4096"})
+    public int size;
+
+    private Board board;
+    private Board whole;
+    private StencilKernel kernel;
+    private int tileWidth;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = new Board(size, size);
+        Random random = new Random(42);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                board.setValue(x, y, "life".equals(rule) ? random.nextInt(2) : random.nextInt(1 << 16));
+            }
+        }
+        whole = board.getSubBoard(1, 0);
+        kernel = "life".equals(rule) ? StencilKernels.GAME_OF_LIFE : StencilKernels.DIFFUSION;
+        tileWidth = "scalar".equals(impl) ? size : StencilKernels.DEFAULT_TILE_WIDTH;
+        if ("vector".equals(impl)) {
+            kernel = StencilKernels.vectorized(kernel);
+        }
+    }
+
+    @Benchmark
+    public long generation() {
+        if ("perCell".equals(impl)) {
+            boolean life = "life".equals(rule);
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    whole.setNewValue(x, y, life ? lifeValue(whole, x, y) : diffusionValue(whole, x, y));
+                }
+            }
+        } else {
+            whole.computeNewValues(kernel, tileWidth);
+        }
+        board.commitNewValues();
+        return board.getGeneration();
+    }
+
+    private static int lifeValue(Board board, int x, int y) {
+        int neighbours = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if ((dx != 0 || dy != 0) && board.getValue(x + dx, y + dy) != 0) {
+                    neighbours++;
+                }
+            }
+        }
+        return (neighbours == 3 || (neighbours == 2 && board.getValue(x, y) != 0)) ? 1 : 0;
+    }
+
+    private static int diffusionValue(Board board, int x, int y) {
+        return (4 * board.getValue(x, y) + board.getValue(x, y - 1) + board.getValue(x, y + 1)
+                + board.getValue(x - 1, y) + board.getValue(x + 1, y)) >> 3;
+    }
+}
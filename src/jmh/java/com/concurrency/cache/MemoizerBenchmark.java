@@ -0,0 +1,181 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 结果缓存的 JMH 基准测试，代替 MemoizerTest 中基于 System.currentTimeMillis() 的计时。
+ *
+ * <pre>
+ * 参数
+ *    impl         被测的实现：Memoizer1、Memoizer2、Memoizer3、Memoizer，以及后来加入的 StripedMemoizer、BoundedMemoizer；
+ *    distribution key 的分布：uniform（均匀）、zipfian（Zipf 分布，指数 0.99）、hot（单个热点 key "23"）；
+ *    keySpace     预先加载的 key 个数；
+ *    hitRatio     命中率，未命中的请求使用从未出现过的 key。
+ * 运行示例
+ *    mvn -P jmh package
+ *    java -jar target/benchmarks.jar MemoizerBenchmark -t 8 -p distribution=zipfian -rf json -rff target/jmh-result.json
+ *    线程数通过 -t 指定；Throughput 模式给出吞吐量，SampleTime 模式给出 p50/p90/p99/p99.9 等延迟分位数。
+ * </pre>
+ *
+ * <p>每轮迭代开始时都会重新创建缓存，未命中产生的新条目不会跨迭代累积。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoizerBenchmark {
+
+	private static final int SAMPLE_SIZE = 1 << 16;
+	private static final String HOT_KEY = "23";
+
+	@Param({"Memoizer1", "Memoizer2", "Memoizer3", "Memoizer", "StripedMemoizer", "BoundedMemoizer"})
+	public String impl;
+
+	@Param({"uniform", "zipfian", "hot"})
+	public String distribution;
+
+	@Param({"10000"})
+	public int keySpace;
+
+	@Param({"1.0", "0.9"})
+	public double hitRatio;
+
+	Computable<String, BigInteger> memoizer;
+	String[] keys;
+	int[] samples;
+	final AtomicLong missKeys = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void setUpKeys() {
+		keys = new String[keySpace];
+		for (int i = 0; i < keySpace; i++) {
+			keys[i] = String.valueOf(i);
+		}
+		samples = sample(distribution, keySpace, new Random(42));
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpMemoizer() throws InterruptedException {
+		memoizer = newMemoizer(impl, new ExpensiveFunction(), keySpace);
+		for (String key : keys) { // 预热缓存
+			memoizer.compute(key);
+		}
+		memoizer.compute(HOT_KEY);
+		missKeys.set(keySpace);
+	}
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		int index = ThreadLocalRandom.current().nextInt(SAMPLE_SIZE);
+	}
+
+	@Benchmark
+	public BigInteger compute(Cursor cursor) throws InterruptedException {
+		String key;
+		if (hitRatio < 1.0 && ThreadLocalRandom.current().nextDouble() >= hitRatio) {
+			key = String.valueOf(missKeys.incrementAndGet()); // 从未出现过的 key，一定未命中
+		} else if ("hot".equals(distribution)) {
+			key = HOT_KEY;
+		} else {
+			key = keys[samples[cursor.index++ & (SAMPLE_SIZE - 1)]];
+		}
+		return memoizer.compute(key);
+	}
+
+	static Computable<String, BigInteger> newMemoizer(String impl, Computable<String, BigInteger> c, int keySpace) {
+		switch (impl) {
+			case "Memoizer1":
+				return new Memoizer1<>(c);
+			case "Memoizer2":
+				return new Memoizer2<>(c);
+			case "Memoizer3":
+				return new Memoizer3<>(c);
+			case "Memoizer":
+				return new Memoizer<>(c);
+			case "StripedMemoizer":
+				return new StripedMemoizer<>(c);
+			case "BoundedMemoizer":
+				return new BoundedMemoizer<>(c, 2L * keySpace);
+			default:
+				throw new IllegalArgumentException("Unknown memoizer: " + impl);
+		}
+	}
+
+	/*
+	 * 预先生成 key 下标的序列，避免在测量过程中计算分布。
+	 */
+	static int[] sample(String distribution, int keySpace, Random random) {
+		int[] samples = new int[SAMPLE_SIZE];
+		switch (distribution) {
+			case "uniform":
+			case "hot":
+				for (int i = 0; i < SAMPLE_SIZE; i++) {
+					samples[i] = random.nextInt(keySpace);
+				}
+				break;
+			case "zipfian":
+				double[] cdf = zipfianCdf(keySpace, 0.99);
+				for (int i = 0; i < SAMPLE_SIZE; i++) {
+					int index = Arrays.binarySearch(cdf, random.nextDouble());
+					samples[i] = Math.min((index >= 0) ? index : -index - 1, keySpace - 1);
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown distribution: " + distribution);
+		}
+		return samples;
+	}
+
+	private static double[] zipfianCdf(int n, double exponent) {
+		double[] cdf = new double[n];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += 1.0 / Math.pow(i + 1, exponent);
+			cdf[i] = sum;
+		}
+		for (int i = 0; i < n; i++) {
+			cdf[i] /= sum;
+		}
+		return cdf;
+	}
+
+}
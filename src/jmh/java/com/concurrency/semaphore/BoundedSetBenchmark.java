@@ -0,0 +1,68 @@
+package com.concurrency.semaphore;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BoundedHashSet}（Semaphore + synchronizedSet）与 {@link ConcurrentBoundedHashSet} 的吞吐量。
+ *
+ * <pre>
+ * 负载
+ *    每次操作加入一个随机元素再删除它；bound 远大于线程数，所以衡量的是没满时的开销，
+ *    也就是全局的 synchronizedSet 监视器和 Semaphore 的 CAS 在多个线程之间的竞争。
+ * 参数
+ *    impl    semaphore（BoundedHashSet）、unfair、fair（ConcurrentBoundedHashSet）
+ * 运行示例
+ *    mvn -P jmh package
+ *    java -jar target/benchmarks.jar BoundedSetBenchmark -t 1 ; 再用 -t 4、-t 8 比较扩展性
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 23:05
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoundedSetBenchmark {
+
+    @Param({"semaphore", "unfair", "fair"})
+    public String impl;
+
+    @Param({"1024"})
+    public int bound;
+
+    private BoundedHashSet<Integer> semaphoreSet;
+    private ConcurrentBoundedHashSet<Integer> concurrentSet;
+
+    @Setup
+    public void setUp() {
+        if ("semaphore".equals(impl)) {
+            semaphoreSet = new BoundedHashSet<>(bound);
+        } else {
+            concurrentSet = new ConcurrentBoundedHashSet<>(bound, "fair".equals(impl));
+        }
+    }
+
+    @Benchmark
+    public boolean addRemove() throws InterruptedException {
+        Integer value = ThreadLocalRandom.current().nextInt(1 << 20);
+        if (semaphoreSet != null) {
+            return semaphoreSet.add(value) & semaphoreSet.remove(value);
+        }
+        return concurrentSet.add(value) & concurrentSet.remove(value);
+    }
+}
@@ -1,54 +1,269 @@
 package com.concurrency.barrier;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 /**
- * 类Board的实现描述：TODO 类实现描述
+ * 细胞自动机的棋盘：width × height 个 int 格子，按行优先存放在两个扁平的 int[] 中（双缓冲）。
+ *
+ * <pre>
+ * 双缓冲
+ *    一代之中所有工作者只读当前一代（current），只写下一代（next），所以不需要任何同步；
+ *    所有工作者到达屏障后，屏障动作 {@link #commitNewValues()} 交换两个数组，CyclicBarrier 保证交换对所有工作者可见。
+ * 子棋盘
+ *    {@link #getSubBoard(int, int)} 把棋盘按行切成连续的几块，每个工作者负责一块。
+ *    子棋盘是主棋盘的视图：坐标是块内的坐标，读取时可以越过块的边界读到相邻块（上一代的）行。
+ * 收敛
+ *    写入下一代时，子棋盘记录是否有格子发生了变化；屏障动作汇总各个子棋盘，一代中没有任何变化时棋盘收敛，
+ *    {@link #waitForConvergence()} 返回，工作者在下一次检查 {@link #hasConverged()} 时退出。
+ *    也可以用 {@link #stop()} 提前结束（例如达到了代数上限，或者某个工作者失败）。
+ * </pre>
+ *
+ * <p>棋盘之外的格子读作 0：每个缓冲区在第一行之上和最后一行之下各多出一行 0，
+ * 所以 {@link StencilKernel} 不需要检查行的边界。一个 10000 × 10000 的棋盘需要 2 × 400 MB 的堆。
  *
  * @author Bert Lee 2015年08月16日 20:31
  */
 public class Board {
-    private static final int MAX_X = 100;
-    private static final int MAX_Y = 100;
+    private final Board main; // 主棋盘的 main 是它自己
+    private final int width;
+    private final int height;
+    private final int fromRow; // 子棋盘的第一行在主棋盘中的行号
+
+    // 以下字段只在主棋盘上使用
+    private int[] current;
+    private int[] next;
+    private volatile long generation;
+    private volatile boolean finished;
+    private volatile boolean stable;
+    private final List<Board> subBoards;
+    private final CountDownLatch convergence;
 
-    private int x;
-    private int y;
-    private int z;
+    // 子棋盘：这一代是否有格子发生了变化，只由负责它的工作者写，由屏障动作读
+    private boolean changed;
 
-    private Board(int x, int y) {
-        this.x = x;
-        this.y = y;
+    /**
+     * 创建一个所有格子都是 0 的棋盘。
+     */
+    public Board(int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * (height + 2) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("width: " + width + ", height: " + height);
+        }
+        this.main = this;
+        this.width = width;
+        this.height = height;
+        this.fromRow = 0;
+        this.current = new int[width * (height + 2)];
+        this.next = new int[width * (height + 2)];
+        this.subBoards = new ArrayList<>();
+        this.convergence = new CountDownLatch(1);
     }
 
-    public void setNewValue(int x, int y, int z) {
-        this.x = x;
-        this.y = y;
-        this.z = z;
+    private Board(Board main, int fromRow, int rows) {
+        this.main = main;
+        this.width = main.width;
+        this.height = rows;
+        this.fromRow = fromRow;
+        this.subBoards = null;
+        this.convergence = null;
     }
 
+    /**
+     * 把棋盘按行切成 count 块，返回第 i 块（从 0 开始），各块的行数最多相差 1。
+     */
     public Board getSubBoard(int count, int i) {
-        return new Board(count, i);
+        if (main != this) {
+            throw new IllegalStateException("Not the main board");
+        }
+        if (count <= 0 || i < 0 || i >= count) {
+            throw new IllegalArgumentException("count: " + count + ", i: " + i);
+        }
+        int from = (int) ((long) height * i / count);
+        int to = (int) ((long) height * (i + 1) / count);
+        Board subBoard = new Board(this, from, to - from);
+        synchronized (subBoards) {
+            subBoards.add(subBoard);
+        }
+        return subBoard;
     }
 
-    public boolean hasConverged() {
-        if (x >= 0 && x <= MAX_X && y >= 0 && y <= MAX_Y) {
-            return true;
+    /**
+     * 当前一代中 (x, y) 处的值，x 是列，y 是（本棋盘中的）行；棋盘之外的格子返回 0。
+     */
+    public int getValue(int x, int y) {
+        int row = fromRow + y;
+        if (x < 0 || x >= width || row < 0 || row >= main.height) {
+            return 0;
+        }
+        return main.current[(row + 1) * width + x];
+    }
+
+    /**
+     * 设置下一代中 (x, y) 处的值。
+     */
+    public void setNewValue(int x, int y, int value) {
+        int i = (fromRow + y + 1) * width + x;
+        if (main.current[i] != value) {
+            changed = true;
         }
-        return false;
+        main.next[i] = value;
     }
 
-    public void waitForConvergence() {
-        // FIXME 自定义实现
+    /**
+     * 用 kernel 分块计算本棋盘所有行的下一代（见 {@link StencilKernels#step}），代替逐个格子的 {@link #setNewValue}。
+     */
+    public void computeNewValues(StencilKernel kernel, int tileWidth) {
+        if (StencilKernels.step(kernel, main.current, main.next, (fromRow + 1) * width, height, width, tileWidth)) {
+            changed = true;
+        }
     }
 
+    /**
+     * 直接设置当前一代中的值，只能在模拟开始之前（或者结束之后）调用，用于设置初始状态。
+     */
+    public void setValue(int x, int y, int value) {
+        main.current[(fromRow + y + 1) * width + x] = value;
+    }
+
+    /**
+     * 棋盘已经收敛，或者已经被停止。
+     */
+    public boolean hasConverged() {
+        return main.finished;
+    }
+
+    /**
+     * 棋盘是否因为一代中没有任何变化而收敛（而不是被停止）。
+     */
+    public boolean isStable() {
+        return main.stable;
+    }
+
+    /**
+     * 等待棋盘收敛或者被停止。
+     */
+    public void waitForConvergence() throws InterruptedException {
+        main.convergence.await();
+    }
+
+    /**
+     * 最多等待给定的时间。
+     *
+     * @return 棋盘已经收敛或者被停止时返回 true
+     */
+    public boolean waitForConvergence(long timeout, TimeUnit unit) throws InterruptedException {
+        return main.convergence.await(timeout, unit);
+    }
+
+    /**
+     * 结束模拟：工作者在完成当前一代后退出，{@link #waitForConvergence()} 返回。
+     */
+    public void stop() {
+        main.finished = true;
+        main.convergence.countDown();
+    }
+
+    /**
+     * 屏障动作：所有工作者都已写完下一代，交换两个缓冲区，检测是否收敛。只能在主棋盘上调用。
+     */
     public void commitNewValues() {
-        // FIXME 提交新的值
+        if (main != this) {
+            throw new IllegalStateException("Not the main board");
+        }
+        boolean anyChanged = false;
+        synchronized (subBoards) {
+            for (Board subBoard : subBoards) {
+                anyChanged |= subBoard.changed;
+                subBoard.changed = false;
+            }
+        }
+        int[] swap = current;
+        current = next;
+        next = swap;
+        generation++;
+
+        if (!anyChanged) {
+            stable = true;
+            stop();
+        }
+    }
+
+    /**
+     * 当前一代的不可变副本，只能在主棋盘上、两代之间（屏障动作中或者模拟结束后）调用。
+     */
+    public BoardSnapshot snapshot() {
+        return snapshot(main.generation);
+    }
+
+    BoardSnapshot snapshot(long generation) {
+        if (main != this) {
+            throw new IllegalStateException("Not the main board");
+        }
+        return new BoardSnapshot(width, height, generation, toArray());
+    }
+
+    /**
+     * 从快照（例如 {@link BoardCheckpoint#read} 读出的检查点）恢复当前一代和代数，只能在模拟开始之前调用。
+     */
+    public void restore(BoardSnapshot snapshot) {
+        if (main != this) {
+            throw new IllegalStateException("Not the main board");
+        }
+        if (snapshot.getWidth() != width || snapshot.getHeight() != height) {
+            throw new IllegalArgumentException("Snapshot is " + snapshot.getWidth() + " x " + snapshot.getHeight()
+                    + ", board is " + width + " x " + height);
+        }
+        System.arraycopy(snapshot.cells(), 0, current, width, width * height);
+        generation = snapshot.getGeneration();
+    }
+
+    /**
+     * 把本棋盘各行的当前值复制到 dest[offset, offset + width × height)。
+     */
+    void readRows(int[] dest, int offset) {
+        System.arraycopy(main.current, (fromRow + 1) * width, dest, offset, width * height);
+    }
+
+    /**
+     * 用 src[offset, offset + width × height) 覆盖本棋盘各行的当前值。
+     */
+    void writeRows(int[] src, int offset) {
+        System.arraycopy(src, offset, main.current, (fromRow + 1) * width, width * height);
+    }
+
+    /**
+     * 不经过屏障动作结束模拟（例如各个分区自行交换边界行时），各行的值已经用 {@link #writeRows} 写回。
+     */
+    void finish(long generation, boolean stable) {
+        main.generation = generation;
+        main.stable = stable;
+        stop();
+    }
+
+    /**
+     * 已经完成的代数。
+     */
+    public long getGeneration() {
+        return main.generation;
+    }
+
+    /**
+     * 当前一代的副本（行优先），只应在两代之间（例如屏障动作中或者模拟结束后）调用。
+     */
+    public int[] toArray() {
+        int[] cells = new int[width * height];
+        System.arraycopy(main.current, (fromRow + 1) * width, cells, 0, cells.length);
+        return cells;
     }
 
     public int getMaxX() {
-        return MAX_X;
+        return width;
     }
 
     public int getMaxY() {
-        return MAX_Y;
+        return height;
     }
 
 }
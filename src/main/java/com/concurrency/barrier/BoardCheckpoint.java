@@ -0,0 +1,102 @@
+package com.concurrency.barrier;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 棋盘检查点文件的读写。
+ *
+ * <pre>
+ * 格式（整个文件用 gzip 压缩，整数都是大端序）
+ *    int  magic "JCCA"
+ *    int  version
+ *    int  width
+ *    int  height
+ *    long generation
+ *    int  cells[width × height]（行优先）
+ * </pre>
+ *
+ * <p>先写到临时文件，刷盘后原子地重命名，所以进程在写的过程中退出时，原来的检查点仍然完整。
+ *
+ * @author Bert Lee 2026年10月18日 22:15
+ */
+public final class BoardCheckpoint {
+    static final int MAGIC = 0x4A434341; // "JCCA"
+    static final int VERSION = 1;
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int CHUNK_CELLS = 1 << 14;
+
+    private BoardCheckpoint() {
+    }
+
+    public static void write(BoardSnapshot snapshot, File file) throws IOException {
+        File tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        boolean written = false;
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(fileOut, 1 << 16);
+            DataOutputStream out = new DataOutputStream(gzipOut);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.getWidth());
+            out.writeInt(snapshot.getHeight());
+            out.writeLong(snapshot.getGeneration());
+
+            int[] cells = snapshot.cells();
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_CELLS * 4);
+            for (int from = 0; from < cells.length; from += CHUNK_CELLS) {
+                int length = Math.min(CHUNK_CELLS, cells.length - from);
+                buffer.clear();
+                buffer.asIntBuffer().put(cells, from, length);
+                out.write(buffer.array(), 0, length * 4);
+            }
+            out.flush();
+            gzipOut.finish();
+            fileOut.getChannel().force(true);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static BoardSnapshot read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), 1 << 16), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a board checkpoint: " + file);
+            }
+            int width = in.readInt();
+            int height = in.readInt();
+            long generation = in.readLong();
+            if (width <= 0 || height <= 0 || generation < 0 || (long) width * height > Integer.MAX_VALUE - 8) {
+                throw new IOException("Corrupt board checkpoint: " + file);
+            }
+
+            int[] cells = new int[width * height];
+            byte[] bytes = new byte[CHUNK_CELLS * 4];
+            for (int from = 0; from < cells.length; from += CHUNK_CELLS) {
+                int length = Math.min(CHUNK_CELLS, cells.length - from);
+                in.readFully(bytes, 0, length * 4);
+                ByteBuffer.wrap(bytes, 0, length * 4).asIntBuffer().get(cells, from, length);
+            }
+            return new BoardSnapshot(width, height, generation, cells);
+        } catch (EOFException e) {
+            throw new IOException("Truncated board checkpoint: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.concurrency.barrier;
+
+/**
+ * 棋盘在某一代结束时的不可变副本。
+ *
+ * <p>由 {@link Board#snapshot()} 在两代之间（屏障动作中）复制得到，之后可以交给其他线程压缩写盘
+ * （{@link BoardCheckpoint}）或者输出（{@link GenerationSink}），不会影响正在计算下一代的工作者。
+ *
+ * @author Bert Lee 2026年10月18日 22:10
+ */
+public final class BoardSnapshot {
+    private final int width;
+    private final int height;
+    private final long generation;
+    private final int[] cells; // 行优先，不包括幽灵行
+
+    BoardSnapshot(int width, int height, long generation, int[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("cells: " + cells.length + ", width: " + width + ", height: " + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.generation = generation;
+        this.cells = cells;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 快照时已经完成的代数。
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getValue(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    /**
+     * 所有格子的副本（行优先）。
+     */
+    public int[] toArray() {
+        return cells.clone();
+    }
+
+    int[] cells() {
+        return cells;
+    }
+}
@@ -1,36 +1,205 @@
 package com.concurrency.barrier;
 
+import com.concurrency.thread.CpuPlacement;
+import com.concurrency.thread.MyThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 使用 CyclicBarrier 协调细胞自动衍生系统中的计算。
  *
+ * <p>棋盘按行切成与工作者个数相同的子棋盘，每个工作者计算自己那一块的下一代，然后在屏障上等待；
+ * 最后一个到达的工作者执行屏障动作，交换双缓冲并检测是否收敛（见 {@link Board}）。
+ * 规则由 {@link StencilKernel} 给出，默认是康威生命游戏（{@link StencilKernels#GAME_OF_LIFE}），
+ * 每个工作者按列分块、一次一段地调用它（见 {@link StencilKernels#step}），而不是逐个格子计算。
+ *
+ * <pre>
+ * BARRIER 模式
+ *    所有工作者每一代都在同一个 CyclicBarrier 上同步，最慢的分区决定整体的速度。
+ * HALO 模式
+ *    每个分区在自己的（带上下两行幽灵行的）双缓冲中计算，只和相邻的分区通过 {@link HaloChannel} 交换边界行，
+ *    没有全局屏障，快的分区可以比相邻分区领先一代；是否收敛由 {@link ConvergenceTree} 逐代汇总，
+ *    所有分区结束后各自把最后一代写回棋盘。一代中没有任何变化意味着之后的每一代都相同，
+ *    所以已经领先的分区不必回退。
+ * </pre>
+ *
+ * <pre>
+ * 检查点和输出
+ *    {@link #setCheckpoint} 每隔若干代把棋盘写到检查点文件中，{@link #start()} 时如果检查点已经存在就从它继续；
+ *    {@link #setGenerationSink} 每隔若干代把棋盘交给 {@link GenerationSink}。
+ *    屏障动作中只复制一次当前一代，压缩写盘和输出在后台线程中进行（见 {@link SnapshotWriter}）。
+ *    HALO 模式没有全局的代边界，只在模拟结束时写检查点和输出。
+ * </pre>
+ *
+ * <p>工作者每一代都在屏障上同步，并且反复访问自己的那部分棋盘，独占一台多插槽机器时可以用
+ * {@link #setPlacement}({@link CpuPlacement#PACK}) 把线程绑定到同一个 NUMA 节点上相邻的物理核，避免在插槽之间迁移。
+ * 默认不绑定（{@link CpuPlacement#NONE}），与其他进程共享机器时由操作系统调度。
+ *
  * @author Bert Lee 2015年08月16日 20:30
  */
 public class CellularAutomata {
+
+    /**
+     * 分区之间如何同步。
+     */
+    public enum Mode {
+        BARRIER, HALO
+    }
+
     private final Board mainBoard;
     private final CyclicBarrier barrier;
-    private final List<Worker> workers;
+    private final List<Runnable> workers;
+    private final long maxGenerations;
+    private final Mode mode;
+    private final StencilKernel kernel;
+    private final int tileWidth;
+
+    // 检查点和输出，在 start() 之前设置
+    private File checkpointFile;
+    private long checkpointInterval;
+    private GenerationSink sink;
+    private long sinkInterval;
+    private SnapshotWriter snapshotWriter;
+    private long baseGeneration; // 开始（或者从检查点恢复）时的代数
+    private CpuPlacement placement = CpuPlacement.NONE;
+
+    // HALO 模式
+    private HaloChannel[] down; // down[i]：分区 i 的最后一行交给分区 i + 1
+    private HaloChannel[] up; // up[i]：分区 i + 1 的第一行交给分区 i
+    private ConvergenceTree convergenceTree;
+    private volatile boolean haloStopped;
+    private final AtomicLong completedGeneration = new AtomicLong();
+    private final AtomicLong convergedGeneration = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    private volatile List<Thread> workerThreads = Collections.emptyList();
+
+    /**
+     * 每个 CPU 一个工作者，直到收敛为止。
+     */
+    public CellularAutomata(Board board) {
+        this(board, Runtime.getRuntime().availableProcessors(), Long.MAX_VALUE);
+    }
 
-    private CellularAutomata(Board board) {
+    /**
+     * @param count 工作者个数，超过棋盘的行数时按行数计
+     * @param maxGenerations 最多计算多少代，达到时即使没有收敛也停止
+     */
+    public CellularAutomata(Board board, int count, long maxGenerations) {
+        this(board, count, maxGenerations, Mode.BARRIER);
+    }
+
+    /**
+     * @param mode 分区之间的同步方式
+     */
+    public CellularAutomata(Board board, int count, long maxGenerations, Mode mode) {
+        this(board, count, maxGenerations, mode, StencilKernels.GAME_OF_LIFE, StencilKernels.DEFAULT_TILE_WIDTH);
+    }
+
+    /**
+     * @param kernel 规则，例如 {@link StencilKernels#DIFFUSION}，或者 {@link StencilKernels#vectorized} 返回的 SIMD 实现
+     * @param tileWidth 分块的宽度（列数）
+     */
+    public CellularAutomata(Board board, int count, final long maxGenerations, Mode mode,
+                            StencilKernel kernel, int tileWidth) {
+        if (count <= 0 || maxGenerations <= 0 || tileWidth <= 0) {
+            throw new IllegalArgumentException("count: " + count + ", maxGenerations: " + maxGenerations
+                    + ", tileWidth: " + tileWidth);
+        }
+        this.kernel = kernel;
+        this.tileWidth = tileWidth;
         this.mainBoard = board;
-        int count = Runtime.getRuntime().availableProcessors();
+        this.maxGenerations = maxGenerations;
+        this.mode = mode;
+        count = Math.min(count, board.getMaxY());
+        this.workers = new ArrayList<>(count);
+        if (mode == Mode.HALO) {
+            this.barrier = null;
+            initHalo(count);
+            return;
+        }
         this.barrier = new CyclicBarrier(count,
                 new Runnable() {
                     @Override
                     public void run() {
                         mainBoard.commitNewValues();
+                        boolean last = mainBoard.getGeneration() >= maxGenerations;
+                        if (snapshotWriter != null) {
+                            snapshotWriter.generationCommitted(mainBoard, last || mainBoard.hasConverged());
+                        }
+                        if (last) {
+                            mainBoard.stop();
+                        }
                     }
                 });
-        this.workers = new ArrayList<>(count);
         for (int i = 0; i < count; i++) {
             workers.add(new Worker(mainBoard.getSubBoard(count, i)));
         }
     }
 
+    private void initHalo(int count) {
+        HaloChannel.StopSignal stop = new HaloChannel.StopSignal() {
+            @Override
+            public boolean isStopped() {
+                return haloStopped;
+            }
+        };
+        down = new HaloChannel[count - 1];
+        up = new HaloChannel[count - 1];
+        for (int i = 0; i < count - 1; i++) {
+            down[i] = new HaloChannel(mainBoard.getMaxX(), stop);
+            up[i] = new HaloChannel(mainBoard.getMaxX(), stop);
+        }
+        convergenceTree = new ConvergenceTree(count, new ConvergenceTree.Listener() {
+            @Override
+            public void generationCompleted(long generation, boolean changed) {
+                long completed;
+                while ((completed = completedGeneration.get()) < generation
+                        && !completedGeneration.compareAndSet(completed, generation)) {
+                }
+                if (!changed) {
+                    long converged;
+                    while ((converged = convergedGeneration.get()) > generation
+                            && !convergedGeneration.compareAndSet(converged, generation)) {
+                    }
+                    stopHalo();
+                }
+            }
+        });
+        runningWorkers.set(count);
+        for (int i = 0; i < count; i++) {
+            workers.add(new HaloWorker(i, count, mainBoard.getSubBoard(count, i)));
+        }
+    }
+
+    private void stopHalo() {
+        haloStopped = true;
+        for (int i = 0; i < down.length; i++) {
+            down[i].wakeUp();
+            up[i].wakeUp();
+        }
+    }
+
+    /*
+     * 最后一个退出的分区：所有行都已写回，结束模拟。
+     */
+    private void finishHalo() {
+        long converged = convergedGeneration.get();
+        boolean stable = converged != Long.MAX_VALUE;
+        long generation = baseGeneration + (stable ? converged : completedGeneration.get());
+        if (snapshotWriter != null) {
+            snapshotWriter.finished(mainBoard.snapshot(generation));
+        }
+        mainBoard.finish(generation, stable);
+    }
+
     private class Worker implements Runnable {
         private final Board board;
 
@@ -40,36 +209,213 @@ public class CellularAutomata {
 
         @Override
         public void run() {
-            while (!board.hasConverged()) {
-                for (int x = 0, maxX = board.getMaxX(); x < maxX; x++) {
-                    for (int y = 0, maxY = board.getMaxY(); y < maxY; y++) {
-                        board.setNewValue(x, y, computeValue(x, y));
+            try {
+                while (!board.hasConverged()) {
+                    board.computeNewValues(kernel, tileWidth);
+                    try {
+                        barrier.await(); // 一直阻塞等待，直到中断发生
+//                        barrier.await(50, TimeUnit.MILLISECONDS); // 带超时的等待
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (BrokenBarrierException e) {
+                        return;
                     }
+//                    catch (TimeoutException e) {
+//                        return;
+//                    }
                 }
-                try {
-                    barrier.await(); // 一直阻塞等待，直到中断发生
-//                    barrier.await(50, TimeUnit.MILLISECONDS); // 带超时的等待
-                } catch (InterruptedException e) {
-                    return;
-                } catch (BrokenBarrierException e) {
+            } finally {
+                if (!board.hasConverged()) { // 失败或被中断：结束模拟，并破坏屏障
+                    board.stop();
+                    interruptOtherWorkers();
+                }
+            }
+        }
+    }
+
+    /*
+     * 中断其他工作者，使屏障保持被破坏的状态：正在等待的工作者得到 BrokenBarrierException，
+     * 还在计算的工作者到达屏障时因为中断状态立即失败，不会在缺少一方的新一代上永远等待。
+     * 不能用 reset()，它开始新的一代，而不是破坏屏障。
+     */
+    private void interruptOtherWorkers() {
+        Thread me = Thread.currentThread();
+        for (Thread thread : workerThreads) {
+            if (thread != me) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * HALO 模式的工作者：在私有的双缓冲上计算，第 0 行和最后一行是相邻分区的边界行（棋盘边缘为 0）。
+     */
+    private class HaloWorker implements Runnable {
+        private final int index;
+        private final int count;
+        private final Board board;
+
+        HaloWorker(int index, int count, Board board) {
+            this.index = index;
+            this.count = count;
+            this.board = board;
+        }
+
+        @Override
+        public void run() {
+            Thread me = Thread.currentThread();
+            HaloChannel fromAbove = (index > 0) ? down[index - 1] : null;
+            HaloChannel toAbove = (index > 0) ? up[index - 1] : null;
+            HaloChannel fromBelow = (index < count - 1) ? up[index] : null;
+            HaloChannel toBelow = (index < count - 1) ? down[index] : null;
+            if (fromAbove != null) {
+                fromAbove.setConsumer(me);
+                toAbove.setProducer(me);
+            }
+            if (fromBelow != null) {
+                fromBelow.setConsumer(me);
+                toBelow.setProducer(me);
+            }
+
+            int width = board.getMaxX();
+            int rows = board.getMaxY();
+            int[] current = new int[(rows + 2) * width];
+            int[] next = new int[(rows + 2) * width];
+            board.readRows(current, width);
+            long generations = maxGenerations - baseGeneration;
+            boolean failed = true;
+            try {
+                if (!publish(toAbove, toBelow, 0, current, width, rows)) {
                     return;
                 }
-//                catch (TimeoutException e) {
-//                    return;
-//                }
+                for (long generation = 1; generation <= generations && !haloStopped; generation++) {
+                    if (fromAbove != null && !fromAbove.receive(generation - 1, current, 0)) {
+                        break;
+                    }
+                    if (fromBelow != null && !fromBelow.receive(generation - 1, current, (rows + 1) * width)) {
+                        break;
+                    }
+                    boolean changed = StencilKernels.step(kernel, current, next, width, rows, width, tileWidth);
+                    int[] swap = current;
+                    current = next;
+                    next = swap;
+                    if (generation < generations && !publish(toAbove, toBelow, generation, current, width, rows)) {
+                        break;
+                    }
+                    convergenceTree.report(index, generation, changed);
+                }
+                failed = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                board.writeRows(current, width);
+                if (failed) { // 被中断或者计算出错：停止其他分区
+                    stopHalo();
+                }
+                if (runningWorkers.decrementAndGet() == 0) {
+                    finishHalo();
+                }
             }
         }
 
-        private int computeValue(int x, int y) {
-            return x + y;
+        private boolean publish(HaloChannel toAbove, HaloChannel toBelow, long generation,
+                                int[] cells, int width, int rows) throws InterruptedException {
+            return (toAbove == null || toAbove.publish(generation, cells, width))
+                    && (toBelow == null || toBelow.publish(generation, cells, rows * width));
         }
     }
-    
-    public void start() {
-        for (int i = 0, size = workers.size(); i < size; i++) {
-            new Thread(workers.get(i)).start();
+
+    /**
+     * 每 interval 代把棋盘写到检查点文件 file 中（格式见 {@link BoardCheckpoint}），模拟结束时再写一次。
+     * file 已经存在时，{@link #start()} 先从它恢复棋盘，从检查点的那一代继续，代数上限仍然从第 0 代算起。
+     * 需要在 start() 之前调用。
+     */
+    public void setCheckpoint(File file, long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval: " + interval);
         }
-        mainBoard.waitForConvergence();
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * 每 interval 代（以及最后一代）把棋盘交给 sink。需要在 {@link #start()} 之前调用。
+     */
+    public void setGenerationSink(GenerationSink sink, long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval: " + interval);
+        }
+        this.sink = sink;
+        this.sinkInterval = interval;
+    }
+
+    /**
+     * 工作者线程绑定到哪些 CPU 上，默认是 {@link CpuPlacement#NONE}。需要在 {@link #start()} 之前调用。
+     */
+    public void setPlacement(CpuPlacement placement) {
+        if (placement == null) {
+            throw new NullPointerException();
+        }
+        this.placement = placement;
+    }
+
+    /**
+     * 启动工作者并等待棋盘收敛（或者达到代数上限），返回时检查点和输出都已经写完。
+     *
+     * @throws IOException 读取已有的检查点失败
+     */
+    public void start() throws InterruptedException, IOException {
+        if (checkpointFile != null && checkpointFile.exists()) {
+            mainBoard.restore(BoardCheckpoint.read(checkpointFile));
+        }
+        baseGeneration = mainBoard.getGeneration();
+        if (baseGeneration >= maxGenerations) {
+            mainBoard.stop();
+            return;
+        }
+        if (checkpointFile != null || sink != null) {
+            snapshotWriter = new SnapshotWriter(checkpointFile, checkpointInterval, sink, sinkInterval);
+        }
+
+        MyThreadFactory threadFactory = new MyThreadFactory("cellular-automata", placement);
+        List<Thread> threads = new ArrayList<>(workers.size());
+        for (Runnable worker : workers) {
+            threads.add(threadFactory.newThread(worker));
+        }
+        workerThreads = Collections.unmodifiableList(threads); // 启动之前发布，失败的工作者可以中断其他工作者
+        try {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            mainBoard.waitForConvergence();
+            for (Thread thread : threads) { // 最后一代的快照在工作者线程中提交
+                thread.join();
+            }
+        } finally {
+            if (snapshotWriter != null) {
+                snapshotWriter.close();
+            }
+        }
+    }
+
+    public Board getBoard() {
+        return mainBoard;
+    }
+
+    public long getMaxGenerations() {
+        return maxGenerations;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public CpuPlacement getPlacement() {
+        return placement;
+    }
+
+    public StencilKernel getKernel() {
+        return kernel;
     }
 
 }
@@ -0,0 +1,87 @@
+package com.concurrency.barrier;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 组合树（combining tree）：汇总每个分区每一代是否有格子发生变化，代替全局屏障上的屏障动作。
+ *
+ * <p>每个分区算完一代后从自己的叶子向上报告；一个节点的所有孩子都报告了第 g 代时，
+ * 最后一个到达的线程把合并后的结果继续向上报告，到达根时调用 {@link Listener}。
+ * 每个节点上的竞争只来自它的 {@link #FAN_IN} 个孩子，而不是所有分区。
+ *
+ * <p>分区之间最多相差（分区个数 - 1）代，所以每个节点为最近的 window 代各保留一个槽位，
+ * 槽位在所有孩子都到达后清零，供第 g + window 代重用。
+ *
+ * @author Bert Lee 2026年10月18日 21:05
+ */
+final class ConvergenceTree {
+    static final int FAN_IN = 4;
+
+    /**
+     * 所有分区都报告了第 generation 代。
+     */
+    interface Listener {
+        void generationCompleted(long generation, boolean changed);
+    }
+
+    private final Node[] leaves;
+    private final Listener listener;
+    private final int window;
+
+    ConvergenceTree(int partitions, Listener listener) {
+        this.listener = listener;
+        this.window = partitions + 1;
+        this.leaves = new Node[partitions];
+        Node[] level = new Node[(partitions + FAN_IN - 1) / FAN_IN];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = new Node(Math.min(FAN_IN, partitions - i * FAN_IN), window);
+        }
+        for (int i = 0; i < partitions; i++) {
+            leaves[i] = level[i / FAN_IN];
+        }
+        while (level.length > 1) {
+            Node[] parents = new Node[(level.length + FAN_IN - 1) / FAN_IN];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = new Node(Math.min(FAN_IN, level.length - i * FAN_IN), window);
+            }
+            for (int i = 0; i < level.length; i++) {
+                level[i].parent = parents[i / FAN_IN];
+            }
+            level = parents;
+        }
+    }
+
+    /**
+     * 分区 partition 算完了第 generation 代。
+     */
+    void report(int partition, long generation, boolean changed) {
+        Node node = leaves[partition];
+        int slot = (int) (generation % window);
+        while (node != null) {
+            if (changed) {
+                node.changed.set(slot, 1); // 先于到达计数写入，最后一个到达者一定能看到
+            }
+            if (node.arrivals.incrementAndGet(slot) < node.children) {
+                return;
+            }
+            changed = node.changed.get(slot) != 0;
+            node.changed.set(slot, 0);
+            node.arrivals.set(slot, 0);
+            node = node.parent;
+        }
+        listener.generationCompleted(generation, changed);
+    }
+
+    private static final class Node {
+        final int children;
+        final AtomicIntegerArray arrivals;
+        final AtomicIntegerArray changed;
+        Node parent;
+
+        Node(int children, int window) {
+            this.children = children;
+            this.arrivals = new AtomicIntegerArray(window);
+            this.changed = new AtomicIntegerArray(window);
+        }
+    }
+}
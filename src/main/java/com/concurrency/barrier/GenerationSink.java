@@ -0,0 +1,13 @@
+package com.concurrency.barrier;
+
+/**
+ * 接收模拟过程中的某些代（见 {@link CellularAutomata#setGenerationSink}），例如输出成图片或者发送到别处。
+ *
+ * <p>在后台的快照线程中按代的顺序调用，不会阻塞工作者；抛出的异常被记录下来，不影响模拟。
+ *
+ * @author Bert Lee 2026年10月18日 22:12
+ */
+public interface GenerationSink {
+
+    void generation(BoardSnapshot snapshot);
+}
@@ -0,0 +1,108 @@
+package com.concurrency.barrier;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 相邻两个分区之间单方向的边界行（halo）交接槽：生产者在算完第 g 代后放入自己的边界行，
+ * 消费者在计算第 g + 1 代之前取出，复制到自己的幽灵行（ghost row）中。
+ *
+ * <p>槽位按代的奇偶交替使用，所以生产者可以比消费者领先一代：放入第 g 代之前，
+ * 只需要消费者已经取走第 g - 2 代（占用同一个槽位）。放入和取出都只是一次数组复制和一次 volatile 写，
+ * 需要等待时先自旋一会儿，再 park，由对方在 volatile 写之后 unpark。
+ *
+ * @author Bert Lee 2026年10月18日 21:00
+ */
+final class HaloChannel {
+    private static final int SPINS = 256;
+
+    /** 等待时检查的结束标志 */
+    interface StopSignal {
+        boolean isStopped();
+    }
+
+    private final int[][] slots;
+    private final StopSignal stop;
+    private volatile long published = -1;
+    private volatile long consumed = -1;
+    private volatile Thread producer;
+    private volatile Thread consumer;
+
+    HaloChannel(int width, StopSignal stop) {
+        this.slots = new int[2][width];
+        this.stop = stop;
+    }
+
+    void setProducer(Thread thread) {
+        producer = thread;
+    }
+
+    void setConsumer(Thread thread) {
+        consumer = thread;
+    }
+
+    /**
+     * 放入第 generation 代的边界行 src[offset, offset + width)。
+     *
+     * @return 等待期间被停止时返回 false
+     */
+    boolean publish(long generation, int[] src, int offset) throws InterruptedException {
+        while (consumed < generation - 2) {
+            if (!await(true, generation - 2)) {
+                return false;
+            }
+        }
+        int[] slot = slots[(int) (generation & 1)];
+        System.arraycopy(src, offset, slot, 0, slot.length);
+        published = generation;
+        unpark(consumer);
+        return true;
+    }
+
+    /**
+     * 取出第 generation 代的边界行，复制到 dest[offset, offset + width)。
+     *
+     * @return 等待期间被停止时返回 false
+     */
+    boolean receive(long generation, int[] dest, int offset) throws InterruptedException {
+        while (published < generation) {
+            if (!await(false, generation)) {
+                return false;
+            }
+        }
+        int[] slot = slots[(int) (generation & 1)];
+        System.arraycopy(slot, 0, dest, offset, slot.length);
+        consumed = generation;
+        unpark(producer);
+        return true;
+    }
+
+    /**
+     * 唤醒可能在等待的两端，用于停止。
+     */
+    void wakeUp() {
+        unpark(producer);
+        unpark(consumer);
+    }
+
+    private boolean await(boolean forConsumer, long generation) throws InterruptedException {
+        for (int i = 0; i < SPINS; i++) {
+            if ((forConsumer ? consumed : published) >= generation) {
+                return true;
+            }
+        }
+        if (stop.isStopped()) {
+            return false;
+        }
+        LockSupport.park(this); // 对方在 volatile 写之后 unpark；先 unpark 后 park 也不会丢失唤醒
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return !stop.isStopped();
+    }
+
+    private static void unpark(Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
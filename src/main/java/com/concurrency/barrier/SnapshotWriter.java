@@ -0,0 +1,122 @@
+package com.concurrency.barrier;
+
+import com.concurrency.thread.MyThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link CellularAutomata} 的检查点和 {@link GenerationSink} 输出。
+ *
+ * <p>屏障动作中只复制一次当前一代（{@link Board#snapshot()}），压缩写盘和输出都在一个后台线程中按顺序完成，
+ * 所以工作者最多多等一次数组复制的时间。后台线程跟不上时（已经有 {@link #MAX_PENDING} 个快照在排队），
+ * 跳过这一代的快照，而不是让工作者等待或者让排队的副本占满堆；最后一代总是会写出。
+ *
+ * @author Bert Lee 2026年10月18日 22:20
+ */
+final class SnapshotWriter {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotWriter.class);
+
+    static final int MAX_PENDING = 2;
+
+    private final File checkpointFile;
+    private final long checkpointInterval;
+    private final GenerationSink sink;
+    private final long sinkInterval;
+    private final ExecutorService executor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long skipped;
+
+    SnapshotWriter(File checkpointFile, long checkpointInterval, GenerationSink sink, long sinkInterval) {
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = checkpointInterval;
+        this.sink = sink;
+        this.sinkInterval = sinkInterval;
+        this.executor = Executors.newSingleThreadExecutor(new MyThreadFactory("automata-snapshots"));
+    }
+
+    /**
+     * 屏障动作中调用：一代已经提交，按间隔决定是否快照。
+     *
+     * @param last 这是模拟的最后一代
+     */
+    void generationCommitted(Board board, boolean last) {
+        long generation = board.getGeneration();
+        boolean checkpoint = checkpointFile != null && (last || generation % checkpointInterval == 0);
+        boolean stream = sink != null && (last || generation % sinkInterval == 0);
+        if (!checkpoint && !stream) {
+            return;
+        }
+        if (!last && pending.get() >= MAX_PENDING) {
+            skipped++; // 屏障动作每次只在一个线程中执行
+            return;
+        }
+        submit(board.snapshot(), checkpoint, stream);
+    }
+
+    /**
+     * 模拟结束时的快照（HALO 模式没有逐代的屏障动作，只有这一次）。
+     */
+    void finished(BoardSnapshot snapshot) {
+        submit(snapshot, checkpointFile != null, sink != null);
+    }
+
+    private void submit(final BoardSnapshot snapshot, final boolean checkpoint, final boolean stream) {
+        pending.incrementAndGet();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write(snapshot, checkpoint, stream);
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) { // 已经关闭：start() 被中断后工作者仍在运行
+            pending.decrementAndGet();
+        }
+    }
+
+    private void write(BoardSnapshot snapshot, boolean checkpoint, boolean stream) {
+        if (checkpoint) {
+            try {
+                BoardCheckpoint.write(snapshot, checkpointFile);
+            } catch (IOException e) {
+                logger.error("Failed to write checkpoint of generation {} to {}", snapshot.getGeneration(),
+                        checkpointFile, e);
+            }
+        }
+        if (stream) {
+            try {
+                sink.generation(snapshot);
+            } catch (RuntimeException e) {
+                logger.warn("Generation sink failed at generation {}", snapshot.getGeneration(), e);
+            }
+        }
+    }
+
+    /**
+     * 因为后台线程跟不上而跳过的快照个数。
+     */
+    long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * 等待排队的快照全部写完。
+     */
+    void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+}
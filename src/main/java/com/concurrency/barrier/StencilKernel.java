@@ -0,0 +1,24 @@
+package com.concurrency.barrier;
+
+/**
+ * 细胞自动机的规则：由一个格子及其 8 个邻居（上一代）计算这个格子的下一代。
+ *
+ * <p>一次调用处理一行中连续的一段，而不是一个格子，使循环可以被 JIT 展开和向量化，
+ * 也避免了每个格子一次虚方法调用。棋盘按行优先存放，行与行之间紧密相连，
+ * 第一行之上和最后一行之下各有一行值为 0 的幽灵行（或者相邻分区的边界行），所以实现不需要检查行的边界；
+ * 第 0 列和最后一列左右两侧的邻居按 0 计算。
+ *
+ * @author Bert Lee 2026年10月18日 21:30
+ */
+public interface StencilKernel {
+
+    /**
+     * 计算一行中 [fromX, toX) 列的下一代。
+     *
+     * @param from 上一代，这一行第 x 列是 from[row + x]，上下两行是 from[row - width + x] 和 from[row + width + x]
+     * @param to 下一代，写入 to[row + x]
+     * @param row 这一行第 0 列在数组中的下标
+     * @return 这一段中是否有格子发生了变化
+     */
+    boolean apply(int[] from, int[] to, int row, int width, int fromX, int toX);
+}
@@ -0,0 +1,156 @@
+package com.concurrency.barrier;
+
+import java.lang.reflect.Method;
+
+/**
+ * 常用的 {@link StencilKernel} 以及分块（tiled）执行它们的循环。
+ *
+ * <pre>
+ * 规则
+ *    {@link #GAME_OF_LIFE}    康威生命游戏，非 0 的格子是活的，下一代是 0 或 1
+ *    {@link #DIFFUSION}       扩散：下一代是 (4 × 自己 + 上 + 下 + 左 + 右) / 8，值从高处向四周流散
+ * 分块
+ *    {@link #step} 按列把行切成宽度为 tileWidth 的块，先在一个块内从上到下算完所有行，再算下一个块：
+ *    一个块的三行（约 3 × tileWidth × 4 字节）一直留在 L1/L2 缓存中，
+ *    每一行只从内存读一次，而不是很宽的行（例如 10000 列）在算下一行时已经被挤出缓存。
+ * 向量化
+ *    {@link #vectorized(StencilKernel)} 在用 -P vector 构建并且 JDK 提供 jdk.incubator.vector 时，
+ *    返回一次处理一整段 SIMD 宽度的实现（见 src/vector/java），否则返回原来的标量实现。
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 21:35
+ */
+public final class StencilKernels {
+    /** 默认的分块宽度（列数） */
+    public static final int DEFAULT_TILE_WIDTH = 1024;
+
+    public static final StencilKernel GAME_OF_LIFE = new GameOfLife();
+
+    public static final StencilKernel DIFFUSION = new Diffusion();
+
+    private static final Method VECTORIZE = findVectorize();
+
+    private StencilKernels() {
+    }
+
+    /**
+     * 是否可以使用 SIMD 实现。
+     */
+    public static boolean isVectorSupported() {
+        return VECTORIZE != null;
+    }
+
+    /**
+     * kernel 的 SIMD 实现；不支持向量化，或者 kernel 不是这里的内置规则时返回 kernel 本身。
+     */
+    public static StencilKernel vectorized(StencilKernel kernel) {
+        if (VECTORIZE == null) {
+            return kernel;
+        }
+        try {
+            return (StencilKernel) VECTORIZE.invoke(null, kernel);
+        } catch (Exception e) {
+            return kernel;
+        }
+    }
+
+    /**
+     * 分块计算 rows 行的下一代，第一行第 0 列的下标是 firstRow。
+     *
+     * @return 是否有格子发生了变化
+     */
+    public static boolean step(StencilKernel kernel, int[] from, int[] to, int firstRow, int rows, int width,
+                               int tileWidth) {
+        boolean changed = false;
+        int lastRow = firstRow + rows * width;
+        for (int fromX = 0; fromX < width; fromX += tileWidth) {
+            int toX = Math.min(fromX + tileWidth, width);
+            for (int row = firstRow; row < lastRow; row += width) {
+                changed |= kernel.apply(from, to, row, width, fromX, toX);
+            }
+        }
+        return changed;
+    }
+
+    /*
+     * 向量实现只在 vector profile 中编译，通过反射加载。
+     */
+    private static Method findVectorize() {
+        try {
+            Class.forName("jdk.incubator.vector.IntVector");
+            Class<?> vectorKernels = Class.forName("com.concurrency.barrier.VectorStencilKernels");
+            return vectorKernels.getMethod("vectorize", StencilKernel.class);
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static final class GameOfLife implements StencilKernel {
+        @Override
+        public boolean apply(int[] from, int[] to, int row, int width, int fromX, int toX) {
+            int above = row - width;
+            int below = row + width;
+            int x = fromX;
+            int changed = 0;
+            if (x == 0 && x < toX) { // 第 0 列没有左邻居
+                changed |= set(from, to, row, 0, countEdge(from, above, row, below, width, 0));
+                x = 1;
+            }
+            int end = Math.min(toX, width - 1);
+            for (; x < end; x++) {
+                int n = nonZero(from[above + x - 1]) + nonZero(from[above + x]) + nonZero(from[above + x + 1])
+                        + nonZero(from[row + x - 1]) + nonZero(from[row + x + 1])
+                        + nonZero(from[below + x - 1]) + nonZero(from[below + x]) + nonZero(from[below + x + 1]);
+                changed |= set(from, to, row, x, n);
+            }
+            if (x < toX) { // 最后一列没有右邻居
+                changed |= set(from, to, row, x, countEdge(from, above, row, below, width, x));
+            }
+            return changed != 0;
+        }
+
+        private static int set(int[] from, int[] to, int row, int x, int neighbours) {
+            int current = from[row + x];
+            int value = (neighbours == 3 || (neighbours == 2 && current != 0)) ? 1 : 0;
+            to[row + x] = value;
+            return value ^ nonZero(current) | (current & ~1); // 非 0/1 的初始值也算变化
+        }
+
+        private static int countEdge(int[] from, int above, int row, int below, int width, int x) {
+            int n = 0;
+            for (int dx = -1; dx <= 1; dx++) {
+                int nx = x + dx;
+                if (nx < 0 || nx >= width) {
+                    continue;
+                }
+                n += nonZero(from[above + nx]) + nonZero(from[below + nx]);
+                if (dx != 0) {
+                    n += nonZero(from[row + nx]);
+                }
+            }
+            return n;
+        }
+
+        private static int nonZero(int value) {
+            return (value | -value) >>> 31;
+        }
+    }
+
+    static final class Diffusion implements StencilKernel {
+        @Override
+        public boolean apply(int[] from, int[] to, int row, int width, int fromX, int toX) {
+            int above = row - width;
+            int below = row + width;
+            boolean changed = false;
+            for (int x = fromX; x < toX; x++) {
+                int left = (x > 0) ? from[row + x - 1] : 0;
+                int right = (x < width - 1) ? from[row + x + 1] : 0;
+                int current = from[row + x];
+                int value = (4 * current + from[above + x] + from[below + x] + left + right) >> 3;
+                to[row + x] = value;
+                changed |= value != current;
+            }
+            return changed;
+        }
+    }
+}
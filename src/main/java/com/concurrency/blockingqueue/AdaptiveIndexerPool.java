@@ -0,0 +1,354 @@
+package com.concurrency.blockingqueue;
+
+import com.concurrency.blockingqueue.index.InvertedIndex;
+import com.concurrency.metrics.Counter;
+import com.concurrency.metrics.Gauge;
+import com.concurrency.metrics.MetricsRegistry;
+import com.concurrency.metrics.ThreadTime;
+import com.concurrency.metrics.Timer;
+import com.concurrency.thread.MyThreadFactory;
+import com.concurrency.thread.PinningMonitor;
+import com.concurrency.thread.VirtualThreads;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 根据负载自动调整大小的索引者线程池。
+ *
+ * <pre>
+ * 采样
+ *    控制器每隔一个采样周期读取：队列深度（占容量的比例）、索引者利用率（索引文件的时间占全部索引者时间的比例）、
+ *    吞吐量（每秒索引的文件数）。
+ * 扩容
+ *    队列积压（深度 &gt;= 50%）并且索引者都很忙（利用率 &gt;= 80%）时，增加四分之一的索引者（至少一个）。
+ *    下一次采样时如果吞吐量的增长不到 5%，说明瓶颈已经在 CPU 或磁盘上，撤销这次扩容，
+ *    并把当前大小记为上限，直到队列变空时才重新探测。
+ * 缩容
+ *    队列几乎为空（深度 &lt;= 5%）并且利用率低于 50% 时，每个周期让一个索引者退役。
+ *    退役是协作式的：索引者在两个文件之间（或者等待队列超时时）领取退役信号，发布已经建立的索引后退出。
+ * 线程
+ *    PLATFORM 模式使用 MyThreadFactory 创建的平台线程，上限默认是 CPU 核数的 4 倍；
+ *    VIRTUAL 模式为每个索引者创建一个虚拟线程（仍由 MyThreadFactory 命名和计数），适合 I/O 密集的爬取
+ *    （例如网络文件系统），运行期间用 {@link PinningMonitor} 报告钉住载体线程的索引者；
+ *    在不支持虚拟线程的 JDK 上退回 PLATFORM 模式。
+ * </pre>
+ *
+ * <p>度量记录在构造时给定的 {@link MetricsRegistry} 中：indexer.files（索引的文件数）、
+ * indexer.file（每个文件的索引时间）、indexer.threadTime（索引者线程累计运行的时间）、indexer.workers、indexer.utilization 和 indexer.throughput。
+ *
+ * <p>所有索引者退出后（取到毒丸，或者被 {@link #shutdownNow()} 中断），{@link #termination()} 完成。
+ * 控制器从不让最后 minWorkers 个索引者退役，所以在毒丸到来之前线程池不会自行终止。
+ *
+ * @author Bert Lee 2026年10月18日 16:10
+ */
+public class AdaptiveIndexerPool {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveIndexerPool.class);
+
+    /**
+     * 索引者线程的类型。
+     */
+    public enum Mode {
+        PLATFORM, VIRTUAL
+    }
+
+    static final long SAMPLE_PERIOD_MILLIS = 250;
+    static final double HIGH_WATER = 0.5;
+    static final double LOW_WATER = 0.05;
+    static final double BUSY = 0.8;
+    static final double IDLE = 0.5;
+    static final double MIN_GAIN = 0.05;
+    /** VIRTUAL 模式下报告钉住载体线程超过多久的索引者 */
+    static final long PINNING_THRESHOLD_MILLIS = 20;
+
+    private final BlockingQueue<File> queue;
+    private final InvertedIndex index;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final int initialWorkers;
+    private final Mode mode;
+
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private final AtomicInteger retireRequests = new AtomicInteger();
+    private final Counter filesIndexed;
+    private final Timer fileTime;
+    private final ThreadTime threadTime;
+    private final LongAdder busyNanos = new LongAdder();
+    private final CompletableFuture<Void> termination = new CompletableFuture<>();
+    private final Indexer.Control control = new Indexer.Control() {
+        @Override
+        public boolean shouldRetire() {
+            int requests;
+            while ((requests = retireRequests.get()) > 0) {
+                if (retireRequests.compareAndSet(requests, requests - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void fileIndexed(long nanos) {
+            filesIndexed.increment();
+            fileTime.record(nanos);
+            busyNanos.add(nanos);
+        }
+    };
+
+    private ExecutorService workers;
+    private ScheduledExecutorService controller;
+    private PinningMonitor pinningMonitor;
+    private volatile boolean stopped;
+
+    // 以下字段只由控制器线程访问
+    private long lastSampleNanos;
+    private long lastFiles;
+    private long lastBusyNanos;
+    private int ceiling;
+    private boolean growthPending;
+    private int workersBeforeGrowth;
+    private double throughputBeforeGrowth;
+    private volatile double lastThroughput;
+    private volatile double lastUtilization;
+
+    /**
+     * @param minWorkers 最少的索引者个数，也是固定大小的线程池的大小（minWorkers == maxWorkers 时不启动控制器）
+     * @param maxWorkers 最多的索引者个数
+     */
+    public AdaptiveIndexerPool(BlockingQueue<File> queue, InvertedIndex index, int minWorkers, int maxWorkers,
+                               Mode mode) {
+        this(queue, index, minWorkers, maxWorkers, mode, new MetricsRegistry("indexer-pool"));
+    }
+
+    /**
+     * @param metrics 记录索引者度量的注册表，例如 {@link PipelineMetrics#getRegistry()}
+     */
+    public AdaptiveIndexerPool(BlockingQueue<File> queue, InvertedIndex index, int minWorkers, int maxWorkers,
+                               Mode mode, MetricsRegistry metrics) {
+        if (minWorkers <= 0 || maxWorkers < minWorkers) {
+            throw new IllegalArgumentException("minWorkers: " + minWorkers + ", maxWorkers: " + maxWorkers);
+        }
+        this.queue = queue;
+        this.index = index;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.initialWorkers = Math.min(maxWorkers, Math.max(minWorkers, Runtime.getRuntime().availableProcessors()));
+        this.mode = (mode == Mode.VIRTUAL && !VirtualThreads.isSupported()) ? Mode.PLATFORM : mode;
+        if (this.mode != mode) {
+            logger.warn("Virtual threads are not supported on this JDK, falling back to platform indexer threads");
+        }
+        this.ceiling = maxWorkers;
+
+        this.filesIndexed = metrics.counter("indexer.files");
+        this.fileTime = metrics.timer("indexer.file");
+        this.threadTime = metrics.threadTime("indexer.threadTime");
+        metrics.gauge("indexer.workers", new Gauge() {
+            @Override
+            public Number value() {
+                return getWorkerCount();
+            }
+        });
+        metrics.gauge("indexer.utilization", new Gauge() {
+            @Override
+            public Number value() {
+                return getLastUtilization();
+            }
+        });
+        metrics.gauge("indexer.throughput", new Gauge() {
+            @Override
+            public Number value() {
+                return getLastThroughput();
+            }
+        });
+    }
+
+    /**
+     * 默认的索引者上限：平台线程为 CPU 核数的 4 倍，虚拟线程为 64 倍。
+     */
+    public static int defaultMaxWorkers(Mode mode) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return (mode == Mode.VIRTUAL) ? processors * 64 : processors * 4;
+    }
+
+    public synchronized void start() {
+        if (workers != null) {
+            throw new IllegalStateException("Already started");
+        }
+        workers = (mode == Mode.VIRTUAL)
+                ? VirtualThreads.newThreadPerTaskExecutor(new MyThreadFactory("indexer", true))
+                : new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                        new SynchronousQueue<Runnable>(), new MyThreadFactory("indexer"));
+        if (mode == Mode.VIRTUAL) {
+            pinningMonitor = PinningMonitor.start(PINNING_THRESHOLD_MILLIS);
+        }
+        liveWorkers.incrementAndGet(); // 启动期间防止线程池因为索引者立即取到毒丸而提前终止
+        try {
+            if (minWorkers < maxWorkers) {
+                lastSampleNanos = System.nanoTime();
+                controller = Executors.newSingleThreadScheduledExecutor(new MyThreadFactory("indexer-controller"));
+                controller.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            adjust();
+                        } catch (RuntimeException e) {
+                            logger.error("Indexer pool controller failed", e);
+                        }
+                    }
+                }, SAMPLE_PERIOD_MILLIS, SAMPLE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            for (int i = 0; i < initialWorkers; i++) {
+                addWorker();
+            }
+        } finally {
+            workerExited();
+        }
+    }
+
+    /**
+     * 所有索引者都已退出时完成。
+     */
+    public CompletableFuture<Void> termination() {
+        return termination;
+    }
+
+    /**
+     * 停止调整大小并中断所有索引者。
+     */
+    public void shutdownNow() {
+        stopped = true;
+        if (controller != null) {
+            controller.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 当前的索引者个数（包括已经领到退役信号、正在退出的索引者）。
+     */
+    public int getWorkerCount() {
+        return liveWorkers.get();
+    }
+
+    public long getFilesIndexed() {
+        return filesIndexed.count();
+    }
+
+    public double getLastThroughput() {
+        return lastThroughput;
+    }
+
+    public double getLastUtilization() {
+        return lastUtilization;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /*
+     * 控制器线程：采样并调整大小。
+     */
+    private void adjust() {
+        long now = System.nanoTime();
+        long files = filesIndexed.count();
+        long busy = busyNanos.sum();
+        long elapsed = Math.max(now - lastSampleNanos, 1);
+        int active = liveWorkers.get() - retireRequests.get();
+
+        double throughput = (files - lastFiles) * 1e9 / elapsed;
+        double utilization = Math.min(1.0, (busy - lastBusyNanos) / ((double) elapsed * Math.max(active, 1)));
+        int capacity = queue.size() + queue.remainingCapacity();
+        double depth = (capacity == 0) ? 0 : (double) queue.size() / capacity;
+        lastSampleNanos = now;
+        lastFiles = files;
+        lastBusyNanos = busy;
+        lastThroughput = throughput;
+        lastUtilization = utilization;
+
+        if (stopped || active <= 0) {
+            return;
+        }
+
+        if (growthPending) {
+            growthPending = false;
+            if (throughput < throughputBeforeGrowth * (1 + MIN_GAIN)) { // 扩容没有带来收益
+                ceiling = workersBeforeGrowth;
+                retire(active - ceiling);
+                logger.debug("Indexer pool saturated at {} workers ({} files/s)", ceiling, (long) throughputBeforeGrowth);
+                return;
+            }
+        }
+
+        int limit = Math.min(maxWorkers, ceiling);
+        if (depth >= HIGH_WATER && utilization >= BUSY && active < limit) {
+            int step = Math.min(Math.max(1, active / 4), limit - active);
+            workersBeforeGrowth = active;
+            throughputBeforeGrowth = throughput;
+            growthPending = true;
+            for (int i = 0; i < step; i++) {
+                addWorker();
+            }
+            logger.debug("Indexer pool grew to {} workers (depth={}, utilization={})", active + step, depth, utilization);
+        } else if (depth <= LOW_WATER && utilization < IDLE && active > minWorkers) {
+            retire(1);
+            ceiling = maxWorkers; // 负载变了，允许下次重新探测上限
+            logger.debug("Indexer pool shrinking to {} workers", active - 1);
+        }
+    }
+
+    private void retire(int count) {
+        if (count > 0) {
+            retireRequests.addAndGet(count);
+        }
+    }
+
+    private void addWorker() {
+        liveWorkers.incrementAndGet();
+        try {
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    threadTime.start(1);
+                    try {
+                        new Indexer(queue, index, control).run();
+                    } finally {
+                        threadTime.stop(1);
+                        workerExited();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) { // 已经关闭
+            workerExited();
+        }
+    }
+
+    private void workerExited() {
+        if (liveWorkers.decrementAndGet() == 0) {
+            stopped = true;
+            if (controller != null) {
+                controller.shutdown();
+            }
+            workers.shutdown();
+            if (pinningMonitor != null) {
+                pinningMonitor.close();
+            }
+            termination.complete(null);
+        }
+    }
+}
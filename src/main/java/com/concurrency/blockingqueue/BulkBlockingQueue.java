@@ -0,0 +1,17 @@
+package com.concurrency.blockingqueue;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 支持批量放入的阻塞队列，爬虫用它一次发布一批文件（见 {@link FileChunkPublisher}）。
+ *
+ * @author Bert Lee 2026年10月18日 18:20
+ */
+public interface BulkBlockingQueue<E> extends BlockingQueue<E> {
+
+    /**
+     * 按顺序放入所有元素，队列满时阻塞。被中断时已经放入的元素留在队列中。
+     */
+    void putAll(List<? extends E> items) throws InterruptedException;
+}
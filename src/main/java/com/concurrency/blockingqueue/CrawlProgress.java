@@ -0,0 +1,84 @@
+package com.concurrency.blockingqueue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 爬虫进度计数器，可以被多个爬虫线程同时更新，随时读取。
+ *
+ * @author Bert Lee 2026年10月18日 10:40
+ */
+public class CrawlProgress {
+    private final LongAdder directoriesVisited = new LongAdder();
+    private final LongAdder filesQueued = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
+    private final LongAdder filesUnchanged = new LongAdder();
+    private final LongAdder symlinkLoops = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    void directoryVisited() {
+        directoriesVisited.increment();
+    }
+
+    void filesQueued(int count) {
+        filesQueued.add(count);
+    }
+
+    void fileSkipped() {
+        filesSkipped.increment();
+    }
+
+    void fileUnchanged() {
+        filesUnchanged.increment();
+    }
+
+    void symlinkLoopDetected() {
+        symlinkLoops.increment();
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    public long getDirectoriesVisited() {
+        return directoriesVisited.sum();
+    }
+
+    public long getFilesQueued() {
+        return filesQueued.sum();
+    }
+
+    /**
+     * 被过滤器拒绝或者已经建过索引而跳过的文件数。
+     */
+    public long getFilesSkipped() {
+        return filesSkipped.sum();
+    }
+
+    /**
+     * 自上次建立索引以来没有变化而跳过的文件数。
+     */
+    public long getFilesUnchanged() {
+        return filesUnchanged.sum();
+    }
+
+    public long getSymlinkLoops() {
+        return symlinkLoops.sum();
+    }
+
+    /**
+     * 无法读取的目录或文件属性的个数。
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "directories=" + getDirectoriesVisited()
+                + ", queued=" + getFilesQueued()
+                + ", skipped=" + getFilesSkipped()
+                + ", unchanged=" + getFilesUnchanged()
+                + ", symlinkLoops=" + getSymlinkLoops()
+                + ", errors=" + getErrors();
+    }
+}
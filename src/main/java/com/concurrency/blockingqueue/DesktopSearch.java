@@ -1,36 +1,423 @@
 package com.concurrency.blockingqueue;
 
+import com.concurrency.blockingqueue.index.InvertedIndex;
+import com.concurrency.blockingqueue.index.Query;
+import com.concurrency.metrics.Gauge;
+import com.concurrency.metrics.MetricsMBean;
+import com.concurrency.metrics.MetricsRegistry;
+import com.concurrency.metrics.MetricsReporter;
+import com.concurrency.thread.MyThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * 示例：桌面搜索
  *
+ * <p>爬虫（生产者）把文件放入队列，索引者（消费者）取出文件建立倒排索引，
+ * 索引在建立的过程中就可以通过 {@link #search(Query)} 查询。
+ *
+ * <pre>
+ * 生命周期
+ *    {@link #start()} 在 MyThreadFactory 创建的线程池中启动爬虫和索引者；
+ *    索引者由 {@link AdaptiveIndexerPool} 根据队列深度、利用率和吞吐量在上下限之间调整个数；
+ *    最后一个爬虫结束时，向队列放入一颗 {@link Indexer#END_OF_STREAM}（毒丸），
+ *    每个索引者处理完排在毒丸之前的文件后把毒丸放回队列并退出；所有索引者退出后提交索引，关闭线程池，
+ *    {@link #completion()} 返回的 future 完成。
+ * 关闭
+ *    {@link #shutdown(long, TimeUnit)} 中断爬虫，已经在队列中的文件在限定时间内继续被索引，
+ *    超时后中断索引者，未处理的文件被丢弃。
+ * 度量
+ *    爬虫、队列和索引者的度量（见 {@link PipelineMetrics}）在运行期间注册为 JMX MBean
+ *    com.concurrency.metrics:type=Metrics,name="desktop-search-N"，并每隔 {@link #REPORT_PERIOD_SECONDS} 秒写入日志，
+ *    流水线完成时写最后一次报告；{@link #getMetrics()} 的 bottleneck() 给出爬虫和索引者中较慢的一侧。
+ * </pre>
+ *
  * @author Bert Lee 2015年08月16日 17:37
  */
 public class DesktopSearch {
+    private static final Logger logger = LoggerFactory.getLogger(DesktopSearch.class);
 
     private static final int BOUND = 10000;
-    private static final int CONSUMERS_MAX = 100;
+    /** 度量报告的周期 */
+    static final long REPORT_PERIOD_SECONDS = 10;
+    private static final AtomicInteger instances = new AtomicInteger();
+
+    private final File[] roots;
+    private final ForkJoinPool crawlPool;
+    private final InvertedIndex index;
+    private final boolean ownsIndex;
+    private final int minIndexers;
+    private final int maxIndexers;
+    private final AdaptiveIndexerPool.Mode indexerMode;
+    private final BlockingQueue<File> queue;
+    private final AtomicInteger runningCrawlers = new AtomicInteger();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final PipelineMetrics metrics;
+    private final MetricsReporter reporter;
+
+    private ExecutorService crawlerExecutor;
+    private AdaptiveIndexerPool indexers;
+    private ObjectName mbeanName;
+    private boolean started;
+
+    /**
+     * 固定个数的索引者。
+     *
+     * @param crawlPool 不为 null 时使用 {@link ParallelFileCrawler} 在其中并行地遍历每个根目录
+     * @param indexerCount 索引者线程数
+     */
+    public DesktopSearch(File[] roots, ForkJoinPool crawlPool, InvertedIndex index, int indexerCount) {
+        this(roots, crawlPool, index, indexerCount, indexerCount, AdaptiveIndexerPool.Mode.PLATFORM);
+    }
+
+    /**
+     * 索引者个数在 [minIndexers, maxIndexers] 之间由 {@link AdaptiveIndexerPool} 根据负载调整。
+     */
+    public DesktopSearch(File[] roots, ForkJoinPool crawlPool, InvertedIndex index,
+                         int minIndexers, int maxIndexers, AdaptiveIndexerPool.Mode indexerMode) {
+        this(roots, crawlPool, index, minIndexers, maxIndexers, indexerMode, new LinkedBlockingQueue<File>(BOUND));
+    }
+
+    /**
+     * @param queue 爬虫和索引者之间的有界队列，例如 {@link MpmcBlockingQueue}，必须为空
+     */
+    public DesktopSearch(File[] roots, ForkJoinPool crawlPool, InvertedIndex index,
+                         int minIndexers, int maxIndexers, AdaptiveIndexerPool.Mode indexerMode,
+                         BlockingQueue<File> queue) {
+        this(roots, crawlPool, index, minIndexers, maxIndexers, indexerMode, queue, false);
+    }
+
+    private DesktopSearch(File[] roots, ForkJoinPool crawlPool, InvertedIndex index,
+                          int minIndexers, int maxIndexers, AdaptiveIndexerPool.Mode indexerMode,
+                          BlockingQueue<File> queue, boolean ownsIndex) {
+        if (minIndexers <= 0 || maxIndexers < minIndexers) {
+            throw new IllegalArgumentException("minIndexers: " + minIndexers + ", maxIndexers: " + maxIndexers);
+        }
+        this.roots = roots.clone();
+        this.crawlPool = crawlPool;
+        this.index = index;
+        this.minIndexers = minIndexers;
+        this.maxIndexers = maxIndexers;
+        this.indexerMode = indexerMode;
+        this.ownsIndex = ownsIndex;
+        this.metrics = new PipelineMetrics(new MetricsRegistry("desktop-search-" + instances.incrementAndGet()));
+        this.queue = metrics.instrument(queue);
+        this.reporter = new MetricsReporter(metrics.getRegistry(), logger);
+        metrics.getRegistry().gauge("crawler.active", new Gauge() {
+            @Override
+            public Number value() {
+                return runningCrawlers.get();
+            }
+        });
+    }
+
+    /**
+     * 使用自适应的索引者线程池：至少 1 个，最多 {@link AdaptiveIndexerPool#defaultMaxWorkers} 个平台线程。
+     */
+    public static DesktopSearch startIndexing(File[] roots) {
+        return startIndexing(roots, (ForkJoinPool) null);
+    }
+
+    /**
+     * 使用 {@link ParallelFileCrawler} 在 crawlPool 中并行地遍历每个根目录，crawlPool 为 null 时使用 {@link FileCrawler}。
+     */
+    public static DesktopSearch startIndexing(File[] roots, ForkJoinPool crawlPool) {
+        return new DesktopSearch(roots, crawlPool, new InvertedIndex(), 1,
+                AdaptiveIndexerPool.defaultMaxWorkers(AdaptiveIndexerPool.Mode.PLATFORM),
+                AdaptiveIndexerPool.Mode.PLATFORM).start();
+    }
+
+    /**
+     * 在 indexDirectory 中的持久化索引上继续建立索引，自上次索引以来没有变化的文件被爬虫跳过。
+     * 索引在流水线完成时被关闭，之后仍然可以查询。
+     */
+    public static DesktopSearch startIndexing(File[] roots, File indexDirectory) throws IOException {
+        return startIndexing(roots, indexDirectory, AdaptiveIndexerPool.Mode.PLATFORM);
+    }
+
+    /**
+     * @param indexerMode I/O 密集的爬取（例如网络文件系统）可以使用 VIRTUAL 模式
+     */
+    public static DesktopSearch startIndexing(File[] roots, File indexDirectory, AdaptiveIndexerPool.Mode indexerMode)
+            throws IOException {
+        return new DesktopSearch(roots, null, InvertedIndex.open(indexDirectory), 1,
+                AdaptiveIndexerPool.defaultMaxWorkers(indexerMode), indexerMode,
+                new LinkedBlockingQueue<File>(BOUND), true).start();
+    }
+
+    /**
+     * 启动爬虫和索引者，只能调用一次。
+     */
+    public synchronized DesktopSearch start() {
+        if (started) {
+            throw new IllegalStateException("Already started");
+        }
+        started = true;
 
-    public static void startIndexing(File[] roots) {
-        BlockingQueue<File> queue = new LinkedBlockingQueue<>(BOUND);
         FileFilter filter = new FileFilter() {
             @Override
             public boolean accept(File file) {
                 return true;
             }
         };
+        SeenFileIndex seenFileIndex = new SeenFileIndex(); // 所有爬虫共享
+
+        crawlerExecutor = Executors.newFixedThreadPool(Math.max(roots.length, 1), new MyThreadFactory("crawler"));
+        try {
+            mbeanName = MetricsMBean.register(metrics.getRegistry());
+        } catch (JMException e) { // 没有 JMX 也可以运行，仍然有日志报告
+            logger.warn("Failed to register metrics MBean", e);
+        }
+        reporter.start(REPORT_PERIOD_SECONDS, TimeUnit.SECONDS);
+
+        indexers = new AdaptiveIndexerPool(queue, index, minIndexers, maxIndexers, indexerMode, metrics.getRegistry());
+        indexers.termination().thenRun(new Runnable() {
+            @Override
+            public void run() {
+                finish();
+            }
+        });
+        indexers.start();
 
+        runningCrawlers.set(roots.length);
+        if (roots.length == 0) {
+            endOfStream();
+        }
+        // 并行爬虫的所有根目录共享 crawlPool 的线程
+        final int crawlerThreads = (crawlPool == null) ? 1 : Math.max(1, crawlPool.getParallelism() / roots.length);
         for (File root : roots) {
-            new Thread(new FileCrawler(queue, filter, root)).start();
+            final Runnable crawler = (crawlPool == null)
+                    ? new FileCrawler(queue, filter, root, seenFileIndex, index)
+                    : new ParallelFileCrawler(queue, filter, root, crawlPool, seenFileIndex, true, index);
+            crawlerExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long start = System.nanoTime();
+                    metrics.getProducerTime().start(crawlerThreads);
+                    try {
+                        crawler.run();
+                    } finally {
+                        metrics.getProducerTime().stop(crawlerThreads);
+                        metrics.getCrawlTime().record(System.nanoTime() - start);
+                        if (runningCrawlers.decrementAndGet() == 0) {
+                            endOfStream();
+                        }
+                    }
+                }
+            });
         }
-        for (int i = 0; i < CONSUMERS_MAX; i++) {
-            new Thread(new Indexer(queue)).start();
+        return this;
+    }
+
+    /**
+     * 整个流水线（爬取、索引、提交）完成时完成，索引提交失败时异常完成。
+     */
+    public CompletableFuture<Void> completion() {
+        return completion.thenApply(new Function<Void, Void>() { // 调用者无法完成内部的 future
+            @Override
+            public Void apply(Void ignored) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 等待流水线完成。
+     */
+    public void awaitCompletion() throws InterruptedException, ExecutionException {
+        completion.get();
+    }
+
+    /**
+     * 最多等待给定的时间。
+     *
+     * @return 流水线已经完成时返回 true
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException {
+        try {
+            completion.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * 停止爬取，在 timeout 内继续索引已经在队列中的文件，超时后中断索引者。
+     * 返回时所有线程都已停止（或者正在退出），索引已经提交。
+     *
+     * @return 队列中的文件都被索引时返回 true，超时而丢弃了部分文件时返回 false
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            if (!started) {
+                started = true; // 之后不能再启动
+                completion.complete(null);
+                return true;
+            }
+        }
+        List<Runnable> neverStarted = crawlerExecutor.shutdownNow(); // 爬虫被中断，最后一个爬虫退出时放入毒丸
+        for (int i = 0; i < neverStarted.size(); i++) {
+            if (runningCrawlers.decrementAndGet() == 0) {
+                endOfStream();
+            }
+        }
+
+        boolean drained;
+        try {
+            drained = awaitCompletion(timeout, unit);
+        } catch (ExecutionException e) { // 只可能是提交索引失败，已经记录日志
+            drained = true;
+        }
+        if (!drained) {
+            logger.warn("Indexing did not drain within {} {}, discarding {} queued files",
+                    timeout, unit, queue.size());
+            queue.clear();
+            indexers.shutdownNow();
+            crawlerExecutor.shutdownNow(); // 再次中断可能阻塞在放入毒丸上的爬虫线程
+            try {
+                completion.get();
+            } catch (ExecutionException e) {
+                // 已经记录日志
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * 包含该词项的所有文件。
+     */
+    public List<File> search(String term) {
+        return search(Query.term(term));
+    }
+
+    /**
+     * 同时包含所有词项的文件。
+     */
+    public List<File> searchAll(String... terms) {
+        return search(Query.and(terms(terms)));
+    }
+
+    /**
+     * 包含任一词项的文件。
+     */
+    public List<File> searchAny(String... terms) {
+        return search(Query.or(terms(terms)));
+    }
+
+    public List<File> search(Query query) {
+        int[] docIds = query.evaluate(index);
+        List<File> files = new ArrayList<>(docIds.length);
+        for (int docId : docIds) {
+            files.add(index.document(docId));
+        }
+        return files;
+    }
+
+    /**
+     * 把已经建立的索引写入磁盘，只在内存中的索引上什么都不做。
+     */
+    public void commit() throws IOException {
+        index.commit();
+    }
+
+    public InvertedIndex getIndex() {
+        return index;
+    }
+
+    public AdaptiveIndexerPool getIndexers() {
+        return indexers;
+    }
+
+    /**
+     * 流水线的度量，可以随时读取。
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /*
+     * 所有爬虫都已结束：放入一颗毒丸，排在已经放入的文件之后，每个索引者取到后把它放回队列再退出。
+     */
+    private void endOfStream() {
+        boolean interrupted = Thread.interrupted(); // 被 shutdown 中断的爬虫线程仍需要放入毒丸
+        try {
+            queue.put(Indexer.END_OF_STREAM);
+        } catch (InterruptedException e) { // 关闭超时，索引者已被中断
+            interrupted = true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * 所有索引者都已退出：提交索引，释放线程。
+     */
+    private void finish() {
+        long start = System.nanoTime();
+        try {
+            if (ownsIndex) {
+                index.close();
+            } else {
+                index.commit();
+            }
+            metrics.getCommitTime().record(System.nanoTime() - start);
+        } catch (IOException e) {
+            logger.error("Failed to commit index", e);
+            completion.completeExceptionally(e);
+        } finally {
+            crawlerExecutor.shutdown();
+            stopReporting();
+            completion.complete(null); // 异常完成时什么都不做
+        }
+    }
+
+    private void stopReporting() {
+        reporter.stop();
+        logger.info("Pipeline bottleneck: {} (producer/consumer blocked fraction ratio {})",
+                metrics.bottleneck(), metrics.blockedRatio());
+        if (mbeanName != null) {
+            try {
+                MetricsMBean.unregister(mbeanName);
+            } catch (JMException e) {
+                logger.warn("Failed to unregister metrics MBean {}", mbeanName, e);
+            }
+        }
+    }
+
+    private static Query[] terms(String[] terms) {
+        Query[] queries = new Query[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            queries[i] = Query.term(terms[i]);
         }
+        return queries;
     }
 
 }
@@ -0,0 +1,63 @@
+package com.concurrency.blockingqueue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 爬虫线程私有的发布缓冲区：攒够一批文件后一次放入队列。
+ *
+ * <p>队列是 {@link BulkBlockingQueue}（例如 {@link MpmcBlockingQueue}）时整批放入，一批文件只需要一次 CAS；其他队列逐个 put，
+ * 但至少把放入集中在一起，消费者一侧仍可以用 drainTo 成批取走。非线程安全。
+ *
+ * @author Bert Lee 2026年10月18日 17:20
+ */
+final class FileChunkPublisher {
+    /** 默认每批的文件数 */
+    static final int DEFAULT_CHUNK_SIZE = 32;
+
+    private final BlockingQueue<File> queue;
+    private final int chunkSize;
+    private final List<File> chunk;
+
+    FileChunkPublisher(BlockingQueue<File> queue, int chunkSize) {
+        this.queue = queue;
+        this.chunkSize = chunkSize;
+        this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    void add(File file) throws InterruptedException {
+        chunk.add(file);
+        if (chunk.size() >= chunkSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 放入缓冲区中剩余的文件，返回放入的个数。
+     */
+    int flush() throws InterruptedException {
+        int n = chunk.size();
+        if (n == 0) {
+            return 0;
+        }
+        putAll(queue, chunk);
+        chunk.clear();
+        return n;
+    }
+
+    int pending() {
+        return chunk.size();
+    }
+
+    static void putAll(BlockingQueue<File> queue, List<File> files) throws InterruptedException {
+        if (queue instanceof BulkBlockingQueue) {
+            ((BulkBlockingQueue<File>) queue).putAll(files);
+        } else {
+            for (File file : files) {
+                queue.put(file);
+            }
+        }
+    }
+}
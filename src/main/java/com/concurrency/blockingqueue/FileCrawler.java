@@ -1,12 +1,18 @@
 package com.concurrency.blockingqueue;
 
+import com.concurrency.blockingqueue.index.IndexedFiles;
+
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.concurrent.BlockingQueue;
 
 /**
  * 文件爬虫者，生产者任务，即在某个文件层次结构中搜索符合索引标准的文件，
- * 并将它们的名称放入工作队列。
+ * 并将它们的名称放入工作队列。文件攒够一批再放入，减少队列上的竞争。
  *
  * @author Bert Lee 2015年08月16日 17:05
  */
@@ -14,38 +20,87 @@ public class FileCrawler implements Runnable {
     private final BlockingQueue<File> fileBlockingQueue;
     private final FileFilter fileFilter;
     private final File root;
+    private final SeenFileIndex seenFileIndex;
+    private final IndexedFiles indexedFiles;
 
+    /**
+     * 使用爬虫自己的 {@link SeenFileIndex}，只在这个爬虫内部去重；
+     * 多个爬虫遍历重叠的目录时，应使用共享 SeenFileIndex 的构造器，否则同一个文件可能被放入队列多次。
+     */
     public FileCrawler(BlockingQueue<File> fileBlockingQueue, FileFilter fileFilter, File root) {
+        this(fileBlockingQueue, fileFilter, root, new SeenFileIndex());
+    }
+
+    /**
+     * @param seenFileIndex 所有爬虫共享的已发现文件索引
+     */
+    public FileCrawler(BlockingQueue<File> fileBlockingQueue, FileFilter fileFilter, File root,
+                       SeenFileIndex seenFileIndex) {
+        this(fileBlockingQueue, fileFilter, root, seenFileIndex, IndexedFiles.NONE);
+    }
+
+    /**
+     * @param indexedFiles 已经建立索引的文件，大小和修改时间都没有变化的文件不再放入队列
+     */
+    public FileCrawler(BlockingQueue<File> fileBlockingQueue, FileFilter fileFilter, File root,
+                       SeenFileIndex seenFileIndex, IndexedFiles indexedFiles) {
         this.fileBlockingQueue = fileBlockingQueue;
         this.fileFilter = fileFilter;
         this.root = root;
+        this.seenFileIndex = seenFileIndex;
+        this.indexedFiles = indexedFiles;
     }
 
     @Override
     public void run() {
+        FileChunkPublisher publisher = new FileChunkPublisher(fileBlockingQueue, FileChunkPublisher.DEFAULT_CHUNK_SIZE);
         try {
-            crawl(root);
+            crawl(root, publisher);
+            publisher.flush();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
-    private void crawl(File root) throws InterruptedException {
+    private void crawl(File root, FileChunkPublisher publisher) throws InterruptedException {
         File[] entries = root.listFiles(fileFilter);
         if (entries != null) {
             for (File entry : entries) {
-                if (entry.isDirectory()) {
-                    crawl(entry);
-                } else if (!alreadyIndexed(entry)) {
-                    fileBlockingQueue.put(entry);
+                BasicFileAttributes attrs = readAttributes(entry);
+                if (attrs == null) {
+                    continue;
+                }
+                if (attrs.isDirectory()) {
+                    crawl(entry, publisher);
+                } else if (!alreadyIndexed(entry, attrs) && !unchanged(entry, attrs)) {
+                    publisher.add(entry); // 攒够一批再放入队列
                 }
             }
         }
     }
 
-    private boolean alreadyIndexed(File entry) {
-        // FIXME 未使用全局的已索引文件名称集合（ConcurrentSkipListSet）作为判断源，可能会存在相同文件被重复建索引
-        return fileBlockingQueue.contains(entry);
+    /*
+     * 只读取一次文件属性，既用来判断是否是目录，又用来取得文件标识。
+     */
+    private BasicFileAttributes readAttributes(File entry) {
+        try {
+            return Files.readAttributes(entry.toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null; // 文件已被删除，或者是悬空的符号链接
+        }
+    }
+
+    private boolean alreadyIndexed(File entry, BasicFileAttributes attrs) {
+        Path path = entry.toPath();
+        try {
+            return !seenFileIndex.markSeen(path, attrs);
+        } catch (IOException e) {
+            return true; // 无法确定文件标识，跳过
+        }
+    }
+
+    private boolean unchanged(File entry, BasicFileAttributes attrs) {
+        return indexedFiles.isUpToDate(entry, attrs.size(), attrs.lastModifiedTime().toMillis());
     }
 
 }
@@ -1,32 +1,226 @@
 package com.concurrency.blockingqueue;
 
+import com.concurrency.blockingqueue.index.ByteTokenizer;
+import com.concurrency.blockingqueue.index.DocumentReader;
+import com.concurrency.blockingqueue.index.InvertedIndex;
+import com.concurrency.blockingqueue.index.SegmentBuilder;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 文件索引者，消费者任务，即从队列中取出文件名称并对它们建立索引。
  *
+ * <p>每个索引者在线程私有的 {@link SegmentBuilder} 中建立索引，每处理 {@link #SEGMENT_DOCUMENTS} 个文件，
+ * 或者队列暂时为空时，才把段合并到共享的 {@link InvertedIndex} 中，使共享索引上的竞争与文件个数无关。
+ * 文件用 drainTo 成批取出，每批只在队列的锁上竞争一次。
+ * 取到 {@link #END_OF_STREAM}、被中断或者收到 {@link Control} 的退役信号时，合并最后一个段后退出。
+ * 文件内容由 {@link DocumentReader} 通过直接缓冲区或内存映射读出，在字节上直接分词，不经过 byte[] 和 String。
+ *
  * @author Bert Lee 2015年08月16日 17:21
  */
 public class Indexer implements Runnable {
+    /**
+     * 毒丸：取到它的索引者把它放回队列，发布已经建立的索引后退出。按引用比较，不是一个真实的文件。
+     */
+    public static final File END_OF_STREAM = new File("");
+
+    /** 段中积累多少个文档后合并到共享索引 */
+    static final int SEGMENT_DOCUMENTS = 64;
+    /** 默认每次从队列中最多取出的文件数 */
+    static final int DEFAULT_BATCH_SIZE = 32;
+    /** 默认凑批时最多等待的时间 */
+    static final long DEFAULT_LINGER_MICROS = 200;
+    /** 受控的索引者在队列为空时多久检查一次退役信号 */
+    static final long RETIRE_CHECK_MILLIS = 100;
+
+    /**
+     * 索引者与线程池控制器（例如 {@link AdaptiveIndexerPool}）之间的协议。
+     */
+    public interface Control {
+
+        /**
+         * 在两个文件之间调用，返回 true 时索引者发布已经建立的索引后退出。
+         */
+        boolean shouldRetire();
+
+        /**
+         * 索引了一个文件，耗时 busyNanos（包括读取文件的时间）。
+         */
+        void fileIndexed(long busyNanos);
+    }
+
+    /** 不受控制的索引者：只在取到毒丸或者被中断时退出 */
+    static final Control UNMANAGED = new Control() {
+        @Override
+        public boolean shouldRetire() {
+            return false;
+        }
+
+        @Override
+        public void fileIndexed(long busyNanos) {
+        }
+    };
+
     private final BlockingQueue<File> fileBlockingQueue;
+    private final InvertedIndex index;
+    private final Control control;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final List<File> batch;
+    private final SegmentBuilder segment = new SegmentBuilder();
+    private final DocumentReader reader = new DocumentReader();
+    private final ByteTokenizer tokenizer = new ByteTokenizer(new ByteTokenizer.TermSink() {
+        @Override
+        public void term(byte[] term, int length) {
+            segment.addTerm(term, length, currentDocId);
+        }
+    });
+    private int currentDocId;
 
     public Indexer(BlockingQueue<File> fileBlockingQueue) {
+        this(fileBlockingQueue, new InvertedIndex());
+    }
+
+    public Indexer(BlockingQueue<File> fileBlockingQueue, InvertedIndex index) {
+        this(fileBlockingQueue, index, UNMANAGED);
+    }
+
+    public Indexer(BlockingQueue<File> fileBlockingQueue, InvertedIndex index, Control control) {
+        this(fileBlockingQueue, index, control, DEFAULT_BATCH_SIZE, DEFAULT_LINGER_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @param batchSize 每次用 drainTo 最多取出的文件数，1 表示逐个 take
+     * @param linger 取到的文件不足一批时，最多再等待多久凑批
+     */
+    public Indexer(BlockingQueue<File> fileBlockingQueue, InvertedIndex index, Control control,
+                   int batchSize, long linger, TimeUnit unit) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize: " + batchSize);
+        }
         this.fileBlockingQueue = fileBlockingQueue;
+        this.index = index;
+        this.control = control;
+        this.batchSize = batchSize;
+        this.lingerNanos = unit.toNanos(linger);
+        this.batch = new ArrayList<>(batchSize);
     }
 
     @Override
     public void run() {
         try {
             while (true) {
-                indexFile(fileBlockingQueue.take());
+                if (!takeBatch()) {
+                    return; // 收到退役信号
+                }
+                boolean endOfStream = false;
+                for (File file : batch) {
+                    if (file == END_OF_STREAM) {
+                        endOfStream = true; // 同一批中毒丸之后的文件也要建立索引，不能随这一批丢掉
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    indexFile(file);
+                    control.fileIndexed(System.nanoTime() - start);
+                    if (segment.documentCount() >= SEGMENT_DOCUMENTS) {
+                        flush();
+                    }
+                }
+                if (endOfStream) {
+                    fileBlockingQueue.offer(END_OF_STREAM); // 传给下一个索引者，所以一颗毒丸就可以结束任意多个索引者
+                    return;
+                }
+                if (control.shouldRetire()) {
+                    return;
+                }
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
+            flush();
+        }
+    }
+
+    /*
+     * 取出一批文件：先用 drainTo 一次取走队列中已有的文件，不足一批时在 linger 内继续等待；
+     * 队列为空时先发布已经建立的索引再阻塞。收到退役信号时返回 false。
+     */
+    private boolean takeBatch() throws InterruptedException {
+        batch.clear();
+        if (fileBlockingQueue.drainTo(batch, batchSize) == 0) {
+            flush(); // 阻塞之前先发布已经建立的索引，使其可以被查询
+            File file = (control == UNMANAGED) ? fileBlockingQueue.take() : pollUntilRetired();
+            if (file == null) {
+                return false;
+            }
+            batch.add(file);
+            fileBlockingQueue.drainTo(batch, batchSize - 1);
+        }
+
+        if (batch.size() < batchSize && lingerNanos > 0) {
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < batchSize && batch.get(batch.size() - 1) != END_OF_STREAM) {
+                long remaining = deadline - System.nanoTime();
+                File file = (remaining > 0) ? linger(remaining) : null;
+                if (file == null) {
+                    break;
+                }
+                batch.add(file);
+                fileBlockingQueue.drainTo(batch, batchSize - batch.size());
+            }
+        }
+        return true;
+    }
+
+    /*
+     * 凑批时的等待：索引者手里已经有文件，不算作因为队列空而阻塞。
+     */
+    private File linger(long nanos) throws InterruptedException {
+        if (fileBlockingQueue instanceof InstrumentedBlockingQueue) {
+            return ((InstrumentedBlockingQueue<File>) fileBlockingQueue).linger(nanos, TimeUnit.NANOSECONDS);
+        }
+        return fileBlockingQueue.poll(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * 队列为空时定期检查退役信号，收到信号时返回 null。
+     */
+    private File pollUntilRetired() throws InterruptedException {
+        while (true) {
+            File file = fileBlockingQueue.poll(RETIRE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (file != null) {
+                return file;
+            }
+            if (control.shouldRetire()) {
+                return null;
+            }
         }
     }
 
     private void indexFile(File file) {
-        // FIXME “索引文件”实现逻辑
+        int docId = -1;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            docId = currentDocId = index.addDocument(file, channel.size(), file.lastModified());
+            segment.startDocument(docId);
+            reader.read(channel, tokenizer);
+        } catch (IOException e) { // 文件在爬取后被删除或无权读取，跳过
+            tokenizer.reset();
+            if (docId >= 0) { // 读到一半失败：不能让爬虫认为它已经建立了索引
+                index.discardDocument(docId);
+            }
+        }
+    }
+
+    private void flush() {
+        if (!segment.isEmpty()) {
+            index.merge(segment);
+        }
     }
 }
@@ -0,0 +1,239 @@
+package com.concurrency.blockingqueue;
+
+import com.concurrency.metrics.Counter;
+import com.concurrency.metrics.Gauge;
+import com.concurrency.metrics.MetricsRegistry;
+import com.concurrency.metrics.Timer;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录生产者和消费者在队列上阻塞了多久的装饰器。
+ *
+ * <pre>
+ * 度量（名字以 prefix 开头）
+ *    prefix.put / prefix.take    放入和取出的元素个数（drainTo 取出的也计入 take）
+ *    prefix.putBlocked           生产者因为队列满而等待的时间
+ *    prefix.takeBlocked          消费者因为队列空而等待的时间（不包括 {@link #linger} 凑批的等待）
+ *    prefix.depth                当前的队列深度
+ * 开销
+ *    put/take 先尝试不阻塞的 offer/poll，成功时不读时钟；只有真正需要等待时才计时，
+ *    所以没有竞争的快速路径上只多了一次 LongAdder 累加。
+ * </pre>
+ *
+ * <p>按线程数和时间折算后 putBlocked 远大于 takeBlocked 说明消费者跟不上，反之说明生产者跟不上，
+ * 见 {@link PipelineMetrics#bottleneck()}。
+ *
+ * @author Bert Lee 2026年10月18日 18:25
+ */
+public class InstrumentedBlockingQueue<E> extends AbstractQueue<E> implements BulkBlockingQueue<E> {
+    private final BlockingQueue<E> delegate;
+    private final Counter puts;
+    private final Counter takes;
+    private final Timer putBlocked;
+    private final Timer takeBlocked;
+
+    public InstrumentedBlockingQueue(final BlockingQueue<E> delegate, MetricsRegistry registry, String prefix) {
+        this.delegate = delegate;
+        this.puts = registry.counter(prefix + ".put");
+        this.takes = registry.counter(prefix + ".take");
+        this.putBlocked = registry.timer(prefix + ".putBlocked");
+        this.takeBlocked = registry.timer(prefix + ".takeBlocked");
+        registry.gauge(prefix + ".depth", new Gauge() {
+            @Override
+            public Number value() {
+                return delegate.size();
+            }
+        });
+    }
+
+    public BlockingQueue<E> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (!delegate.offer(e)) {
+            long start = System.nanoTime();
+            try {
+                delegate.put(e);
+            } finally {
+                putBlocked.record(System.nanoTime() - start);
+            }
+        }
+        puts.increment();
+    }
+
+    /**
+     * 底层队列支持批量放入时整批放入，只有队列放不下整批时才计时；否则逐个 put。
+     */
+    @Override
+    public void putAll(List<? extends E> items) throws InterruptedException {
+        if (!(delegate instanceof BulkBlockingQueue)) {
+            for (E item : items) {
+                put(item);
+            }
+            return;
+        }
+        boolean mayBlock = delegate.remainingCapacity() < items.size();
+        long start = mayBlock ? System.nanoTime() : 0;
+        try {
+            ((BulkBlockingQueue<E>) delegate).putAll(items);
+        } finally {
+            if (mayBlock) {
+                putBlocked.record(System.nanoTime() - start);
+            }
+        }
+        puts.add(items.size());
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (delegate.offer(e)) {
+            puts.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(e)) {
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean offered;
+        try {
+            offered = delegate.offer(e, timeout, unit);
+        } finally {
+            putBlocked.record(System.nanoTime() - start);
+        }
+        if (offered) {
+            puts.increment();
+        }
+        return offered;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = delegate.poll();
+        if (e == null) {
+            long start = System.nanoTime();
+            try {
+                e = delegate.take();
+            } finally {
+                takeBlocked.record(System.nanoTime() - start);
+            }
+        }
+        takes.increment();
+        return e;
+    }
+
+    @Override
+    public E poll() {
+        E e = delegate.poll();
+        if (e != null) {
+            takes.increment();
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        long start = System.nanoTime();
+        try {
+            e = delegate.poll(timeout, unit);
+        } finally {
+            takeBlocked.record(System.nanoTime() - start);
+        }
+        if (e != null) {
+            takes.increment();
+        }
+        return e;
+    }
+
+    /**
+     * 与 {@link #poll(long, TimeUnit)} 相同，但是等待的时间不计入 takeBlocked：
+     * 调用者手里已经有元素，只是为了凑批而主动多等一会儿（见 {@link Indexer}），并不是因为没有活干。
+     */
+    public E linger(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = delegate.poll(timeout, unit);
+        if (e != null) {
+            takes.increment();
+        }
+        return e;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int n = delegate.drainTo(c, maxElements);
+        if (n > 0) {
+            takes.add(n);
+        }
+        return n;
+    }
+
+    @Override
+    public E peek() {
+        return delegate.peek();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return delegate.remainingCapacity();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return delegate.contains(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return delegate.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return delegate.iterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return delegate.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return delegate.toArray(a);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
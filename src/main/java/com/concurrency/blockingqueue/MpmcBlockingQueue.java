@@ -0,0 +1,413 @@
+package com.concurrency.blockingqueue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于环形数组的无锁有界多生产者多消费者队列（Dmitry Vyukov 的有界 MPMC 队列）。
+ *
+ * <pre>
+ * 原理
+ *    每个槽位有一个序号：序号等于位置时槽位空闲，等于位置 + 1 时槽位中有元素。
+ *    生产者和消费者分别用 CAS 推进 tail 和 head 来领取槽位，领取后写入（或取出）元素，再更新槽位的序号，
+ *    所以 offer/poll 不需要锁，也不为每个元素分配节点。
+ * 批量
+ *    {@link #putAll(List)} 一次 CAS 领取多个连续的槽位，爬虫发布一批文件只需要竞争一次。
+ * 阻塞
+ *    put/take 只有在队列满或空时才使用锁和条件队列等待；另一方只在有线程等待时才去加锁唤醒，
+ *    所以非阻塞路径上没有锁。
+ * 删除
+ *    {@link #remove(Object)} 和迭代器的 remove 用 CAS 把槽位中的元素换成墓碑，消费者取到墓碑时跳过。
+ *    消费者用 getAndSet 取走元素，所以一个元素要么被取走，要么被删除，不会两者都发生。
+ *    墓碑占用的槽位在消费者越过它时才释放，在此之前仍然计入 size。
+ * </pre>
+ *
+ * <p>容量向上取整为 2 的幂。迭代器是弱一致的快照。
+ *
+ * @author Bert Lee 2026年10月18日 17:00
+ */
+public class MpmcBlockingQueue<E> extends AbstractQueue<E> implements BulkBlockingQueue<E> {
+    /** 等待时每次最多阻塞的时间，防止极端交错下错过唤醒 */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /** 被删除的元素 */
+    private static final Object REMOVED = new Object();
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<Object> buffer; // 元素或者 REMOVED
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    public MpmcBlockingQueue(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        this.capacity = ceilingPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.sequences = new AtomicLongArray(this.capacity);
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        checkNotNull(e);
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.lazySet(index, e);
+                    sequences.set(index, pos + 1); // 发布
+                    signalNotEmpty(false);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // 满：槽位还没有被上一圈的消费者取走
+            } else {
+                pos = tail.get(); // 被其他生产者抢先
+            }
+        }
+    }
+
+    @Override
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    Object e = buffer.getAndSet(index, null); // 与 remove 的 CAS 互斥
+                    sequences.set(index, pos + capacity); // 留给下一圈的生产者
+                    signalNotFull();
+                    if (e != REMOVED) {
+                        return cast(e);
+                    }
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // 空，或者生产者已领取槽位但还没有写入
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    @Override
+    public E peek() {
+        for (long pos = head.get(), end = tail.get(); pos < end; pos++) { // 跳过墓碑
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                return null; // 空，或者已被消费者越过（peek 是弱一致的）
+            }
+            Object e = buffer.get(index);
+            if (e != null && e != REMOVED) {
+                return cast(e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 删除一个与 o 相等的元素。
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (long pos = head.get(), end = tail.get(); pos < end; pos++) {
+            int index = (int) pos & mask;
+            Object e = buffer.get(index);
+            if (e != null && e != REMOVED && sequences.get(index) == pos + 1 && o.equals(e)
+                    && buffer.compareAndSet(index, e, REMOVED)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 批量放入，每次 CAS 领取尽可能多的连续槽位，队列满时阻塞。
+     *
+     * @throws NullPointerException items 中有 null，此时不放入任何元素
+     */
+    @Override
+    public void putAll(List<? extends E> items) throws InterruptedException {
+        for (E e : items) { // 先检查全部元素：领取槽位后再失败会留下永远不会发布的槽位
+            checkNotNull(e);
+        }
+        int i = 0;
+        int n = items.size();
+        while (i < n) {
+            int claimed = claim(items, i, n - i);
+            if (claimed > 0) {
+                i += claimed;
+            } else {
+                put(items.get(i++)); // 满：等待一个空位
+            }
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        checkNotNull(e);
+        while (!offer(e)) {
+            awaitNotFull(MAX_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(e);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            awaitNotFull(Math.min(remaining, MAX_PARK_NANOS));
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null) {
+            awaitNotEmpty(MAX_PARK_NANOS);
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        while ((e = poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            awaitNotEmpty(Math.min(remaining, MAX_PARK_NANOS));
+        }
+        return e;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+            if (h == head.get()) {
+                return (int) Math.max(0, Math.min(capacity, t - h));
+            }
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 弱一致的快照：只包含调用时已经发布的元素。remove 删除上一个返回的元素，它已经被取走时什么都不做。
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final List<E> snapshot = new ArrayList<>();
+        final List<Long> positions = new ArrayList<>();
+        for (long pos = head.get(), end = tail.get(); pos < end; pos++) {
+            int index = (int) pos & mask;
+            Object e = buffer.get(index);
+            if (e != null && e != REMOVED && sequences.get(index) == pos + 1) {
+                snapshot.add(MpmcBlockingQueue.<E>cast(e));
+                positions.add(pos);
+            }
+        }
+        return new Iterator<E>() {
+            private int next;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return snapshot.get(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                long pos = positions.get(last);
+                int index = (int) pos & mask;
+                if (sequences.get(index) == pos + 1) { // 槽位还没有被消费者越过
+                    buffer.compareAndSet(index, snapshot.get(last), REMOVED);
+                }
+                last = -1;
+            }
+        };
+    }
+
+    /*
+     * 领取最多 count 个连续槽位并写入 items[from, from + count)，返回写入的个数，队列满时返回 0。
+     */
+    private int claim(List<? extends E> items, int from, int count) {
+        while (true) {
+            long pos = tail.get();
+            long free = capacity - (pos - head.get()); // head 可能已经过时（偏小），只会低估空位
+            if (free <= 0) {
+                return 0;
+            }
+            int k = (int) Math.min(count, free);
+            if (tail.compareAndSet(pos, pos + k)) {
+                for (int j = 0; j < k; j++) {
+                    E e = items.get(from + j); // putAll 已经检查过 null
+                    int index = (int) (pos + j) & mask;
+                    while (sequences.get(index) != pos + j) {
+                        Thread.yield(); // 上一圈的消费者已领取但还没有取走，很快完成
+                    }
+                    buffer.lazySet(index, e);
+                    sequences.set(index, pos + j + 1);
+                }
+                signalNotEmpty(k > 1);
+                return k;
+            }
+        }
+    }
+
+    private void awaitNotEmpty(long nanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers.incrementAndGet();
+            try {
+                if (peekPublished()) { // 增加等待计数之后再检查一次，生产者要么看到计数，要么我们看到元素
+                    return;
+                }
+                notEmpty.awaitNanos(nanos);
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitNotFull(long nanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            waitingProducers.incrementAndGet();
+            try {
+                if (size() < capacity) {
+                    return;
+                }
+                notFull.awaitNanos(nanos);
+            } finally {
+                waitingProducers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean peekPublished() {
+        long pos = head.get();
+        return sequences.get((int) pos & mask) == pos + 1;
+    }
+
+    private void signalNotEmpty(boolean all) {
+        if (waitingConsumers.get() > 0) {
+            lock.lock();
+            try {
+                if (all) {
+                    notEmpty.signalAll();
+                } else {
+                    notEmpty.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void signalNotFull() {
+        if (waitingProducers.get() > 0) {
+            lock.lock();
+            try {
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E cast(Object e) {
+        return (E) e;
+    }
+
+    private static void checkNotNull(Object e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    private static int ceilingPowerOfTwo(int n) {
+        return (n == 1) ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+}
@@ -0,0 +1,256 @@
+package com.concurrency.blockingqueue;
+
+import com.concurrency.blockingqueue.index.IndexedFiles;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行的文件爬虫者，把目录子树拆分到 {@link ForkJoinPool} 中并行遍历。
+ *
+ * <pre>
+ * 与 FileCrawler 的区别
+ *    FileCrawler 在一个线程中用 File.listFiles 逐个目录递归，每个条目还要调用一次 File.isDirectory()（一次 stat 系统调用）；
+ *    ParallelFileCrawler 为每个子目录创建一个 RecursiveAction，由 ForkJoinPool 的工作窃取在线程之间平衡负载，
+ *    并使用 java.nio.file 的 DirectoryStream 和 BasicFileAttributes，每个条目只读取一次属性。
+ * 阻塞
+ *    向有界队列 put 可能阻塞，通过 {@link ForkJoinPool#managedBlock} 通知线程池，必要时由线程池补偿新的工作线程。
+ * 符号链接
+ *    默认跟随符号链接（与 File.isDirectory() 的行为一致），并按文件标识（设备号 + inode，不支持时使用真实路径）
+ *    记录已经访问过的目录，遇到符号链接环路时跳过。
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 10:45
+ */
+public class ParallelFileCrawler implements Runnable {
+    private static final LinkOption[] NO_FOLLOW_LINKS = {LinkOption.NOFOLLOW_LINKS};
+    private static final LinkOption[] FOLLOW_LINKS = {};
+
+    private final BlockingQueue<File> fileBlockingQueue;
+    private final FileFilter fileFilter;
+    private final Path root;
+    private final ForkJoinPool pool;
+    private final SeenFileIndex seenFileIndex;
+    private final boolean followLinks;
+    private final IndexedFiles indexedFiles;
+    private final CrawlProgress progress = new CrawlProgress();
+    private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * 使用爬虫自己的 {@link SeenFileIndex}，只在这个爬虫内部去重；
+     * 多个爬虫遍历重叠的目录时，应使用共享 SeenFileIndex 的构造器，否则同一个文件可能被放入队列多次。
+     */
+    public ParallelFileCrawler(BlockingQueue<File> fileBlockingQueue, FileFilter fileFilter, File root,
+                               ForkJoinPool pool) {
+        this(fileBlockingQueue, fileFilter, root, pool, new SeenFileIndex(), true);
+    }
+
+    /**
+     * @param seenFileIndex 所有爬虫共享的已发现文件索引
+     * @param followLinks 是否跟随符号链接
+     */
+    public ParallelFileCrawler(BlockingQueue<File> fileBlockingQueue, FileFilter fileFilter, File root,
+                               ForkJoinPool pool, SeenFileIndex seenFileIndex, boolean followLinks) {
+        this(fileBlockingQueue, fileFilter, root, pool, seenFileIndex, followLinks, IndexedFiles.NONE);
+    }
+
+    /**
+     * @param indexedFiles 已经建立索引的文件，没有变化的文件不再放入队列
+     */
+    public ParallelFileCrawler(BlockingQueue<File> fileBlockingQueue, FileFilter fileFilter, File root,
+                               ForkJoinPool pool, SeenFileIndex seenFileIndex, boolean followLinks,
+                               IndexedFiles indexedFiles) {
+        this.fileBlockingQueue = fileBlockingQueue;
+        this.fileFilter = fileFilter;
+        this.root = root.toPath();
+        this.pool = pool;
+        this.seenFileIndex = seenFileIndex;
+        this.followLinks = followLinks;
+        this.indexedFiles = indexedFiles;
+    }
+
+    /**
+     * 在线程池中遍历 root，直到遍历完成或者当前线程被中断。
+     */
+    @Override
+    public void run() {
+        ForkJoinTask<Void> task = pool.submit(new CrawlTask(root));
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            cancelled = true; // 尚未开始的子任务直接返回
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Crawl failed: " + root, e.getCause());
+        }
+    }
+
+    public CrawlProgress getProgress() {
+        return progress;
+    }
+
+    private class CrawlTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+
+        CrawlTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled || !firstVisit(dir)) {
+                return;
+            }
+            progress.directoryVisited();
+
+            List<CrawlTask> subtasks = new ArrayList<>();
+            List<File> chunk = new ArrayList<>(FileChunkPublisher.DEFAULT_CHUNK_SIZE);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (cancelled) {
+                        break;
+                    }
+                    BasicFileAttributes attrs = readAttributes(entry);
+                    if (attrs == null) {
+                        continue;
+                    }
+                    File file = entry.toFile();
+                    if (!fileFilter.accept(file)) {
+                        progress.fileSkipped();
+                    } else if (attrs.isDirectory()) {
+                        CrawlTask subtask = new CrawlTask(entry);
+                        subtask.fork(); // 子目录交给其他工作线程窃取
+                        subtasks.add(subtask);
+                    } else if (attrs.isRegularFile()) {
+                        if (!firstSeen(entry, attrs)) {
+                            progress.fileSkipped(); // 硬链接，或者已被其他爬虫发现
+                        } else if (indexedFiles.isUpToDate(file, attrs.size(), attrs.lastModifiedTime().toMillis())) {
+                            progress.fileUnchanged();
+                        } else {
+                            chunk.add(file);
+                            if (chunk.size() >= FileChunkPublisher.DEFAULT_CHUNK_SIZE) {
+                                publish(chunk);
+                            }
+                        }
+                    }
+                }
+                publish(chunk); // 每个目录结束时发布剩余的文件
+            } catch (IOException e) {
+                progress.error();
+            } catch (InterruptedException e) {
+                cancelled = true;
+                Thread.currentThread().interrupt();
+            }
+
+            for (CrawlTask subtask : subtasks) {
+                subtask.join();
+            }
+        }
+
+        private BasicFileAttributes readAttributes(Path entry) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, NO_FOLLOW_LINKS);
+                if (attrs.isSymbolicLink() && followLinks) {
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, FOLLOW_LINKS);
+                }
+                return attrs;
+            } catch (IOException e) { // 例如悬空的符号链接
+                progress.error();
+                return null;
+            }
+        }
+
+        private boolean firstSeen(Path entry, BasicFileAttributes attrs) {
+            try {
+                return seenFileIndex.markSeen(entry, attrs);
+            } catch (IOException e) {
+                progress.error();
+                return false;
+            }
+        }
+
+        /*
+         * 记录目录的文件标识，同一个目录（例如通过符号链接环路再次到达）只遍历一次。
+         */
+        private boolean firstVisit(Path directory) {
+            Object key;
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(directory, BasicFileAttributes.class);
+                key = attrs.fileKey();
+                if (key == null) {
+                    key = directory.toRealPath();
+                }
+            } catch (IOException e) {
+                progress.error();
+                return false;
+            }
+            if (visitedDirectories.add(key)) {
+                return true;
+            }
+            progress.symlinkLoopDetected();
+            return false;
+        }
+
+        private void publish(List<File> chunk) throws InterruptedException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            ForkJoinPool.managedBlock(new ChunkPutBlocker(fileBlockingQueue, chunk));
+            progress.filesQueued(chunk.size());
+            chunk.clear();
+        }
+    }
+
+    /**
+     * 让 ForkJoinPool 知道工作线程可能阻塞在 put 上。
+     */
+    private static class ChunkPutBlocker implements ForkJoinPool.ManagedBlocker {
+        private final BlockingQueue<File> queue;
+        private final List<File> files;
+        private int next;
+
+        ChunkPutBlocker(BlockingQueue<File> queue, List<File> files) {
+            this.queue = queue;
+            this.files = files;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (next < files.size()) {
+                FileChunkPublisher.putAll(queue, files.subList(next, files.size()));
+                next = files.size();
+            }
+            return true;
+        }
+
+        /*
+         * 快速路径：队列有空位时直接放入，不需要线程池补偿线程。
+         */
+        @Override
+        public boolean isReleasable() {
+            while (next < files.size() && queue.offer(files.get(next))) {
+                next++;
+            }
+            return next == files.size();
+        }
+    }
+}
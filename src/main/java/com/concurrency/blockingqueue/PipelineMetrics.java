@@ -0,0 +1,147 @@
+package com.concurrency.blockingqueue;
+
+import com.concurrency.metrics.Gauge;
+import com.concurrency.metrics.MetricsRegistry;
+import com.concurrency.metrics.ThreadTime;
+import com.concurrency.metrics.Timer;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 桌面搜索流水线（爬虫 → 队列 → 索引者）的度量。
+ *
+ * <pre>
+ * 度量
+ *    crawler.root            每个根目录的爬取时间
+ *    crawler.threadTime      爬虫线程累计运行的时间（线程数 × 时间）
+ *    queue.*                 见 {@link InstrumentedBlockingQueue}
+ *    indexer.*               见 {@link AdaptiveIndexerPool}，其中 indexer.threadTime 是索引者线程累计运行的时间
+ *    index.commit            提交索引的时间
+ *    pipeline.blockedRatio   生产者阻塞的时间比例 / 消费者阻塞的时间比例
+ * 瓶颈
+ *    生产者只在队列满时阻塞，消费者只在队列空时阻塞。每一侧的阻塞时间先除以该侧的线程时间，
+ *    得到该侧的线程平均有多少比例的时间在阻塞，再比较两侧的比例，否则线程多的一侧累计的阻塞时间总是更多：
+ *    生产者阻塞的比例远高于消费者（比值 &gt;= {@link #IMBALANCE}），说明索引者跟不上，增加索引者或者加快索引；
+ *    反之（比值 &lt;= 1 / {@link #IMBALANCE}）说明爬虫跟不上，索引者在空等，增加索引者没有意义。
+ *    没有记录线程时间的一侧按一个线程、自本对象创建以来一直运行计算。
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 18:30
+ */
+public class PipelineMetrics {
+    /** 两侧阻塞时间相差多少倍时认为一侧是瓶颈 */
+    public static final double IMBALANCE = 2.0;
+
+    /**
+     * 流水线中较慢的一侧。
+     */
+    public enum Bottleneck {
+        /** 爬虫跟不上，索引者在等待文件 */
+        CRAWLER,
+        /** 索引者跟不上，爬虫在等待队列的空位 */
+        INDEXER,
+        /** 两侧的阻塞时间相差不大 */
+        BALANCED,
+        /** 两侧都还没有阻塞过 */
+        UNKNOWN
+    }
+
+    private final MetricsRegistry registry;
+    private final Timer crawlTime;
+    private final Timer commitTime;
+    private final Timer putBlocked;
+    private final Timer takeBlocked;
+    private final ThreadTime producerTime;
+    private final ThreadTime consumerTime;
+    private final long startNanos = System.nanoTime();
+
+    public PipelineMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+        this.crawlTime = registry.timer("crawler.root");
+        this.commitTime = registry.timer("index.commit");
+        this.putBlocked = registry.timer("queue.putBlocked");
+        this.takeBlocked = registry.timer("queue.takeBlocked");
+        this.producerTime = registry.threadTime("crawler.threadTime");
+        this.consumerTime = registry.threadTime("indexer.threadTime");
+        registry.gauge("pipeline.blockedRatio", new Gauge() {
+            @Override
+            public Number value() {
+                return blockedRatio();
+            }
+        });
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 用记录到本对象中的度量包装爬虫和索引者之间的队列。
+     */
+    public <E> InstrumentedBlockingQueue<E> instrument(BlockingQueue<E> queue) {
+        return new InstrumentedBlockingQueue<>(queue, registry, "queue");
+    }
+
+    public Timer getCrawlTime() {
+        return crawlTime;
+    }
+
+    public Timer getCommitTime() {
+        return commitTime;
+    }
+
+    /**
+     * 爬虫线程（生产者）的运行时间，爬虫开始和结束时更新。
+     */
+    public ThreadTime getProducerTime() {
+        return producerTime;
+    }
+
+    /**
+     * 索引者线程（消费者）的运行时间，由 {@link AdaptiveIndexerPool} 更新。
+     */
+    public ThreadTime getConsumerTime() {
+        return consumerTime;
+    }
+
+    /**
+     * 生产者阻塞的时间比例与消费者阻塞的时间比例的比值（自流水线启动以来的累计值）。
+     * 只有生产者阻塞过时为正无穷，两侧都没有阻塞过时为 NaN。
+     */
+    public double blockedRatio() {
+        long producer = putBlocked.totalNanos();
+        long consumer = takeBlocked.totalNanos();
+        if (consumer == 0) {
+            return (producer == 0) ? Double.NaN : Double.POSITIVE_INFINITY;
+        }
+        if (producer == 0) {
+            return 0.0;
+        }
+        return blockedFraction(producer, producerTime) / blockedFraction(consumer, consumerTime);
+    }
+
+    /*
+     * 一侧的线程平均有多少比例的时间在阻塞。
+     */
+    private double blockedFraction(long blockedNanos, ThreadTime threadTime) {
+        long threadNanos = threadTime.totalNanos();
+        if (threadNanos <= 0) { // 没有记录线程时间
+            threadNanos = System.nanoTime() - startNanos;
+        }
+        return (double) blockedNanos / Math.max(threadNanos, 1);
+    }
+
+    public Bottleneck bottleneck() {
+        double ratio = blockedRatio();
+        if (Double.isNaN(ratio)) {
+            return Bottleneck.UNKNOWN;
+        }
+        if (ratio >= IMBALANCE) {
+            return Bottleneck.INDEXER;
+        }
+        if (ratio <= 1 / IMBALANCE) {
+            return Bottleneck.CRAWLER;
+        }
+        return Bottleneck.BALANCED;
+    }
+}
@@ -0,0 +1,190 @@
+package com.concurrency.blockingqueue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 所有爬虫共享的“已发现文件”索引，代替 FileCrawler 中对 BlockingQueue.contains 的线性扫描。
+ *
+ * <pre>
+ * 文件标识
+ *    优先使用 {@link BasicFileAttributes#fileKey()}（Unix 上是设备号 + inode），
+ *    这样硬链接和通过符号链接到达的同一个文件只会被索引一次；文件系统不支持时使用规范路径。
+ * 紧凑的表示
+ *    只保存文件标识的 64 位指纹，存放在开放寻址的 long[] 哈希表中，每个文件约 11 字节（装载因子 0.75），
+ *    不需要为每个文件保存 Path/String 对象，几千万个文件也只占几百 MB。
+ *    计算指纹时不创建字符串：fileKey 只提供 32 位的 hashCode，再混入同一个 inode 的硬链接共享的大小、修改时间和创建时间；
+ *    没有 fileKey 时直接对规范路径的字符做哈希。冲突的后果只是漏掉一个文件。
+ * 并发
+ *    哈希表按指纹分成多个段，每个段有自己的锁和扩容，检查和标记是原子的“若没有则添加”，时间复杂度为 O(1)。
+ *    文件在被爬虫发现时就被标记，所以已经被 Indexer 取走的文件也不会被重复放入队列。
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 11:10
+ */
+public class SeenFileIndex {
+    private static final int DEFAULT_SEGMENTS = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    public SeenFileIndex() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    public SeenFileIndex(int concurrencyLevel) {
+        int size = Integer.highestOneBit(Math.max(concurrencyLevel, 2) - 1) << 1;
+        this.segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(size); // 用指纹的高位选择段
+    }
+
+    /**
+     * 标记文件已被发现。
+     *
+     * @return 文件第一次被标记时返回 true，已经标记过时返回 false
+     * @throws IOException 无法读取文件属性
+     */
+    public boolean markSeen(File file) throws IOException {
+        Path path = file.toPath();
+        return markSeen(path, Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * 使用已经读取的文件属性标记文件，避免再做一次 stat。
+     */
+    public boolean markSeen(Path path, BasicFileAttributes attrs) throws IOException {
+        return markSeen(fingerprint(path, attrs));
+    }
+
+    boolean markSeen(long fingerprint) {
+        return segmentFor(fingerprint).add(fingerprint);
+    }
+
+    public boolean isSeen(Path path, BasicFileAttributes attrs) throws IOException {
+        long fingerprint = fingerprint(path, attrs);
+        return segmentFor(fingerprint).contains(fingerprint);
+    }
+
+    /**
+     * 已标记的文件数。
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segments[(int) (fingerprint >>> segmentShift)];
+    }
+
+    static long fingerprint(Path path, BasicFileAttributes attrs) throws IOException {
+        long h = FNV_OFFSET_BASIS;
+        Object fileKey = attrs.fileKey();
+        if (fileKey != null) {
+            h = fnv1a64(h, fileKey.hashCode());
+            h = fnv1a64(h, attrs.size());
+            h = fnv1a64(h, attrs.lastModifiedTime().toMillis());
+            h = fnv1a64(h, attrs.creationTime().toMillis());
+        } else {
+            CharSequence realPath = path.toRealPath().toString();
+            for (int i = 0; i < realPath.length(); i++) {
+                h = (h ^ realPath.charAt(i)) * FNV_PRIME;
+            }
+        }
+        h = mix64(h);
+        return (h == EMPTY) ? 1L : h; // 0 表示空槽
+    }
+
+    /*
+     * FNV-1a 64 位哈希，每次处理 value 的一个字节。
+     */
+    private static long fnv1a64(long h, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            h = (h ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    /*
+     * Murmur3 的 finalizer，使指纹的高位（选择段）和低位（段内的槽位）都分布均匀。
+     */
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 线性探测的 long 哈希集合，由段自身的锁保护。
+     */
+    private static final class Segment {
+        private long[] table = new long[INITIAL_SEGMENT_CAPACITY];
+        private int size;
+
+        synchronized boolean add(long fingerprint) {
+            int mask = table.length - 1;
+            int i = (int) fingerprint & mask;
+            long current;
+            while ((current = table[i]) != EMPTY) {
+                if (current == fingerprint) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = fingerprint;
+            if (++size > (table.length >> 2) * 3) { // 装载因子 0.75
+                resize();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(long fingerprint) {
+            int mask = table.length - 1;
+            int i = (int) fingerprint & mask;
+            long current;
+            while ((current = table[i]) != EMPTY) {
+                if (current == fingerprint) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] old = table;
+            long[] resized = new long[old.length << 1];
+            int mask = resized.length - 1;
+            for (long fingerprint : old) {
+                if (fingerprint != EMPTY) {
+                    int i = (int) fingerprint & mask;
+                    while (resized[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    resized[i] = fingerprint;
+                }
+            }
+            table = resized;
+        }
+    }
+}
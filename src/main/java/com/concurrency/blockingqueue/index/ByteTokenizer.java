@@ -0,0 +1,93 @@
+package com.concurrency.blockingqueue.index;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 直接在 UTF-8 字节上分词的流式分词器，不创建任何中间 String。
+ *
+ * <p>文件内容可以分成任意多块依次传入 {@link #feed(ByteBuffer)}，跨块的词项保存在固定大小的暂存区中，
+ * 所有块传入后调用 {@link #finish()} 输出最后一个词项。暂存区会被下一个词项覆盖，
+ * {@link TermSink} 必须在回调中复制它需要保留的字节。
+ *
+ * <p>ASCII 字母和数字以及所有非 ASCII 字节（UTF-8 多字节字符）都属于词项，ASCII 字母统一转为小写，
+ * 超过 {@link Tokenizer#MAX_TERM_LENGTH} 字节的词项被丢弃。非线程安全，每个 Indexer 使用自己的实例。
+ *
+ * @author Bert Lee 2026年10月18日 13:10
+ */
+public final class ByteTokenizer {
+
+    /**
+     * 接收分词结果，term[0, length) 是词项的 UTF-8 字节。
+     */
+    public interface TermSink {
+        void term(byte[] term, int length);
+    }
+
+    private final TermSink sink;
+    private final byte[] scratch = new byte[Tokenizer.MAX_TERM_LENGTH];
+    private int length;
+    private boolean overflow;
+
+    public ByteTokenizer(TermSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * 消费 buffer 中 position 到 limit 之间的字节，结束后 position 等于 limit。
+     */
+    public void feed(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        for (int i = buffer.position(); i < limit; i++) {
+            accept(buffer.get(i));
+        }
+        buffer.position(limit);
+    }
+
+    public void feed(byte[] bytes, int offset, int count) {
+        for (int i = offset, end = offset + count; i < end; i++) {
+            accept(bytes[i]);
+        }
+    }
+
+    /**
+     * 输入结束，输出暂存区中的最后一个词项，之后可以开始下一个文档。
+     */
+    public void finish() {
+        endTerm();
+    }
+
+    /**
+     * 丢弃暂存区中未完成的词项，用于读取文件失败之后。
+     */
+    public void reset() {
+        length = 0;
+        overflow = false;
+    }
+
+    private void accept(byte b) {
+        if (isTermByte(b)) {
+            if (length < scratch.length) {
+                scratch[length++] = (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+            } else {
+                overflow = true;
+            }
+        } else if (length > 0 || overflow) {
+            endTerm();
+        }
+    }
+
+    private void endTerm() {
+        if (length > 0 && !overflow) {
+            sink.term(scratch, length);
+        }
+        length = 0;
+        overflow = false;
+    }
+
+    static boolean isTermByte(byte b) {
+        return b < 0 // 0x80 以上，UTF-8 多字节字符的一部分
+                || (b >= 'a' && b <= 'z')
+                || (b >= 'A' && b <= 'Z')
+                || (b >= '0' && b <= '9');
+    }
+}
@@ -0,0 +1,44 @@
+package com.concurrency.blockingqueue.index;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 固定大小的直接缓冲区池。
+ *
+ * <p>直接缓冲区分配和回收都很昂贵，而且不计入堆，所以在索引者之间复用，而不是每个文件分配一次。
+ * 池空时分配新的缓冲区，池满时归还的缓冲区被丢弃，交给 GC 回收。
+ *
+ * @author Bert Lee 2026年10月18日 13:20
+ */
+public class DirectBufferPool {
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> free;
+
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0 || maxPooled <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.bufferSize = bufferSize;
+        this.free = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        return (buffer != null) ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        free.offer(buffer);
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    public int pooledCount() {
+        return free.size();
+    }
+}
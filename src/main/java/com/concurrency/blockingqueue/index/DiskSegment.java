@@ -0,0 +1,160 @@
+package com.concurrency.blockingqueue.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 打开时映射到内存的不可变段文件。
+ *
+ * <pre>
+ * 文件格式（整数均为大端序，varint 见 {@link VarInts}）
+ *    头部     magic、version、文档数、词项数、文档区位置、词项区位置、索引区位置（各 4 字节，共 32 字节）
+ *    倒排区   每个词项：varint 文档数，随后是文档编号的差分 varint
+ *    文档区   每个文档：varint 编号差分、varint 路径长度、UTF-8 路径、varlong 大小、varlong 修改时间
+ *    词项区   每个词项：varint 长度、UTF-8 字节，按无符号字节序升序
+ *    索引区   每个词项 8 字节：词项在词项区中的偏移、倒排表在文件中的位置，用于二分查找
+ * </pre>
+ *
+ * <p>文档编号是整个索引内的全局编号，所以不同段的查询结果可以直接合并。
+ * 映射在段被合并替换之后不主动解除，由 GC 回收，正在进行的查询不会访问到已解除的映射。
+ *
+ * @author Bert Lee 2026年10月18日 14:30
+ */
+final class DiskSegment {
+
+    /**
+     * 接收段中的文档。
+     */
+    interface DocumentVisitor {
+        void document(int docId, Document document);
+    }
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int documentCount;
+    private final int termCount;
+    private final int documentsPosition;
+    private final int termsPosition;
+    private final int indexPosition;
+
+    private DiskSegment(File file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < SegmentWriter.HEADER_SIZE
+                || buffer.getInt(0) != SegmentWriter.MAGIC || buffer.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException("Not a segment file: " + file);
+        }
+        this.documentCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.documentsPosition = buffer.getInt(16);
+        this.termsPosition = buffer.getInt(20);
+        this.indexPosition = buffer.getInt(24);
+        if (indexPosition + 8L * termCount != buffer.capacity()) {
+            throw new IOException("Truncated segment file: " + file);
+        }
+    }
+
+    static DiskSegment open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new DiskSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    File file() {
+        return file;
+    }
+
+    long sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    int documentCount() {
+        return documentCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    /**
+     * 词项的倒排表，不存在时返回空数组。
+     */
+    int[] postings(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return postingsAt(mid);
+            }
+        }
+        return Postings.EMPTY;
+    }
+
+    byte[] termAt(int index) {
+        ByteBuffer in = at(termsPosition + buffer.getInt(indexPosition + 8 * index));
+        byte[] term = new byte[VarInts.readVarInt(in)];
+        in.get(term);
+        return term;
+    }
+
+    int[] postingsAt(int index) {
+        ByteBuffer in = at(buffer.getInt(indexPosition + 8 * index + 4));
+        int[] postings = new int[VarInts.readVarInt(in)];
+        int docId = -1;
+        for (int i = 0; i < postings.length; i++) {
+            docId += VarInts.readVarInt(in);
+            postings[i] = docId;
+        }
+        return postings;
+    }
+
+    void readDocuments(DocumentVisitor visitor) {
+        ByteBuffer in = at(documentsPosition);
+        int docId = -1;
+        for (int i = 0; i < documentCount; i++) {
+            docId += VarInts.readVarInt(in);
+            byte[] path = new byte[VarInts.readVarInt(in)];
+            in.get(path);
+            long size = VarInts.readVarLong(in);
+            long lastModified = VarInts.readVarLong(in);
+            visitor.document(docId, new Document(new File(new String(path, StandardCharsets.UTF_8)), size, lastModified));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file.getName() + "[documents=" + documentCount + ", terms=" + termCount + "]";
+    }
+
+    private int compareTerm(int index, byte[] term) {
+        ByteBuffer in = at(termsPosition + buffer.getInt(indexPosition + 8 * index));
+        int length = VarInts.readVarInt(in);
+        int start = in.position();
+        for (int i = 0, n = Math.min(length, term.length); i < n; i++) {
+            int cmp = (buffer.get(start + i) & 0xff) - (term[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - term.length;
+    }
+
+    /*
+     * 每次读取使用独立的视图，多个查询线程可以同时读取同一个段。
+     */
+    private ByteBuffer at(int position) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(position);
+        return in;
+    }
+}
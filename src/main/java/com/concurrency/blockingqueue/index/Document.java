@@ -0,0 +1,51 @@
+package com.concurrency.blockingqueue.index;
+
+import java.io.File;
+
+/**
+ * 被索引的文档：文件路径以及建立索引时的大小和修改时间。
+ *
+ * <p>同一个文件重新建立索引后会得到新的文档编号，旧的文档被标记为已替代，
+ * 查询时过滤掉，在段合并时被真正删除。
+ *
+ * @author Bert Lee 2026年10月18日 14:00
+ */
+public final class Document {
+    private final File file;
+    private final long size;
+    private final long lastModified;
+    private volatile boolean superseded;
+
+    public Document(File file, long size, long lastModified) {
+        this.file = file;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isSuperseded() {
+        return superseded;
+    }
+
+    void markSuperseded() {
+        superseded = true;
+    }
+
+    /**
+     * 文件自建立索引以来没有变化。
+     */
+    boolean isUpToDate(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+}
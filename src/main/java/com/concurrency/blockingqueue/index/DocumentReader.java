@@ -0,0 +1,114 @@
+package com.concurrency.blockingqueue.index;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 把文件内容直接送入 {@link ByteTokenizer}，不在堆上为每个文件分配 byte[]。
+ *
+ * <p>小于 mmapThreshold 的文件通过池化的直接缓冲区分块读取；更大的文件按窗口映射到内存（{@link FileChannel#map}），
+ * 每个窗口处理完立即解除映射，所以多 GB 的文件也只占用一个窗口的地址空间，而且不会产生堆垃圾。
+ * 映射期间文件被截断时，访问超出文件末尾的页面会得到 SIGBUS，JVM 把它报告为 {@link InternalError}，
+ * 这里把它转换为 IOException，与其他读取失败一样处理。
+ *
+ * @author Bert Lee 2026年10月18日 13:25
+ */
+public class DocumentReader {
+    /** 达到这个大小的文件使用内存映射 */
+    public static final long DEFAULT_MMAP_THRESHOLD = 1L << 20;
+    /** 单次映射的最大字节数 */
+    static final long MAP_WINDOW = 1L << 28;
+
+    private static final DirectBufferPool SHARED_POOL = new DirectBufferPool(64 * 1024, 256);
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try { // JDK 9+，JDK 8 上映射只能等待 GC 解除
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Exception e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final DirectBufferPool bufferPool;
+    private final long mmapThreshold;
+
+    public DocumentReader() {
+        this(SHARED_POOL, DEFAULT_MMAP_THRESHOLD);
+    }
+
+    public DocumentReader(DirectBufferPool bufferPool, long mmapThreshold) {
+        this.bufferPool = bufferPool;
+        this.mmapThreshold = mmapThreshold;
+    }
+
+    /**
+     * 读取整个文件并分词，结束时调用 {@link ByteTokenizer#finish()}。
+     *
+     * @throws IOException 读取失败，包括文件在读取期间被截断
+     */
+    public void read(FileChannel channel, ByteTokenizer tokenizer) throws IOException {
+        long size = channel.size();
+        if (size >= mmapThreshold) {
+            readMapped(channel, size, tokenizer);
+        } else {
+            readBuffered(channel, tokenizer);
+        }
+        tokenizer.finish();
+    }
+
+    private void readBuffered(FileChannel channel, ByteTokenizer tokenizer) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                tokenizer.feed(buffer);
+                buffer.clear();
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private void readMapped(FileChannel channel, long size, ByteTokenizer tokenizer) throws IOException {
+        for (long position = 0; position < size; position += MAP_WINDOW) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, Math.min(MAP_WINDOW, size - position));
+            try {
+                tokenizer.feed(window);
+            } catch (InternalError e) { // SIGBUS：文件在映射之后被截断
+                throw new IOException("File truncated while mapped at position " + position, e);
+            } finally {
+                unmap(window);
+            }
+        }
+    }
+
+    /**
+     * 立即解除映射，调用之后不能再访问 buffer。
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (Exception e) { // 解除失败时映射由 GC 回收
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.concurrency.blockingqueue.index;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 文档编号到文档的映射，文档编号从 0 开始连续分配。
+ *
+ * <p>文档按编号存放在固定大小的块中，块在第一次使用时分配，读取不需要加锁。
+ * 一个文档总是在它的编号出现在倒排表中之前写入，
+ * 倒排表通过 ConcurrentHashMap 或 volatile 字段发布，所以查询时总能看到对应的文档。
+ *
+ * @author Bert Lee 2026年10月18日 11:45
+ */
+public class DocumentTable {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16; // 最多约 2.7 亿个文档
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicReferenceArray<Document[]> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    /**
+     * 为文档分配一个新的文档编号。
+     */
+    public int add(Document document) {
+        int id = nextId.getAndIncrement();
+        put(id, document);
+        return id;
+    }
+
+    /**
+     * 加载段文件时按原来的编号放回文档，之后新分配的编号从已有的最大编号之后开始。
+     */
+    void put(int id, Document document) {
+        if (id < 0 || (id >>> CHUNK_BITS) >= MAX_CHUNKS) {
+            throw new IllegalStateException("Too many documents");
+        }
+        chunk(id >>> CHUNK_BITS)[id & (CHUNK_SIZE - 1)] = document;
+        int next;
+        while ((next = nextId.get()) <= id && !nextId.compareAndSet(next, id + 1)) {
+        }
+    }
+
+    public Document get(int id) {
+        Document[] chunk = chunks.get(id >>> CHUNK_BITS);
+        return (chunk == null) ? null : chunk[id & (CHUNK_SIZE - 1)];
+    }
+
+    /**
+     * 已经分配的文档编号个数。
+     */
+    public int size() {
+        return nextId.get();
+    }
+
+    private Document[] chunk(int index) {
+        Document[] chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new Document[CHUNK_SIZE]);
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+}
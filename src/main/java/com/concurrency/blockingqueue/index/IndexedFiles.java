@@ -0,0 +1,26 @@
+package com.concurrency.blockingqueue.index;
+
+import java.io.File;
+
+/**
+ * 已经建立索引的文件，爬虫用它跳过自上次索引以来没有变化的文件。
+ *
+ * @author Bert Lee 2026年10月18日 14:05
+ */
+public interface IndexedFiles {
+
+    /**
+     * 没有任何已索引的文件，所有文件都需要建立索引。
+     */
+    IndexedFiles NONE = new IndexedFiles() {
+        @Override
+        public boolean isUpToDate(File file, long size, long lastModified) {
+            return false;
+        }
+    };
+
+    /**
+     * 文件已经建立索引，并且大小和修改时间都与建立索引时相同。
+     */
+    boolean isUpToDate(File file, long size, long lastModified);
+}
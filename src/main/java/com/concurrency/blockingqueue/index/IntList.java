@@ -0,0 +1,51 @@
+package com.concurrency.blockingqueue.index;
+
+import java.util.Arrays;
+
+/**
+ * 基于 int[] 的可增长列表，用来在内存中累积倒排表，避免 List&lt;Integer&gt; 的装箱开销。非线程安全。
+ *
+ * @author Bert Lee 2026年10月18日 11:30
+ */
+final class IntList {
+    private int[] elements;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int initialCapacity) {
+        this.elements = new int[Math.max(initialCapacity, 1)];
+    }
+
+    void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+        elements[size++] = value;
+    }
+
+    int get(int index) {
+        return elements[index];
+    }
+
+    /**
+     * 最后一个元素，列表为空时返回 -1。
+     */
+    int last() {
+        return (size == 0) ? -1 : elements[size - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
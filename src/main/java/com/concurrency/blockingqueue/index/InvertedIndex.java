@@ -0,0 +1,587 @@
+package com.concurrency.blockingqueue.index;
+
+import com.concurrency.thread.MyThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 共享的倒排索引：词项 -> 倒排表（升序的文档编号 int[]）。
+ *
+ * <p>每个 Indexer 线程先在私有的 {@link SegmentBuilder} 中建立索引，再批量合并到这里。
+ * 内存段中每个词项的倒排表由若干个块组成，每次合并只是把这一批的文档编号作为一个新块追加，
+ * 不复制已有的块，只在同一个词项上短暂竞争，不同词项之间互不阻塞，所以索引吞吐量可以随 Indexer 个数扩展。
+ * 查询时再把各个块合并成一个升序的数组。
+ *
+ * <p>块一旦发布就不再修改，查询拿到的总是某个时刻的一致快照。
+ *
+ * <pre>
+ * 持久化（{@link #open(File)}）
+ *    内存中的段积累 {@link #COMMIT_DOCUMENTS} 个文档后，由后台维护线程写成不可变的段文件（见 {@link DiskSegment}），
+ *    段文件个数达到 {@link #MERGE_FACTOR} 时在同一个线程中合并，同时删除已被替代的文档。
+ *    重新打开时映射所有段文件，并恢复每个文件最后一次建立索引时的大小和修改时间，
+ *    爬虫通过 {@link #isUpToDate} 跳过没有变化的文件，所以重新运行只需要处理变化的部分。
+ * 查询的可见性
+ *    维护线程先把内存段登记为正在写出，再换上新的内存段；先发布新的磁盘段，再撤销正在写出的内存段。
+ *    查询按 内存段 -> 正在写出的段 -> 磁盘段 的顺序读取，所以不会漏掉任何文档（重复的文档编号由并集去掉）。
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 11:55
+ */
+public class InvertedIndex implements IndexedFiles, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(InvertedIndex.class);
+
+    /** 内存段积累多少个文档后写入磁盘 */
+    static final int COMMIT_DOCUMENTS = 10000;
+    /** 磁盘段个数达到这个值时合并其中最小的几个 */
+    static final int MERGE_FACTOR = 8;
+    /** 合并后的段不超过这个大小，使每个段都可以映射为一个缓冲区 */
+    static final long MAX_MERGED_SEGMENT_BYTES = 1L << 30;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final Function<String, ChunkedPostings> NEW_POSTINGS = new Function<String, ChunkedPostings>() {
+        @Override
+        public ChunkedPostings apply(String term) {
+            return new ChunkedPostings();
+        }
+    };
+
+    private final DocumentTable documents = new DocumentTable();
+    /** 文件绝对路径 -> 最新的文档编号 */
+    private final ConcurrentMap<String, Integer> latestByPath = new ConcurrentHashMap<>();
+
+    /** 合并内存段时持有读锁（互不阻塞），换上新的内存段时持有写锁 */
+    private final ReadWriteLock memoryLock = new ReentrantReadWriteLock();
+    private volatile MemorySegment memory = new MemorySegment();
+    private volatile MemorySegment flushing;
+    private volatile List<DiskSegment> segments = Collections.emptyList();
+
+    private final File directory;
+    private final ExecutorService maintenance;
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    /** 下一个段文件的编号，只由维护线程访问 */
+    private int nextGeneration;
+
+    /**
+     * 只在内存中的索引。
+     */
+    public InvertedIndex() {
+        this.directory = null;
+        this.maintenance = null;
+    }
+
+    private InvertedIndex(File directory) {
+        this.directory = directory;
+        this.maintenance = Executors.newSingleThreadExecutor(new MyThreadFactory("index-maintenance"));
+    }
+
+    /**
+     * 打开目录中的持久化索引，目录不存在时创建一个空索引。
+     */
+    public static InvertedIndex open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create index directory: " + directory);
+        }
+
+        File[] tempFiles = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SegmentWriter.TEMP_SUFFIX); // 上次写到一半的段
+            }
+        });
+        for (File tempFile : tempFiles) {
+            tempFile.delete();
+        }
+
+        File[] segmentFiles = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        Arrays.sort(segmentFiles);
+
+        final InvertedIndex index = new InvertedIndex(directory);
+        List<DiskSegment> segments = new ArrayList<>(segmentFiles.length);
+        try {
+            for (File segmentFile : segmentFiles) {
+                DiskSegment segment = DiskSegment.open(segmentFile);
+                segment.readDocuments(new DiskSegment.DocumentVisitor() {
+                    @Override
+                    public void document(int docId, Document document) {
+                        index.documents.put(docId, document);
+                        index.register(docId, document);
+                    }
+                });
+                segments.add(segment);
+                index.nextGeneration = Math.max(index.nextGeneration, generation(segmentFile) + 1);
+            }
+        } catch (IOException e) {
+            index.maintenance.shutdown();
+            throw e;
+        }
+        index.segments = Collections.unmodifiableList(segments);
+        logger.info("Opened index {}: {} segments, {} documents", directory, segments.size(), index.documentCount());
+        return index;
+    }
+
+    /**
+     * 为文件分配文档编号，之后由调用者把文档中的词项加入 {@link SegmentBuilder}。
+     */
+    public int addDocument(File file) {
+        return addDocument(file, file.length(), file.lastModified());
+    }
+
+    /**
+     * @param size 建立索引时文件的大小
+     * @param lastModified 建立索引时文件的修改时间（毫秒）
+     */
+    public int addDocument(File file, long size, long lastModified) {
+        Document document = new Document(file, size, lastModified);
+        int docId = documents.add(document);
+        register(docId, document);
+        return docId;
+    }
+
+    /**
+     * 放弃没有读完的文档（例如读取到一半时发生 I/O 错误）：文档被标记为已替代，查询和写出段时被过滤掉，
+     * 并且不再是文件最新的版本，所以 {@link #isUpToDate} 返回 false，下次爬取时重新建立索引。
+     * 文件的旧版本在 addDocument 时已被替代，不会恢复。
+     */
+    public void discardDocument(int docId) {
+        Document document = documents.get(docId);
+        document.markSuperseded();
+        latestByPath.remove(document.getFile().getAbsolutePath(), docId);
+    }
+
+    /**
+     * 把线程私有的段合并到共享索引中，并清空该段。
+     */
+    public void merge(SegmentBuilder segment) {
+        int[] docIds = segment.documents();
+        Map<String, IntList> drained = segment.drain();
+        MemorySegment target;
+        memoryLock.readLock().lock();
+        try {
+            target = memory;
+            target.add(docIds, drained);
+        } finally {
+            memoryLock.readLock().unlock();
+        }
+        if (maintenance != null && target.documentCount() >= COMMIT_DOCUMENTS) {
+            scheduleCommit();
+        }
+    }
+
+    /**
+     * 词项的倒排表，不存在时返回空数组。
+     * term 按与文档相同的规则分词（见 {@link Tokenizer#terms}），分成多个词项时返回同时包含它们的文档。
+     */
+    public int[] postings(String term) {
+        List<String> terms = Tokenizer.terms(term);
+        if (terms.isEmpty()) {
+            return Postings.EMPTY;
+        }
+        int[] result = termPostings(terms.get(0));
+        for (int i = 1; i < terms.size() && result.length > 0; i++) {
+            result = Postings.intersect(result, termPostings(terms.get(i)));
+        }
+        return result;
+    }
+
+    public File document(int docId) {
+        Document document = documents.get(docId);
+        return (document == null) ? null : document.getFile();
+    }
+
+    /**
+     * 已经分配的文档编号个数，包括已被替代的文档。
+     */
+    public int documentCount() {
+        return documents.size();
+    }
+
+    /**
+     * 内存段中的词项个数。
+     */
+    public int termCount() {
+        return memory.termCount();
+    }
+
+    /**
+     * 当前的磁盘段个数。
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public boolean isUpToDate(File file, long size, long lastModified) {
+        Integer docId = latestByPath.get(file.getAbsolutePath());
+        if (docId == null) {
+            return false;
+        }
+        Document document = documents.get(docId);
+        return document != null && document.isUpToDate(size, lastModified);
+    }
+
+    /**
+     * 把内存段写入磁盘，直到写完才返回。只在内存中的索引上什么都不做。
+     */
+    public void commit() throws IOException {
+        if (maintenance == null) {
+            return;
+        }
+        Future<Void> future;
+        try {
+            future = maintenance.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    flush();
+                    return null;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Index closed: " + directory);
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while committing " + directory);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 提交内存段并停止维护线程，之后仍然可以查询，但不能再提交。
+     */
+    @Override
+    public void close() throws IOException {
+        if (maintenance == null || maintenance.isShutdown()) {
+            return;
+        }
+        try {
+            commit();
+        } finally {
+            maintenance.shutdown();
+            try {
+                maintenance.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * 已经分好词的单个词项的倒排表。
+     */
+    private int[] termPostings(String term) {
+        int[] result = memory.postings(term); // 读取顺序见类注释
+        MemorySegment beingFlushed = flushing;
+        if (beingFlushed != null) {
+            result = Postings.union(result, beingFlushed.postings(term));
+        }
+        List<DiskSegment> current = segments;
+        if (!current.isEmpty()) {
+            byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+            for (DiskSegment segment : current) {
+                result = Postings.union(result, segment.postings(bytes));
+            }
+        }
+        return Postings.live(result, documents);
+    }
+
+    /*
+     * 记录文件最新的文档编号，同一个文件的旧文档被标记为已替代。
+     */
+    private void register(int docId, Document document) {
+        String path = document.getFile().getAbsolutePath();
+        Integer boxed = docId;
+        while (true) {
+            Integer previous = latestByPath.putIfAbsent(path, boxed);
+            if (previous == null || previous == docId) {
+                return;
+            }
+            if (previous > docId) { // 加载段文件时可能先遇到较新的版本
+                document.markSuperseded();
+                return;
+            }
+            if (latestByPath.replace(path, previous, boxed)) {
+                documents.get(previous).markSuperseded();
+                return;
+            }
+        }
+    }
+
+    private void scheduleCommit() {
+        if (!commitScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            maintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    commitScheduled.set(false);
+                    try {
+                        flush();
+                    } catch (IOException e) {
+                        logger.error("Failed to commit index " + directory, e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) { // 已经关闭
+            commitScheduled.set(false);
+        }
+    }
+
+    /*
+     * 只在维护线程中执行。
+     */
+    private void flush() throws IOException {
+        MemorySegment segment;
+        memoryLock.writeLock().lock();
+        try {
+            segment = memory;
+            if (segment.documentCount() == 0) {
+                return;
+            }
+            flushing = segment;
+            memory = new MemorySegment();
+        } finally {
+            memoryLock.writeLock().unlock();
+        }
+
+        DiskSegment written;
+        try {
+            written = segment.write(nextSegmentFile(), documents);
+        } catch (IOException e) { // 写入失败，放回内存中等待下一次提交
+            memoryLock.readLock().lock();
+            try {
+                memory.addAll(segment);
+            } finally {
+                memoryLock.readLock().unlock();
+            }
+            flushing = null;
+            throw e;
+        }
+
+        if (written != null) {
+            List<DiskSegment> updated = new ArrayList<>(segments);
+            updated.add(written);
+            segments = Collections.unmodifiableList(updated);
+        }
+        flushing = null;
+        logger.debug("Committed {} documents to {}", segment.documentCount(), written);
+
+        mergeSegments();
+    }
+
+    /*
+     * 只在维护线程中执行：合并最小的 MERGE_FACTOR 个段，直到段的个数少于 MERGE_FACTOR。
+     */
+    private void mergeSegments() throws IOException {
+        while (segments.size() >= MERGE_FACTOR) {
+            List<DiskSegment> candidates = new ArrayList<>(segments);
+            Collections.sort(candidates, new Comparator<DiskSegment>() {
+                @Override
+                public int compare(DiskSegment a, DiskSegment b) {
+                    return Long.compare(a.sizeInBytes(), b.sizeInBytes());
+                }
+            });
+            candidates = candidates.subList(0, MERGE_FACTOR);
+            long totalBytes = 0;
+            for (DiskSegment candidate : candidates) {
+                totalBytes += candidate.sizeInBytes();
+            }
+            if (totalBytes > MAX_MERGED_SEGMENT_BYTES) {
+                return;
+            }
+
+            DiskSegment merged = SegmentMerger.merge(candidates, nextSegmentFile(), documents);
+            List<DiskSegment> updated = new ArrayList<>(segments);
+            updated.removeAll(candidates);
+            if (merged != null) {
+                updated.add(merged);
+            }
+            segments = Collections.unmodifiableList(updated);
+            logger.debug("Merged {} into {}", candidates, merged);
+
+            for (DiskSegment candidate : candidates) {
+                // 正在进行的查询仍可以读取映射；删除失败时重新打开会重复加载，文档编号相同，结果不变
+                if (!candidate.file().delete()) {
+                    candidate.file().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    private File nextSegmentFile() {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, nextGeneration++, SEGMENT_SUFFIX));
+    }
+
+    private static int generation(File segmentFile) {
+        String name = segmentFile.getName();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 内存段：所有 Indexer 合并进来的倒排表，以及这些文档的编号。
+     */
+    private static final class MemorySegment {
+        private final ConcurrentMap<String, ChunkedPostings> postings = new ConcurrentHashMap<>();
+        private final IntList docIds = new IntList();
+        private final AtomicInteger documentCount = new AtomicInteger();
+
+        void add(int[] ids, Map<String, IntList> drained) {
+            synchronized (docIds) {
+                for (int docId : ids) {
+                    docIds.add(docId);
+                }
+            }
+            for (Map.Entry<String, IntList> entry : drained.entrySet()) {
+                // computeIfAbsent 只在第一次遇到词项时持有 CHM 的桶锁，追加块在词项自己的锁上进行
+                postings.computeIfAbsent(entry.getKey(), NEW_POSTINGS).append(entry.getValue().toArray());
+            }
+            documentCount.addAndGet(ids.length);
+        }
+
+        void addAll(MemorySegment other) {
+            synchronized (other.docIds) {
+                synchronized (docIds) {
+                    for (int i = 0; i < other.docIds.size(); i++) {
+                        docIds.add(other.docIds.get(i));
+                    }
+                }
+            }
+            for (Map.Entry<String, ChunkedPostings> entry : other.postings.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), NEW_POSTINGS).append(entry.getValue().toArray());
+            }
+            documentCount.addAndGet(other.documentCount());
+        }
+
+        int[] postings(String term) {
+            ChunkedPostings list = postings.get(term);
+            return (list == null) ? Postings.EMPTY : list.toArray();
+        }
+
+        int documentCount() {
+            return documentCount.get();
+        }
+
+        int termCount() {
+            return postings.size();
+        }
+
+        /**
+         * 写成段文件，跳过已被替代的文档；所有文档都已被替代时返回 null。
+         */
+        DiskSegment write(File file, DocumentTable documents) throws IOException {
+            int[] ids;
+            synchronized (docIds) {
+                ids = docIds.toArray();
+            }
+            Arrays.sort(ids);
+
+            List<byte[]> terms = new ArrayList<>(postings.size());
+            for (String term : postings.keySet()) {
+                terms.add(term.getBytes(StandardCharsets.UTF_8));
+            }
+            Collections.sort(terms, SegmentWriter.TERM_ORDER);
+
+            try (SegmentWriter writer = new SegmentWriter(file)) {
+                int live = 0;
+                for (int docId : ids) {
+                    Document document = documents.get(docId);
+                    if (!document.isSuperseded()) {
+                        writer.addDocument(docId, document);
+                        live++;
+                    }
+                }
+                if (live == 0) {
+                    return null;
+                }
+                for (byte[] term : terms) {
+                    int[] list = Postings.live(postings(new String(term, StandardCharsets.UTF_8)), documents);
+                    if (list.length > 0) {
+                        writer.addTerm(term, list);
+                    }
+                }
+                writer.finish();
+            }
+            return DiskSegment.open(file);
+        }
+    }
+
+    /**
+     * 内存段中一个词项的倒排表：若干个块，每个块是升序的文档编号，块之间的编号可能交错（来自不同的 Indexer）。
+     *
+     * <p>追加时不复制已有的块。块的大小保持从前到后至少减半，新块使最后一个块不再满足这个条件时二者合并，
+     * 就像二进制计数器的进位，所以块的个数是 O(log n)，每个文档编号平均只被复制 O(log n) 次，
+     * 而不是每次合并都复制整个倒排表。
+     */
+    private static final class ChunkedPostings {
+        private int[][] chunks = new int[4][];
+        private int chunkCount;
+
+        synchronized void append(int[] chunk) {
+            while (chunkCount > 0 && chunks[chunkCount - 1].length < chunk.length * 2) {
+                chunk = Postings.union(chunks[--chunkCount], chunk);
+                chunks[chunkCount] = null;
+            }
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount << 1);
+            }
+            chunks[chunkCount++] = chunk;
+        }
+
+        /**
+         * 合并所有的块，从最小的块开始，总的复制量是 O(n)。
+         */
+        int[] toArray() {
+            int[][] snapshot;
+            synchronized (this) {
+                snapshot = Arrays.copyOf(chunks, chunkCount);
+            }
+            int[] result = Postings.EMPTY;
+            for (int i = snapshot.length - 1; i >= 0; i--) {
+                result = Postings.union(snapshot[i], result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.concurrency.blockingqueue.index;
+
+import java.util.Arrays;
+
+/**
+ * 倒排表（升序且不重复的文档编号 int[]）的集合运算。
+ *
+ * @author Bert Lee 2026年10月18日 11:35
+ */
+public final class Postings {
+    static final int[] EMPTY = new int[0];
+
+    private Postings() {
+    }
+
+    /**
+     * 并集，用于合并两个段中同一个词项的倒排表，以及 OR 查询。
+     */
+    public static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        if (a[a.length - 1] < b[0]) { // 常见情况：新段的文档编号都更大，直接拼接
+            return concat(a, b);
+        }
+
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[k++] = b[j++];
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[k++] = a[i++];
+        }
+        while (j < b.length) {
+            result[k++] = b[j++];
+        }
+        return (k == result.length) ? result : Arrays.copyOf(result, k);
+    }
+
+    /**
+     * 交集，用于 AND 查询。
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * 差集 a - b，用于 NOT 查询。
+     */
+    public static int[] difference(int[] a, int[] b) {
+        int[] result = new int[a.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length) {
+            while (j < b.length && b[j] < a[i]) {
+                j++;
+            }
+            if (j == b.length || b[j] != a[i]) {
+                result[k++] = a[i];
+            }
+            i++;
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * 去掉已被替代的文档。
+     */
+    static int[] live(int[] postings, DocumentTable documents) {
+        int[] result = null;
+        int k = 0;
+        for (int i = 0; i < postings.length; i++) {
+            Document document = documents.get(postings[i]);
+            if (document == null || !document.isSuperseded()) {
+                if (result != null) {
+                    result[k++] = postings[i];
+                }
+            } else if (result == null) { // 第一个被替代的文档，之前的都保留
+                result = Arrays.copyOf(postings, postings.length);
+                k = i;
+            }
+        }
+        return (result == null) ? postings : Arrays.copyOf(result, k);
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+package com.concurrency.blockingqueue.index;
+
+import java.util.List;
+
+/**
+ * 布尔查询：词项查询以及它们的 AND / OR / NOT 组合。
+ *
+ * <pre>
+ * Query query = Query.andNot(Query.term("concurrency"), Query.term("draft"));
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 12:05
+ */
+public abstract class Query {
+
+    /**
+     * 在索引上求值，返回匹配的文档编号（升序）。
+     */
+    public abstract int[] evaluate(InvertedIndex index);
+
+    /**
+     * 词项按与文档相同的规则分词，分成多个词项时（例如 "foo-bar"）匹配同时包含它们的文档。
+     */
+    public static Query term(final String term) {
+        return new Query() {
+            @Override
+            public int[] evaluate(InvertedIndex index) {
+                return index.postings(term);
+            }
+
+            @Override
+            public String toString() {
+                List<String> terms = Tokenizer.terms(term);
+                return (terms.size() == 1) ? terms.get(0) : terms.toString();
+            }
+        };
+    }
+
+    public static Query and(final Query... clauses) {
+        return new Query() {
+            @Override
+            public int[] evaluate(InvertedIndex index) {
+                if (clauses.length == 0) {
+                    return Postings.EMPTY;
+                }
+                int[] result = clauses[0].evaluate(index);
+                for (int i = 1; i < clauses.length && result.length > 0; i++) {
+                    result = Postings.intersect(result, clauses[i].evaluate(index));
+                }
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return join(" AND ", clauses);
+            }
+        };
+    }
+
+    public static Query or(final Query... clauses) {
+        return new Query() {
+            @Override
+            public int[] evaluate(InvertedIndex index) {
+                int[] result = Postings.EMPTY;
+                for (Query clause : clauses) {
+                    result = Postings.union(result, clause.evaluate(index));
+                }
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return join(" OR ", clauses);
+            }
+        };
+    }
+
+    /**
+     * 匹配 include 但不匹配 exclude 的文档。
+     */
+    public static Query andNot(final Query include, final Query exclude) {
+        return new Query() {
+            @Override
+            public int[] evaluate(InvertedIndex index) {
+                return Postings.difference(include.evaluate(index), exclude.evaluate(index));
+            }
+
+            @Override
+            public String toString() {
+                return "(" + include + " NOT " + exclude + ")";
+            }
+        };
+    }
+
+    private static String join(String operator, Query[] clauses) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < clauses.length; i++) {
+            if (i > 0) {
+                sb.append(operator);
+            }
+            sb.append(clauses[i]);
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,168 @@
+package com.concurrency.blockingqueue.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 每个 Indexer 线程私有的内存倒排索引段，不需要任何同步。
+ *
+ * <p>段积累到一定数量的文档后，通过 {@link InvertedIndex#merge(SegmentBuilder)} 合并到共享的索引中，然后清空重用。
+ * 同一个线程分配的文档编号是递增的，所以每个倒排表天然有序。
+ *
+ * <p>词项以 UTF-8 字节存放在一个字节池中，用开放寻址的散列表按字节查找，
+ * 只有段中第一次出现的词项在合并时才转换为 String，所以分词过程本身不产生任何对象。
+ *
+ * @author Bert Lee 2026年10月18日 11:50
+ */
+public class SegmentBuilder {
+    private static final int INITIAL_TERMS = 1024;
+
+    private byte[] termBytes = new byte[INITIAL_TERMS * 8];
+    private int termBytesSize;
+    private int[] termOffsets = new int[INITIAL_TERMS];
+    private int[] termLengths = new int[INITIAL_TERMS];
+    private int[] termHashes = new int[INITIAL_TERMS];
+    private IntList[] postings = new IntList[INITIAL_TERMS];
+    private int termCount;
+    /** 词项编号 + 1，0 表示空槽 */
+    private int[] table = new int[INITIAL_TERMS * 2];
+
+    private final IntList documents = new IntList();
+
+    /**
+     * 开始一个新文档，之后的 addTerm 调用都属于这个文档。
+     * 没有任何词项的文档（例如空文件）也会被记录，使它的大小和修改时间同样被持久化。
+     */
+    public void startDocument(int docId) {
+        documents.add(docId);
+    }
+
+    /**
+     * 记录词项出现在文档中，同一个文档中重复出现的词项只记录一次。
+     */
+    public void addTerm(String term, int docId) {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        addTerm(bytes, bytes.length, docId);
+    }
+
+    /**
+     * 记录 term[0, length) 表示的词项，字节在需要时被复制，调用返回后 term 可以被覆盖。
+     */
+    public void addTerm(byte[] term, int length, int docId) {
+        int hash = hash(term, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = table[slot] - 1) >= 0) {
+            if (termHashes[id] == hash && sameTerm(id, term, length)) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (id < 0) {
+            id = newTerm(term, length, hash);
+            table[slot] = id + 1;
+            if (termCount > (table.length >>> 1)) {
+                rehash(table.length << 1);
+            }
+        }
+
+        IntList list = postings[id];
+        if (list.last() != docId) {
+            list.add(docId);
+        }
+    }
+
+    public int documentCount() {
+        return documents.size();
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    public boolean isEmpty() {
+        return documents.size() == 0;
+    }
+
+    /**
+     * 段中的文档编号，需要在 {@link #drain()} 之前调用。
+     */
+    int[] documents() {
+        return documents.toArray();
+    }
+
+    /**
+     * 返回当前积累的倒排表并清空段，字节池和散列表保留下来供下一批文档使用。
+     */
+    Map<String, IntList> drain() {
+        Map<String, IntList> drained = new HashMap<>((int) (termCount / 0.75f) + 1);
+        for (int id = 0; id < termCount; id++) {
+            drained.put(new String(termBytes, termOffsets[id], termLengths[id], StandardCharsets.UTF_8), postings[id]);
+        }
+        Arrays.fill(postings, 0, termCount, null);
+        Arrays.fill(table, 0);
+        termCount = 0;
+        termBytesSize = 0;
+        documents.clear();
+        return drained;
+    }
+
+    private int newTerm(byte[] term, int length, int hash) {
+        if (termCount == termOffsets.length) {
+            int capacity = termCount << 1;
+            termOffsets = Arrays.copyOf(termOffsets, capacity);
+            termLengths = Arrays.copyOf(termLengths, capacity);
+            termHashes = Arrays.copyOf(termHashes, capacity);
+            postings = Arrays.copyOf(postings, capacity);
+        }
+        if (termBytesSize + length > termBytes.length) {
+            termBytes = Arrays.copyOf(termBytes, Math.max(termBytes.length << 1, termBytesSize + length));
+        }
+        System.arraycopy(term, 0, termBytes, termBytesSize, length);
+
+        int id = termCount++;
+        termOffsets[id] = termBytesSize;
+        termLengths[id] = length;
+        termHashes[id] = hash;
+        postings[id] = new IntList();
+        termBytesSize += length;
+        return id;
+    }
+
+    private boolean sameTerm(int id, byte[] term, int length) {
+        if (termLengths[id] != length) {
+            return false;
+        }
+        int offset = termOffsets[id];
+        for (int i = 0; i < length; i++) {
+            if (termBytes[offset + i] != term[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < termCount; id++) {
+            int slot = termHashes[id] & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id + 1;
+        }
+        table = newTable;
+    }
+
+    private static int hash(byte[] term, int length) {
+        int h = 0x811c9dc5; // FNV-1a
+        for (int i = 0; i < length; i++) {
+            h = (h ^ (term[i] & 0xff)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
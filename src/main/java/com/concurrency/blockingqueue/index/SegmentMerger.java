@@ -0,0 +1,110 @@
+package com.concurrency.blockingqueue.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 把多个磁盘段合并为一个，同时删除已被替代的文档。
+ *
+ * <p>各段的词项都是有序的，用优先队列做 k 路归并，同一个词项的倒排表取并集，
+ * 所以合并只需要顺序读取各段，内存占用与段的大小无关（文档区除外）。
+ *
+ * @author Bert Lee 2026年10月18日 14:45
+ */
+final class SegmentMerger {
+
+    private SegmentMerger() {
+    }
+
+    /**
+     * @return 合并后的段，所有文档都已被替代时返回 null
+     */
+    static DiskSegment merge(List<DiskSegment> sources, File target, DocumentTable documents) throws IOException {
+        final IntList docIds = new IntList();
+        for (DiskSegment source : sources) {
+            source.readDocuments(new DiskSegment.DocumentVisitor() {
+                @Override
+                public void document(int docId, Document document) {
+                    docIds.add(docId);
+                }
+            });
+        }
+        int[] sortedIds = docIds.toArray();
+        Arrays.sort(sortedIds);
+
+        try (SegmentWriter writer = new SegmentWriter(target)) {
+            int live = 0;
+            for (int i = 0; i < sortedIds.length; i++) {
+                int docId = sortedIds[i];
+                Document document = documents.get(docId);
+                if ((i == 0 || sortedIds[i - 1] != docId) && !document.isSuperseded()) {
+                    writer.addDocument(docId, document);
+                    live++;
+                }
+            }
+            if (live == 0) {
+                return null;
+            }
+
+            PriorityQueue<Cursor> cursors = new PriorityQueue<>(sources.size());
+            for (DiskSegment source : sources) {
+                Cursor cursor = new Cursor(source);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+            while (!cursors.isEmpty()) {
+                Cursor head = cursors.poll();
+                byte[] term = head.term;
+                int[] postings = head.postings();
+                while (!cursors.isEmpty() && SegmentWriter.TERM_ORDER.compare(cursors.peek().term, term) == 0) {
+                    Cursor same = cursors.poll();
+                    postings = Postings.union(postings, same.postings());
+                    if (same.advance()) {
+                        cursors.add(same);
+                    }
+                }
+                if (head.advance()) {
+                    cursors.add(head);
+                }
+
+                postings = Postings.live(postings, documents);
+                if (postings.length > 0) {
+                    writer.addTerm(term, postings);
+                }
+            }
+            writer.finish();
+        }
+        return DiskSegment.open(target);
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final DiskSegment segment;
+        private int index = -1;
+        private byte[] term;
+
+        Cursor(DiskSegment segment) {
+            this.segment = segment;
+        }
+
+        boolean advance() {
+            if (++index >= segment.termCount()) {
+                return false;
+            }
+            term = segment.termAt(index);
+            return true;
+        }
+
+        int[] postings() {
+            return segment.postingsAt(index);
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return SegmentWriter.TERM_ORDER.compare(term, other.term);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.concurrency.blockingqueue.index;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+
+/**
+ * 写出一个不可变的段文件，格式见 {@link DiskSegment}。
+ *
+ * <p>文档必须按编号升序、词项必须按字节序升序加入。先写到临时文件，{@link #finish()} 时刷盘并原子地重命名，
+ * 所以目录中只会出现完整的段文件。
+ *
+ * @author Bert Lee 2026年10月18日 14:20
+ */
+final class SegmentWriter implements Closeable {
+    static final int MAGIC = 0x4A435347; // "JCSG"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final String TEMP_SUFFIX = ".tmp";
+
+    /** 词项的顺序：UTF-8 字节的无符号字典序 */
+    static final Comparator<byte[]> TERM_ORDER = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] a, byte[] b) {
+            for (int i = 0, n = Math.min(a.length, b.length); i < n; i++) {
+                int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return a.length - b.length;
+        }
+    };
+
+    private final File file;
+    private final File tempFile;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream documentBytes = new ByteArrayOutputStream();
+    private final DataOutputStream documentsOut = new DataOutputStream(documentBytes);
+    private final ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+    private final DataOutputStream termsOut = new DataOutputStream(termBytes);
+    private final IntList termOffsets = new IntList();
+    private final IntList postingsOffsets = new IntList();
+    private int documentCount;
+    private int lastDocId = -1;
+    private boolean finished;
+
+    SegmentWriter(File file) throws IOException {
+        this.file = file;
+        this.tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+        out.write(new byte[HEADER_SIZE]); // finish() 时回填
+    }
+
+    void addDocument(int docId, Document document) throws IOException {
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("Documents must be added in ascending order: " + docId);
+        }
+        VarInts.writeVarInt(documentsOut, docId - lastDocId);
+        byte[] path = document.getFile().getPath().getBytes(StandardCharsets.UTF_8);
+        VarInts.writeVarInt(documentsOut, path.length);
+        documentsOut.write(path);
+        VarInts.writeVarLong(documentsOut, document.getSize());
+        VarInts.writeVarLong(documentsOut, document.getLastModified());
+        lastDocId = docId;
+        documentCount++;
+    }
+
+    /**
+     * @param postings 升序且非空的文档编号
+     */
+    void addTerm(byte[] term, int[] postings) throws IOException {
+        checkSize(out.size());
+        termOffsets.add(termsOut.size());
+        VarInts.writeVarInt(termsOut, term.length);
+        termsOut.write(term);
+
+        postingsOffsets.add(out.size());
+        VarInts.writeVarInt(out, postings.length);
+        int previous = -1;
+        for (int docId : postings) {
+            VarInts.writeVarInt(out, docId - previous); // 差分编码
+            previous = docId;
+        }
+    }
+
+    /**
+     * 写出剩余部分，刷盘后原子地重命名为最终的文件名。
+     */
+    void finish() throws IOException {
+        int documentsPosition = out.size();
+        documentBytes.writeTo(out);
+        int termsPosition = out.size();
+        termBytes.writeTo(out);
+        int indexPosition = out.size();
+        for (int i = 0; i < termOffsets.size(); i++) {
+            out.writeInt(termOffsets.get(i));
+            out.writeInt(postingsOffsets.get(i));
+        }
+        checkSize(out.size());
+        out.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(documentCount);
+            raf.writeInt(termOffsets.size());
+            raf.writeInt(documentsPosition);
+            raf.writeInt(termsPosition);
+            raf.writeInt(indexPosition);
+            raf.getChannel().force(true);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    /**
+     * 没有调用 {@link #finish()} 时丢弃临时文件。
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            out.close();
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private void checkSize(int size) throws IOException {
+        if (size < 0 || size == Integer.MAX_VALUE) { // DataOutputStream.size() 溢出后停在 Integer.MAX_VALUE
+            throw new IOException("Segment too large: " + file);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.concurrency.blockingqueue.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分词器：把由字母或数字组成的连续字符作为一个词项，ASCII 字母统一转为小写。
+ *
+ * <p>分词规则由 {@link ByteTokenizer} 在 UTF-8 字节上定义，索引文件时直接使用它，
+ * 这里的字符串版本只是为查询和测试提供相同的规则。
+ *
+ * @author Bert Lee 2026年10月18日 11:40
+ */
+public final class Tokenizer {
+    /** 超过这个长度（UTF-8 字节数）的词项（例如 base64 数据）被丢弃 */
+    static final int MAX_TERM_LENGTH = 64;
+
+    /**
+     * 接收分词结果。
+     */
+    public interface TermSink {
+        void term(String term);
+    }
+
+    private Tokenizer() {
+    }
+
+    public static void tokenize(CharSequence text, final TermSink sink) {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        ByteTokenizer tokenizer = new ByteTokenizer(new ByteTokenizer.TermSink() {
+            @Override
+            public void term(byte[] term, int length) {
+                sink.term(new String(term, 0, length, StandardCharsets.UTF_8));
+            }
+        });
+        tokenizer.feed(bytes, 0, bytes.length);
+        tokenizer.finish();
+    }
+
+    /**
+     * 把查询中的词项按与文档相同的规则分词，例如 "Foo-Bar" 得到 foo 和 bar 两个词项。
+     */
+    public static List<String> terms(CharSequence text) {
+        final List<String> terms = new ArrayList<>(1);
+        tokenize(text, new TermSink() {
+            @Override
+            public void term(String term) {
+                terms.add(term);
+            }
+        });
+        return terms;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+/**
+ * 侵入式的双向链表，头部是最久未访问的节点，尾部是最近访问的节点。
+ *
+ * <p>节点可以在 O(1) 时间内移到尾部或者在不同链表之间移动，供淘汰策略使用。非线程安全。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+final class AccessOrderDeque<K> {
+
+	static final class Node<K> {
+		final K key;
+		final int weight;
+		/** 节点当前所在的链表 */
+		AccessOrderDeque<K> owner;
+		Node<K> prev;
+		Node<K> next;
+
+		Node(K key, int weight) {
+			this.key = key;
+			this.weight = weight;
+		}
+	}
+
+	private final Node<K> head = new Node<>(null, 0); // 哨兵
+	private long weight;
+	private int size;
+
+	AccessOrderDeque() {
+		head.prev = head;
+		head.next = head;
+	}
+
+	void addLast(Node<K> node) {
+		node.owner = this;
+		node.prev = head.prev;
+		node.next = head;
+		head.prev.next = node;
+		head.prev = node;
+		weight += node.weight;
+		size++;
+	}
+
+	void remove(Node<K> node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+		node.owner = null;
+		weight -= node.weight;
+		size--;
+	}
+
+	void moveToLast(Node<K> node) {
+		remove(node);
+		addLast(node);
+	}
+
+	Node<K> peekFirst() {
+		return (head.next == head) ? null : head.next;
+	}
+
+	Node<K> peekLast() {
+		return (head.prev == head) ? null : head.prev;
+	}
+
+	long weight() {
+		return weight;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+}
@@ -0,0 +1,37 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 封装异步的计算过程，是 {@link Computable} 的非阻塞版本。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public interface AsyncComputable<A, V> {
+
+	/**
+	 * 启动计算并立即返回，计算结果（或者异常）通过返回的 CompletableFuture 获得。
+	 *
+	 * @param arg
+	 * @return
+	 */
+	CompletableFuture<V> compute(A arg);
+
+}
@@ -0,0 +1,150 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 基于 {@link ConcurrentMap} 和 {@link CompletableFuture} 的异步实现。
+ *
+ * <p>Memoizer 在调用线程上执行 {@code ft.run()}，一个耗时的计算会一直占用调用线程；
+ * AsyncMemoizer 把计算交给 {@link Executor}，调用线程立即得到一个 CompletableFuture，
+ * 可以用 thenApply/thenCompose 等方法组合结果而不必阻塞。
+ *
+ * <pre>
+ * 单次计算
+ *    与 Memoizer 一样使用 putIfAbsent 注册占位的 Future，同一个 key 只有一个计算在进行。
+ *    缓存中的 Future 不会交给调用者，每个调用者拿到的是依赖于它的一个新 Future，
+ *    所以某个调用者 complete/cancel/obtrudeValue 自己的 Future 不会影响其他调用者，也不会改变缓存的值。
+ * 缓存污染问题
+ *    计算失败时，把 Future 从缓存中移除，下一次调用会重新计算。
+ * Executor 的选择
+ *    可以是 MyThreadFactory 创建的线程池，例如 {@code Executors.newFixedThreadPool(n, new MyThreadFactory("memoizer"))}，
+ *    阻塞 I/O 型的计算也可以使用虚拟线程的 Executor。
+ * </pre>
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class AsyncMemoizer<A, V> implements AsyncComputable<A, V> {
+
+	private final ConcurrentMap<A, CompletableFuture<V>> cache = new ConcurrentHashMap<>();
+	private final AsyncComputable<A, V> c;
+
+	public AsyncMemoizer(AsyncComputable<A, V> c) {
+		this.c = c;
+	}
+
+	/**
+	 * 在 executor 上执行阻塞的 {@link Computable}。
+	 */
+	public AsyncMemoizer(Computable<A, V> c, Executor executor) {
+		this(asAsync(c, executor));
+	}
+
+	/*
+	 * 首先检查某个相应的计算是否已经开始。
+	 * 如果还没有启动，那么就注册一个占位的 CompletableFuture，然后启动异步计算；
+	 * 如果已经启动，那么返回依赖于现有计算的 Future。
+	 */
+	@Override
+	public CompletableFuture<V> compute(final A arg) {
+		CompletableFuture<V> f = cache.get(arg);
+		if (f != null) {
+			return dependent(f);
+		}
+
+		final CompletableFuture<V> placeholder = new CompletableFuture<>();
+		f = cache.putIfAbsent(arg, placeholder); // 先检查计算是否已经开始，避免漏洞！
+		if (f != null) {
+			return dependent(f);
+		}
+
+		// 失败时移除，避免缓存污染
+		placeholder.whenComplete(new BiConsumer<V, Throwable>() {
+			@Override
+			public void accept(V value, Throwable t) {
+				if (t != null) {
+					cache.remove(arg, placeholder);
+				}
+			}
+		});
+
+		try {
+			c.compute(arg).whenComplete(new BiConsumer<V, Throwable>() {
+				@Override
+				public void accept(V value, Throwable t) {
+					if (t != null) {
+						placeholder.completeExceptionally(t);
+					} else {
+						placeholder.complete(value);
+					}
+				}
+			});
+		} catch (Throwable t) { // 例如 Executor 拒绝执行
+			placeholder.completeExceptionally(t);
+		}
+		return dependent(placeholder);
+	}
+
+	/*
+	 * 调用者拿到的 Future：随 shared 一起完成，但对它的修改不会反过来影响 shared。
+	 */
+	private static <V> CompletableFuture<V> dependent(CompletableFuture<V> shared) {
+		return shared.thenApply(Function.<V>identity());
+	}
+
+	public int cacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * 把阻塞的 {@link Computable} 适配为在 executor 上执行的 {@link AsyncComputable}。
+	 *
+	 * @param c
+	 * @param executor
+	 * @return
+	 */
+	public static <A, V> AsyncComputable<A, V> asAsync(final Computable<A, V> c, final Executor executor) {
+		return new AsyncComputable<A, V>() {
+			@Override
+			public CompletableFuture<V> compute(final A arg) {
+				final CompletableFuture<V> future = new CompletableFuture<>();
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							future.complete(c.compute(arg));
+						} catch (InterruptedException e) {
+							future.completeExceptionally(e);
+							Thread.currentThread().interrupt();
+						} catch (Throwable t) {
+							future.completeExceptionally(t);
+						}
+					}
+				});
+				return future;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,41 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 支持批量计算的 {@link Computable}，例如后端可以在一次往返中返回多个 key 的结果。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public interface BatchComputable<A, V> extends Computable<A, V> {
+
+	/**
+	 * 批量计算并返回结果。
+	 *
+	 * <p>返回的 Map 应该包含所有的 key；缺少的 key 会由调用方逐个调用 {@link #compute(Object)} 补齐。
+	 *
+	 * @param args 不包含重复的 key
+	 * @return
+	 * @throws InterruptedException
+	 */
+	Map<A, V> computeAll(Collection<? extends A> args) throws InterruptedException;
+
+}
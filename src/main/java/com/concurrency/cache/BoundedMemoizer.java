@@ -0,0 +1,204 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界的 {@link Memoizer}，解决了 Memoizer 中提到的“缓存清理问题”。
+ *
+ * <p>与 Memoizer 一样基于 {@link ConcurrentMap} 和 {@link FutureTask}，保证同一个 key 只有一个线程在计算；
+ * 计算完成后，条目按 {@link Weigher} 计算出的权重登记到 {@link EvictionPolicy} 中，
+ * 权重总和超过上限时由策略选出需要淘汰的条目，并从缓存中移除。
+ *
+ * <pre>
+ * 淘汰锁
+ *    淘汰策略本身不是线程安全的，所有对策略的修改都在一把锁下串行执行。
+ * 读缓冲区
+ *    缓存命中时只 tryLock，拿不到锁就把访问记录放入一个有界的缓冲区，由下一个持有锁的线程批量回放；
+ *    缓冲区满时直接丢弃访问记录。这样命中路径不会在淘汰锁上排队，代价是访问顺序只是近似的。
+ * 被淘汰的条目
+ *    已经拿到 Future 的线程仍然可以得到结果，只是后续的调用需要重新计算。
+ * </pre>
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class BoundedMemoizer<A, V> implements Computable<A, V> {
+
+	private static final int READ_BUFFER_SIZE = 128;
+
+	private static final Weigher<Object, Object> SINGLETON_WEIGHER = new Weigher<Object, Object>() {
+		@Override
+		public int weigh(Object key, Object value) {
+			return 1;
+		}
+	};
+
+	private final ConcurrentMap<A, Future<V>> cache = new ConcurrentHashMap<>();
+	private final Computable<A, V> c;
+	private final EvictionPolicy<A> policy;
+	private final Weigher<? super A, ? super V> weigher;
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final Queue<A> readBuffer = new ArrayBlockingQueue<>(READ_BUFFER_SIZE);
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * 最多缓存 maximumSize 个条目，使用 W-TinyLFU 策略淘汰。
+	 */
+	public BoundedMemoizer(Computable<A, V> c, long maximumSize) {
+		this(c, new TinyLfuPolicy<A>(maximumSize), SINGLETON_WEIGHER);
+	}
+
+	/**
+	 * 使用指定的策略淘汰，策略的 {@link EvictionPolicy#maximumWeight()} 即为条目个数的上限。
+	 */
+	public BoundedMemoizer(Computable<A, V> c, EvictionPolicy<A> policy) {
+		this(c, policy, SINGLETON_WEIGHER);
+	}
+
+	/**
+	 * 使用指定的策略淘汰，所有条目的权重总和不超过策略的 {@link EvictionPolicy#maximumWeight()}。
+	 */
+	public BoundedMemoizer(Computable<A, V> c, EvictionPolicy<A> policy,
+						   Weigher<? super A, ? super V> weigher) {
+		this.c = c;
+		this.policy = policy;
+		this.weigher = weigher;
+	}
+
+	@Override
+	public V compute(final A arg) throws InterruptedException {
+		while (true) {
+			Future<V> f = cache.get(arg);
+			boolean computed = false;
+			if (f == null) {
+				Callable<V> eval = new Callable<V>() {
+					@Override
+					public V call() throws Exception {
+						return c.compute(arg);
+					}
+				};
+
+				FutureTask<V> ft = new FutureTask<>(eval);
+				f = cache.putIfAbsent(arg, ft);
+				if (f == null) {
+					f = ft;
+					ft.run(); // 在这里将调用 c.compute
+					computed = true;
+				}
+			}
+
+			try {
+				V value = f.get();
+				if (computed) {
+					afterWrite(arg, value);
+				} else {
+					afterRead(arg);
+				}
+				return value;
+			} catch (CancellationException ce) {
+				cache.remove(arg, f);
+				// 任务被取消执行后，会重试
+			} catch (ExecutionException e) {
+				cache.remove(arg, f);
+				e.printStackTrace();
+				throw new InterruptedException(e.getMessage());
+			}
+		}
+	}
+
+	private void afterRead(A key) {
+		if (evictionLock.tryLock()) {
+			try {
+				drainReadBuffer();
+				policy.recordAccess(key);
+			} finally {
+				evictionLock.unlock();
+			}
+		} else {
+			readBuffer.offer(key); // 缓冲区已满时丢弃这次访问记录
+		}
+	}
+
+	private void afterWrite(A key, V value) {
+		int weight = weigher.weigh(key, value);
+		if (weight < 0) {
+			throw new IllegalStateException("Negative weight " + weight + " for key " + key);
+		}
+
+		List<A> evicted = new ArrayList<>();
+		evictionLock.lock();
+		try {
+			drainReadBuffer();
+			policy.recordWrite(key, weight, evicted);
+			for (A victim : evicted) {
+				cache.remove(victim);
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+		evictionCount.addAndGet(evicted.size());
+	}
+
+	private void drainReadBuffer() {
+		A key;
+		while ((key = readBuffer.poll()) != null) {
+			policy.recordAccess(key);
+		}
+	}
+
+	/**
+	 * 缓存中的条目个数，包括正在计算中的条目。
+	 */
+	public int cacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * 已计算完成的条目的权重总和。
+	 */
+	public long weightedSize() {
+		evictionLock.lock();
+		try {
+			return policy.weightedSize();
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * 累计被淘汰的条目个数。
+	 */
+	public long evictionCount() {
+		return evictionCount.get();
+	}
+
+}
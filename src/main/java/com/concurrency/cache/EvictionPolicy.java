@@ -0,0 +1,70 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.Collection;
+
+/**
+ * 缓存淘汰策略。
+ *
+ * <p>策略只记录已经计算完成的条目（正在计算中的条目还不知道权重），并决定超出容量时应该淘汰哪些 key。
+ *
+ * <p>实现不需要是线程安全的：{@link BoundedMemoizer} 总是在持有淘汰锁的情况下调用策略的方法。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public interface EvictionPolicy<K> {
+
+	/**
+	 * 记录一次缓存命中。未被策略记录的 key 应该被忽略（可能刚刚被淘汰）。
+	 *
+	 * @param key
+	 */
+	void recordAccess(K key);
+
+	/**
+	 * 记录一个新写入的条目，并把需要淘汰的 key 加入 evicted（可能包含刚写入的 key 本身）。
+	 *
+	 * @param key
+	 * @param weight
+	 * @param evicted 输出参数，接收被淘汰的 key
+	 */
+	void recordWrite(K key, int weight, Collection<? super K> evicted);
+
+	/**
+	 * 记录一个被外部移除的条目。
+	 *
+	 * @param key
+	 */
+	void recordRemoval(K key);
+
+	/**
+	 * 当前策略中所有条目的权重总和。
+	 *
+	 * @return
+	 */
+	long weightedSize();
+
+	/**
+	 * 允许的最大权重总和。
+	 *
+	 * @return
+	 */
+	long maximumWeight();
+
+}
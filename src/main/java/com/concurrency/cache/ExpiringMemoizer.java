@@ -0,0 +1,255 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带过期时间的 {@link Memoizer}，解决了 Memoizer 中提到的“缓存过期问题”。
+ *
+ * <pre>
+ * 写后过期（expireAfterWrite）
+ *    条目在计算完成 duration 之后失效。
+ * 访问后过期（expireAfterAccess）
+ *    条目在最后一次访问 duration 之后失效。
+ * 写后刷新（refreshAfterWrite）
+ *    条目在计算完成 duration 之后被访问时，在后台 Executor 上重新计算一次，
+ *    新值计算出来之前继续返回旧值；同一个条目同时只会有一个刷新任务。
+ *
+ * 过期检查
+ *    读取时总会检查条目是否过期，所以过期的值不会被返回；
+ *    另外每个条目在共享的 {@link TimerWheel} 上登记一个定时任务，负责移除没有再被访问的过期条目，
+ *    而不是为每个 key 向 ScheduledExecutorService 提交一个任务。
+ *    访问后过期不会在每次访问时重新登记定时任务：定时任务到期时如果条目又被访问过，才按剩余时间重新登记。
+ * </pre>
+ *
+ * <p>与 Memoizer 一样，保证同一个 key 只有一个线程在计算。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class ExpiringMemoizer<A, V> implements Computable<A, V> {
+
+	private final ConcurrentMap<A, Entry<V>> cache = new ConcurrentHashMap<>();
+	private final Computable<A, V> c;
+	private final long expireAfterWriteNanos;
+	private final long expireAfterAccessNanos;
+	private final long refreshAfterWriteNanos;
+	private final Executor refreshExecutor;
+	private final TimerWheel timerWheel;
+
+	/**
+	 * 只设置写后过期。
+	 */
+	public ExpiringMemoizer(Computable<A, V> c, long expireAfterWrite, TimeUnit unit) {
+		this(c, expireAfterWrite, 0, 0, unit, ForkJoinPool.commonPool(), TimerWheel.shared());
+	}
+
+	/**
+	 * @param c
+	 * @param expireAfterWrite 写后过期时间，0 表示不启用
+	 * @param expireAfterAccess 访问后过期时间，0 表示不启用
+	 * @param refreshAfterWrite 写后刷新时间，0 表示不启用
+	 * @param unit
+	 * @param refreshExecutor 执行后台刷新的 Executor
+	 * @param timerWheel 负责移除过期条目的时间轮
+	 */
+	public ExpiringMemoizer(Computable<A, V> c, long expireAfterWrite, long expireAfterAccess,
+							long refreshAfterWrite, TimeUnit unit,
+							Executor refreshExecutor, TimerWheel timerWheel) {
+		if (expireAfterWrite < 0 || expireAfterAccess < 0 || refreshAfterWrite < 0) {
+			throw new IllegalArgumentException("durations must not be negative");
+		}
+		this.c = c;
+		this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+		this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+		this.refreshAfterWriteNanos = unit.toNanos(refreshAfterWrite);
+		this.refreshExecutor = refreshExecutor;
+		this.timerWheel = timerWheel;
+	}
+
+	@Override
+	public V compute(final A arg) throws InterruptedException {
+		while (true) {
+			Entry<V> e = cache.get(arg);
+			if (e == null) {
+				Callable<V> eval = new Callable<V>() {
+					@Override
+					public V call() throws Exception {
+						return c.compute(arg);
+					}
+				};
+
+				FutureTask<V> ft = new FutureTask<>(eval);
+				Entry<V> entry = new Entry<>(ft);
+				e = cache.putIfAbsent(arg, entry);
+				if (e == null) {
+					e = entry;
+					ft.run(); // 在这里将调用 c.compute
+					try {
+						ft.get(); // 已经完成，不会阻塞
+						afterWrite(arg, entry);
+					} catch (CancellationException | ExecutionException ignored) {
+						// 计算失败时不登记过期检查，下面的 get 会移除条目并抛出异常
+					}
+				}
+			}
+
+			long now = System.nanoTime();
+			if (isExpired(e, now)) {
+				cache.remove(arg, e);
+				continue;
+			}
+
+			try {
+				V value = e.future.get(); // 等待计算结果
+				if (expireAfterAccessNanos > 0) {
+					e.accessTime = now;
+				}
+				if (refreshAfterWriteNanos > 0 && e.completed
+						&& (now - e.writeTime) >= refreshAfterWriteNanos) {
+					refresh(arg, e);
+				}
+				return value;
+			} catch (CancellationException ce) {
+				cache.remove(arg, e);
+				// 任务被取消执行后，会重试
+			} catch (ExecutionException ex) {
+				cache.remove(arg, e);
+				ex.printStackTrace();
+				throw new InterruptedException(ex.getMessage());
+			}
+		}
+	}
+
+	/*
+	 * 计算完成后记录写入时间，并在时间轮上登记过期检查。
+	 */
+	private void afterWrite(A key, Entry<V> entry) {
+		long now = System.nanoTime();
+		entry.writeTime = now;
+		entry.accessTime = now;
+		entry.completed = true;
+		scheduleExpiration(key, entry, now);
+	}
+
+	private void scheduleExpiration(final A key, final Entry<V> entry, long now) {
+		long delay = nanosUntilExpiration(entry, now);
+		if (delay == Long.MAX_VALUE) {
+			return; // 没有启用过期
+		}
+		entry.timeout = timerWheel.schedule(new Runnable() {
+			@Override
+			public void run() {
+				long now = System.nanoTime();
+				if (isExpired(entry, now)) {
+					cache.remove(key, entry);
+				} else if (cache.get(key) == entry) {
+					scheduleExpiration(key, entry, now); // 期间被访问过，按剩余时间重新登记
+				}
+			}
+		}, delay, TimeUnit.NANOSECONDS);
+	}
+
+	private long nanosUntilExpiration(Entry<V> entry, long now) {
+		long delay = Long.MAX_VALUE;
+		if (expireAfterWriteNanos > 0) {
+			delay = Math.min(delay, entry.writeTime + expireAfterWriteNanos - now);
+		}
+		if (expireAfterAccessNanos > 0) {
+			delay = Math.min(delay, entry.accessTime + expireAfterAccessNanos - now);
+		}
+		return (delay == Long.MAX_VALUE) ? delay : Math.max(delay, 0L);
+	}
+
+	/*
+	 * 正在计算中的条目不会过期。
+	 */
+	private boolean isExpired(Entry<V> entry, long now) {
+		if (!entry.completed) {
+			return false;
+		}
+		return (expireAfterWriteNanos > 0 && (now - entry.writeTime) >= expireAfterWriteNanos)
+				|| (expireAfterAccessNanos > 0 && (now - entry.accessTime) >= expireAfterAccessNanos);
+	}
+
+	/*
+	 * 只有抢到 refreshing 标志的线程才会提交刷新任务，其他线程直接返回旧值。
+	 */
+	private void refresh(final A key, final Entry<V> old) {
+		if (!old.refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			refreshExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						V value = c.compute(key);
+						Entry<V> fresh = new Entry<V>(CompletableFuture.completedFuture(value));
+						boolean replaced = cache.replace(key, old, fresh);
+						if (old.timeout != null) { // 替换失败说明旧条目已经被移除，它的定时任务同样不再需要
+							old.timeout.cancel();
+						}
+						if (replaced) {
+							afterWrite(key, fresh);
+						}
+					} catch (InterruptedException e) {
+						old.refreshing.set(false);
+						Thread.currentThread().interrupt();
+					} catch (RuntimeException e) {
+						old.refreshing.set(false); // 刷新失败，继续使用旧值，下次访问时再重试
+						e.printStackTrace();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			old.refreshing.set(false);
+		}
+	}
+
+	public int cacheSize() {
+		return cache.size();
+	}
+
+	private static final class Entry<V> {
+		final Future<V> future;
+		final AtomicBoolean refreshing = new AtomicBoolean();
+		/** 计算完成后才为 true，之后 writeTime 才有意义 */
+		volatile boolean completed;
+		volatile long writeTime;
+		volatile long accessTime;
+		volatile TimerWheel.Timeout timeout;
+
+		Entry(Future<V> future) {
+			this.future = future;
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+/**
+ * 基于 Count-Min Sketch 的访问频率估计器（TinyLFU 的“历史访问记录”）。
+ *
+ * <pre>
+ * 每个计数器只占 4 位，一个 long 可以存放 16 个计数器，每个 key 在 4 行中各占一个计数器，取最小值作为估计频率。
+ * 老化机制
+ *    累计增加的次数达到采样大小（容量的 10 倍）后，所有计数器减半，使过去的热点数据逐渐“冷却”。
+ * </pre>
+ *
+ * <p>非线程安全，由调用方负责同步。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+final class FrequencySketch<K> {
+
+	private static final long[] SEEDS = { // 来自 FNV-1a、CityHash 和 Murmur3 的常量
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAX_COUNT = 15;
+	private static final int MAXIMUM_CAPACITY = 1 << 22;
+
+	private final long[] table;
+	private final int tableMask;
+	private final int sampleSize;
+	private int additions;
+
+	FrequencySketch(long expectedSize) {
+		int capacity = (int) Math.min(Math.max(expectedSize, 16L), MAXIMUM_CAPACITY);
+		int tableSize = Integer.highestOneBit(capacity - 1) << 1; // 向上取整为 2 的幂
+		this.table = new long[tableSize];
+		this.tableMask = tableSize - 1;
+		this.sampleSize = 10 * capacity;
+	}
+
+	/**
+	 * 返回 key 的估计访问频率，范围是 [0, 15]。
+	 */
+	int frequency(K key) {
+		int hash = spread(key.hashCode());
+		int frequency = MAX_COUNT;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long h = rehash(hash, i);
+			int index = (int) h & tableMask;
+			int offset = counterOffset(h);
+			int count = (int) ((table[index] >>> offset) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * 增加 key 的访问频率，到达采样大小后对所有计数器做老化。
+	 */
+	void increment(K key) {
+		int hash = spread(key.hashCode());
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long h = rehash(hash, i);
+			added |= incrementAt((int) h & tableMask, counterOffset(h));
+		}
+		if (added && (++additions == sampleSize)) {
+			reset();
+		}
+	}
+
+	private boolean incrementAt(int index, int offset) {
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) != mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions >>>= 1;
+	}
+
+	private static int counterOffset(long h) {
+		return (int) ((h >>> 32) & 15L) << 2; // 16 个 4 位计数器中的一个
+	}
+
+	private static long rehash(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		return h ^ (h >>> 29);
+	}
+
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+
+}
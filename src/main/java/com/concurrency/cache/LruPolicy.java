@@ -0,0 +1,90 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 最近最少使用（LRU）淘汰策略。
+ *
+ * <pre>
+ * 优点
+ *    实现简单，对“最近访问过的数据很可能再次被访问”的负载效果很好。
+ * 不足
+ *    一次大范围扫描就会把热点数据全部挤出缓存（缓存污染）。
+ * </pre>
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class LruPolicy<K> implements EvictionPolicy<K> {
+
+	private final Map<K, AccessOrderDeque.Node<K>> nodes = new HashMap<>();
+	private final AccessOrderDeque<K> deque = new AccessOrderDeque<>();
+	private final long maximumWeight;
+
+	public LruPolicy(long maximumWeight) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("maximumWeight < 0: " + maximumWeight);
+		}
+		this.maximumWeight = maximumWeight;
+	}
+
+	@Override
+	public void recordAccess(K key) {
+		AccessOrderDeque.Node<K> node = nodes.get(key);
+		if (node != null) {
+			deque.moveToLast(node);
+		}
+	}
+
+	@Override
+	public void recordWrite(K key, int weight, Collection<? super K> evicted) {
+		recordRemoval(key);
+		AccessOrderDeque.Node<K> node = new AccessOrderDeque.Node<>(key, weight);
+		nodes.put(key, node);
+		deque.addLast(node);
+
+		while (deque.weight() > maximumWeight) { // 从最久未访问的一端开始淘汰
+			AccessOrderDeque.Node<K> victim = deque.peekFirst();
+			deque.remove(victim);
+			nodes.remove(victim.key);
+			evicted.add(victim.key);
+		}
+	}
+
+	@Override
+	public void recordRemoval(K key) {
+		AccessOrderDeque.Node<K> node = nodes.remove(key);
+		if (node != null) {
+			deque.remove(node);
+		}
+	}
+
+	@Override
+	public long weightedSize() {
+		return deque.weight();
+	}
+
+	@Override
+	public long maximumWeight() {
+		return maximumWeight;
+	}
+
+}
@@ -16,6 +16,9 @@
  */
 package com.concurrency.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
@@ -44,6 +47,11 @@ import java.util.concurrent.FutureTask;
  *    可以通过 FutureTask 的子类来解决，在子类中为每个结果指定一个过期时间，并定期扫描缓存中过期的元素。
  *    （同样，它也没有解决缓存清理的问题，即移除旧的计算结果以便为新的计算结果腾出空间，
  *    从而使缓存不会消耗过多的内存。）
+ * 
+ * 批量计算
+ *    computeAll 直接返回已缓存的结果，等待已经在计算中的 key，
+ *    剩下的 key 在同一个批次中注册占位的 Future，如果 c 是 {@link BatchComputable}，则通过一次 computeAll 计算。
+ *    占位的 Future 同样通过 putIfAbsent 注册，所以并发的调用者对每个 key 仍然只会计算一次。
  * </pre>
  *
  * @author	lihg
@@ -96,9 +104,117 @@ public class Memoizer<A, V> implements Computable<A, V> {
 		}
 	}
 	
+	/**
+	 * 批量计算并返回结果，返回的 Map 按 args 的迭代顺序排列。
+	 *
+	 * @param args
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public Map<A, V> computeAll(Collection<? extends A> args) throws InterruptedException {
+		Map<A, Future<V>> futures = new LinkedHashMap<>();
+		Map<A, Promise<V>> misses = new LinkedHashMap<>();
+		for (A arg : args) {
+			if (futures.containsKey(arg)) {
+				continue;
+			}
+			Future<V> f = cache.get(arg);
+			if (f == null) {
+				Promise<V> p = new Promise<>();
+				f = cache.putIfAbsent(arg, p);
+				if (f == null) { // 由当前批次负责计算
+					f = p;
+					misses.put(arg, p);
+				}
+			}
+			futures.put(arg, f);
+		}
+
+		if (!misses.isEmpty()) {
+			load(misses);
+		}
+
+		Map<A, V> result = new LinkedHashMap<>(futures.size() * 2);
+		for (Map.Entry<A, Future<V>> entry : futures.entrySet()) {
+			A arg = entry.getKey();
+			Future<V> f = entry.getValue();
+			try {
+				result.put(arg, f.get()); // 等待计算结果
+			} catch (CancellationException ce) {
+				cache.remove(arg, f);
+				result.put(arg, compute(arg)); // 任务被取消执行后，会重试
+			} catch (ExecutionException e) {
+				cache.remove(arg, f);
+				e.printStackTrace();
+				throw new InterruptedException(e.getMessage());
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * 计算当前批次负责的 key，无论成功与否都要完成所有的占位 Future，否则其他线程会一直等待；
+	 * 失败的占位 Future 同时从缓存中删除。
+	 */
+	private void load(Map<A, Promise<V>> misses) throws InterruptedException {
+		try {
+			Map<A, V> loaded = (c instanceof BatchComputable)
+					? ((BatchComputable<A, V>) c).computeAll(misses.keySet())
+					: null;
+			for (Map.Entry<A, Promise<V>> miss : misses.entrySet()) {
+				A arg = miss.getKey();
+				V value = (loaded != null) ? loaded.get(arg) : null;
+				if (value == null) { // 批量结果中缺少的 key 逐个计算
+					value = c.compute(arg);
+				}
+				miss.getValue().set(value);
+			}
+		} catch (Throwable t) {
+			for (Map.Entry<A, Promise<V>> miss : misses.entrySet()) {
+				Promise<V> p = miss.getValue();
+				if (!p.isDone()) { // 已经完成的 Future 保留在缓存中
+					p.setException(t); // 正在等待的线程得到这次失败
+					cache.remove(miss.getKey(), p); // 之后的调用者重新计算，而不是得到缓存的失败
+				}
+			}
+			if (t instanceof InterruptedException) {
+				throw (InterruptedException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			}
+		}
+	}
+
 //	@Test
 	public int cacheSize() {
 		return cache.size();
 	}
 
+	/**
+	 * 由批量计算在外部设置结果的 Future。
+	 */
+	private static final class Promise<V> extends FutureTask<V> {
+		private static final Callable<Object> NOT_RUNNABLE = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				throw new IllegalStateException("Promise must be completed by set/setException");
+			}
+		};
+
+		@SuppressWarnings("unchecked")
+		Promise() {
+			super((Callable<V>) NOT_RUNNABLE);
+		}
+
+		@Override
+		protected void set(V v) {
+			super.set(v);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			super.setException(t);
+		}
+	}
+
 }
@@ -0,0 +1,177 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 分段的 {@link Memoizer}，针对热点 key 优化了命中路径。
+ *
+ * <pre>
+ * Memoizer 在热点 key 上的开销
+ *    命中后要通过 {@link java.util.concurrent.Future#get()} 读取结果，并包在一个“重试”循环中；
+ *    所有未命中的线程都要先分配一个 Callable 和 FutureTask，再由 putIfAbsent 决出唯一的计算者，
+ *    在 MemoizerTest 中线程数超过 2600 以后执行时间明显地超线性增长。
+ * 改进
+ *    1. 命中路径无锁、无分配：条目中用一个 volatile 字段保存结果，计算完成后读取它只是一次 volatile 读；
+ *    2. 未命中时只分配一个很小的条目对象，不再需要 Callable/FutureTask，计算直接在当前线程中执行；
+ *    3. 缓存按 key 的哈希值分成多个段，每个段是一个独立的 ConcurrentHashMap，
+ *       扩容和 size 统计都只影响一个段；
+ *    4. 等待者只在计算尚未完成时才进入条目的监视器，计算线程只在确实有等待者时才 notifyAll。
+ * </pre>
+ *
+ * <p>与 Memoizer 一样，同一个 key 只有一个线程在计算；计算失败的条目会被移除，等待者抛出 InterruptedException。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class StripedMemoizer<A, V> implements Computable<A, V> {
+
+	/** 结果为 null 时的占位符，以便和“尚未完成”区分 */
+	private static final Object NIL = new Object();
+
+	private final ConcurrentMap<A, Node>[] shards;
+	private final int shardMask;
+	private final Computable<A, V> c;
+
+	public StripedMemoizer(Computable<A, V> c) {
+		this(c, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	public StripedMemoizer(Computable<A, V> c, int concurrencyLevel) {
+		if (concurrencyLevel <= 0) {
+			throw new IllegalArgumentException("concurrencyLevel must be greater than 0: " + concurrencyLevel);
+		}
+		int size = (concurrencyLevel == 1) ? 1 : Integer.highestOneBit(concurrencyLevel - 1) << 1;
+		@SuppressWarnings({"unchecked", "rawtypes"}) // 不能直接创建泛型数组
+		ConcurrentMap<A, Node>[] shards = (ConcurrentMap<A, Node>[]) new ConcurrentMap[size];
+		this.shards = shards;
+		for (int i = 0; i < size; i++) {
+			shards[i] = new ConcurrentHashMap<>();
+		}
+		this.shardMask = size - 1;
+		this.c = c;
+	}
+
+	@Override
+	public V compute(A arg) throws InterruptedException {
+		ConcurrentMap<A, Node> shard = shardFor(arg);
+		Node node = shard.get(arg);
+		if (node != null) {
+			Object outcome = node.outcome;
+			if (outcome != null && !(outcome instanceof Failure)) { // 快速路径：一次 volatile 读
+				return unwrap(outcome);
+			}
+		} else {
+			Node created = new Node();
+			node = shard.putIfAbsent(arg, created);
+			if (node == null) {
+				return computeAndPublish(shard, arg, created);
+			}
+		}
+
+		Object outcome = node.await(); // 等待计算结果
+		if (outcome instanceof Failure) {
+			shard.remove(arg, node);
+			throw new InterruptedException(((Failure) outcome).cause.getMessage());
+		}
+		return unwrap(outcome);
+	}
+
+	private V computeAndPublish(ConcurrentMap<A, Node> shard, A arg, Node node) throws InterruptedException {
+		try {
+			V value = c.compute(arg);
+			node.complete((value == null) ? NIL : value);
+			return value;
+		} catch (Throwable t) {
+			shard.remove(arg, node); // 避免缓存污染
+			node.complete(new Failure(t));
+			if (t instanceof InterruptedException) {
+				throw (InterruptedException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			}
+			t.printStackTrace();
+			throw new InterruptedException(t.getMessage());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V unwrap(Object outcome) {
+		return (outcome == NIL) ? null : (V) outcome;
+	}
+
+	private ConcurrentMap<A, Node> shardFor(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16); // 与 ConcurrentHashMap 内部使用的低位不同，避免段内的哈希分布退化
+		h *= 0x85ebca6b;
+		return shards[(h >>> 16) & shardMask];
+	}
+
+	public int cacheSize() {
+		int size = 0;
+		for (ConcurrentMap<A, Node> shard : shards) {
+			size += shard.size();
+		}
+		return size;
+	}
+
+	/**
+	 * 缓存条目：outcome 为 null 表示计算中，否则是结果、{@link #NIL} 或 {@link Failure}。
+	 */
+	private static final class Node {
+		volatile Object outcome;
+		volatile boolean hasWaiters;
+
+		Object await() throws InterruptedException {
+			Object o = outcome;
+			if (o != null) {
+				return o;
+			}
+			synchronized (this) {
+				hasWaiters = true;
+				while ((o = outcome) == null) {
+					wait();
+				}
+			}
+			return o;
+		}
+
+		/*
+		 * outcome 和 hasWaiters 都是 volatile 的：等待者先写 hasWaiters 再读 outcome，
+		 * 计算线程先写 outcome 再读 hasWaiters，两者至少有一方能看到对方的写入，所以不会丢失唤醒。
+		 */
+		void complete(Object o) {
+			outcome = o;
+			if (hasWaiters) {
+				synchronized (this) {
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	private static final class Failure {
+		final Throwable cause;
+
+		Failure(Throwable cause) {
+			this.cause = cause;
+		}
+	}
+
+}
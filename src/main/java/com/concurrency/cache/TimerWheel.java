@@ -0,0 +1,373 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.concurrency.thread.MyThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 哈希时间轮，由一个后台线程驱动大量的定时任务。
+ *
+ * <pre>
+ * 原理
+ *    时间轮由 wheelSize 个桶组成，指针每 tick 前进一格，到期时间落在同一格的任务放在同一个桶中，
+ *    超过一圈的任务记录剩余圈数。添加和取消都是 O(1)，每个 tick 只处理一个桶。
+ * 与 ScheduledExecutorService 相比
+ *    后者每个任务都要进入一个全局的堆（O(log n)，并且有锁竞争），
+ *    时间轮的新任务和取消请求先放入无锁队列，由工作线程批量转移，百万级别的定时任务也很便宜。
+ * 代价
+ *    精度只有一个 tick；任务在工作线程上执行，必须足够短小（例如从缓存中移除条目）。
+ * </pre>
+ *
+ * <p>改编自 Netty 的 io.netty.util.HashedWheelTimer（Copyright 2012 The Netty Project），
+ * 按 Apache License 2.0 使用：工作线程的状态机、桶的链表和取消队列的做法都来自它，
+ * 去掉了 TimerTask/Timeout 接口、泄漏检测和 maxPendingTimeouts 限制。见项目根目录的 NOTICE。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public final class TimerWheel {
+
+	private static final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+
+	private static final int WORKER_INIT = 0;
+	private static final int WORKER_STARTED = 1;
+	private static final int WORKER_SHUTDOWN = 2;
+
+	/** 每个 tick 最多从新任务队列中转移的任务数，防止工作线程被大量新任务饿死 */
+	private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Queue<Timeout> timeouts = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+	private final AtomicLong pendingTimeouts = new AtomicLong();
+	private final AtomicInteger workerState = new AtomicInteger(WORKER_INIT);
+	private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
+	private final Thread workerThread;
+
+	private volatile long startTime;
+
+	/**
+	 * 缓存默认共享的时间轮：tick 为 100 毫秒，一圈 512 格。
+	 */
+	public static TimerWheel shared() {
+		return SharedHolder.INSTANCE;
+	}
+
+	private static class SharedHolder {
+		static final TimerWheel INSTANCE = new TimerWheel("memoizer-timer", 100, TimeUnit.MILLISECONDS, 512);
+	}
+
+	public TimerWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+		if (tickDuration <= 0) {
+			throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+		}
+		if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+			throw new IllegalArgumentException("wheelSize must be in (0, 2^30]: " + wheelSize);
+		}
+		int size = Integer.highestOneBit(wheelSize - 1) << 1; // 向上取整为 2 的幂
+		this.wheel = new Bucket[Math.max(size, 1)];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new Bucket();
+		}
+		this.mask = wheel.length - 1;
+		this.tickNanos = unit.toNanos(tickDuration);
+
+		this.workerThread = new MyThreadFactory(name).newThread(new Worker());
+		this.workerThread.setDaemon(true); // 不阻止 JVM 退出
+	}
+
+	/**
+	 * 在 delay 之后执行 task。
+	 *
+	 * @param task 在时间轮的工作线程上执行，必须足够短小
+	 * @param delay
+	 * @param unit
+	 * @return 可以用来取消的句柄
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		if (task == null) {
+			throw new NullPointerException("task");
+		}
+		start();
+		pendingTimeouts.incrementAndGet();
+
+		long deadline = System.nanoTime() + unit.toNanos(delay) - startTime;
+		if (delay > 0 && deadline < 0) { // 防止溢出
+			deadline = Long.MAX_VALUE;
+		}
+		Timeout timeout = new Timeout(this, task, deadline);
+		timeouts.add(timeout);
+		return timeout;
+	}
+
+	private void start() {
+		switch (workerState.get()) {
+			case WORKER_INIT:
+				if (workerState.compareAndSet(WORKER_INIT, WORKER_STARTED)) {
+					workerThread.start();
+				}
+				break;
+			case WORKER_STARTED:
+				break;
+			case WORKER_SHUTDOWN:
+				throw new IllegalStateException("cannot be started once stopped");
+			default:
+				throw new Error("Invalid WorkerState");
+		}
+
+		// 等待工作线程初始化 startTime
+		boolean interrupted = false;
+		while (startTime == 0) {
+			try {
+				startTimeInitialized.await();
+			} catch (InterruptedException ignore) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 停止工作线程，尚未到期的任务不再执行。
+	 */
+	public void stop() {
+		if (this == SharedHolder.INSTANCE) {
+			throw new IllegalStateException("the shared timer wheel cannot be stopped");
+		}
+		if (workerState.getAndSet(WORKER_SHUTDOWN) == WORKER_STARTED) {
+			workerThread.interrupt();
+		}
+	}
+
+	/**
+	 * 尚未到期也未被取消的任务数。
+	 */
+	public long pendingTimeouts() {
+		return pendingTimeouts.get();
+	}
+
+	private final class Worker implements Runnable {
+		private long tick;
+
+		@Override
+		public void run() {
+			long now = System.nanoTime();
+			startTime = (now == 0) ? 1 : now; // 0 用作“未初始化”的标记
+			startTimeInitialized.countDown();
+
+			while (workerState.get() == WORKER_STARTED) {
+				long deadline = waitForNextTick();
+				if (deadline > 0) {
+					processCancelledTimeouts();
+					transferTimeoutsToBuckets();
+					wheel[(int) (tick & mask)].expireTimeouts(deadline);
+					tick++;
+				}
+			}
+		}
+
+		private void transferTimeoutsToBuckets() {
+			for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+				Timeout timeout = timeouts.poll();
+				if (timeout == null) {
+					break;
+				}
+				if (timeout.state() == Timeout.ST_CANCELLED) {
+					continue;
+				}
+
+				long calculated = timeout.deadline / tickNanos;
+				timeout.remainingRounds = (calculated - tick) / wheel.length;
+				long ticks = Math.max(calculated, tick); // 已经过期的任务放在当前格
+				wheel[(int) (ticks & mask)].add(timeout);
+			}
+		}
+
+		private void processCancelledTimeouts() {
+			Timeout timeout;
+			while ((timeout = cancelledTimeouts.poll()) != null) {
+				if (timeout.bucket != null) {
+					timeout.bucket.remove(timeout);
+				}
+			}
+		}
+
+		/*
+		 * 睡眠到下一个 tick，返回相对于 startTime 的当前时间；被停止时返回负数。
+		 */
+		private long waitForNextTick() {
+			long deadline = tickNanos * (tick + 1);
+			while (true) {
+				long currentTime = System.nanoTime() - startTime;
+				long sleepTimeMs = (deadline - currentTime + 999999) / 1000000;
+				if (sleepTimeMs <= 0) {
+					return (currentTime == Long.MIN_VALUE) ? -Long.MAX_VALUE : currentTime;
+				}
+				try {
+					Thread.sleep(sleepTimeMs);
+				} catch (InterruptedException ignored) {
+					if (workerState.get() == WORKER_SHUTDOWN) {
+						return Long.MIN_VALUE;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 定时任务的句柄。
+	 */
+	public static final class Timeout {
+		private static final int ST_INIT = 0;
+		private static final int ST_CANCELLED = 1;
+		private static final int ST_EXPIRED = 2;
+
+		private final TimerWheel timer;
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+		// 以下字段只由工作线程访问
+		long remainingRounds;
+		Timeout next;
+		Timeout prev;
+		Bucket bucket;
+
+		Timeout(TimerWheel timer, Runnable task, long deadline) {
+			this.timer = timer;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * 取消任务，任务已经执行或已经被取消时返回 false。
+		 */
+		public boolean cancel() {
+			if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+				return false;
+			}
+			timer.pendingTimeouts.decrementAndGet();
+			timer.cancelledTimeouts.add(this); // 由工作线程从桶中移除
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state() == ST_CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state() == ST_EXPIRED;
+		}
+
+		int state() {
+			return state.get();
+		}
+
+		void expire() {
+			if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+				return;
+			}
+			timer.pendingTimeouts.decrementAndGet();
+			try {
+				task.run();
+			} catch (Throwable t) {
+				logger.warn("An exception was thrown by timer task {}", task, t);
+			}
+		}
+	}
+
+	/**
+	 * 时间轮中的一格，是一个只由工作线程访问的双向链表。
+	 */
+	private static final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void expireTimeouts(long deadline) {
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.remainingRounds <= 0) {
+					next = remove(timeout);
+					if (timeout.deadline <= deadline) {
+						timeout.expire();
+					} else {
+						// 不会发生：任务总是被放在正确的格中
+						throw new IllegalStateException(String.format(
+								"timeout.deadline (%d) > deadline (%d)", timeout.deadline, deadline));
+					}
+				} else if (timeout.isCancelled()) {
+					next = remove(timeout);
+				} else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+
+		Timeout remove(Timeout timeout) {
+			Timeout next = timeout.next;
+			if (timeout.prev != null) {
+				timeout.prev.next = next;
+			}
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			}
+
+			if (timeout == head) {
+				if (timeout == tail) {
+					tail = null;
+					head = null;
+				} else {
+					head = next;
+				}
+			} else if (timeout == tail) {
+				tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+			return next;
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Window TinyLFU 淘汰策略：一个很小的 LRU 窗口 + 由频率估计器把关准入的分段 LRU 主空间。
+ *
+ * <pre>
+ * 结构
+ *    窗口区（1%）：新写入的条目先进入窗口，吸收突发的访问；
+ *    主空间（99%）：分为试用区（20%）和保护区（80%），在试用区中再次被访问的条目会晋升到保护区。
+ * 准入
+ *    条目离开窗口后成为候选者，主空间满时比较候选者和试用区中最久未访问的条目（受害者）的访问频率，
+ *    只有候选者的频率更高时才淘汰受害者，否则淘汰候选者本身。
+ *    候选者是本次写入时离开窗口的条目，单独记录：从保护区降级到试用区尾部的条目已经在主空间中，不参加准入。
+ *    没有候选者时直接淘汰受害者。
+ * 优点
+ *    一次性扫描的数据频率很低，无法挤掉热点数据，因此对扫描和频率倾斜的负载都比 LRU 命中率高。
+ * </pre>
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class TinyLfuPolicy<K> implements EvictionPolicy<K> {
+
+	private static final double WINDOW_RATIO = 0.01;
+	private static final double PROTECTED_RATIO = 0.80;
+
+	private final Map<K, AccessOrderDeque.Node<K>> nodes = new HashMap<>();
+	private final AccessOrderDeque<K> window = new AccessOrderDeque<>();
+	private final AccessOrderDeque<K> probation = new AccessOrderDeque<>();
+	private final AccessOrderDeque<K> protectedDeque = new AccessOrderDeque<>();
+	private final FrequencySketch<K> sketch;
+	/** 本次写入时离开窗口、等待准入的条目，只在 recordWrite 期间非空 */
+	private final ArrayDeque<AccessOrderDeque.Node<K>> candidates = new ArrayDeque<>();
+
+	private final long maximumWeight;
+	private final long windowMaximum;
+	private final long protectedMaximum;
+
+	public TinyLfuPolicy(long maximumWeight) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("maximumWeight < 0: " + maximumWeight);
+		}
+		this.maximumWeight = maximumWeight;
+		this.windowMaximum = Math.max(1L, (long) (maximumWeight * WINDOW_RATIO));
+		this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_RATIO);
+		this.sketch = new FrequencySketch<>(maximumWeight);
+	}
+
+	@Override
+	public void recordAccess(K key) {
+		AccessOrderDeque.Node<K> node = nodes.get(key);
+		if (node == null) {
+			return;
+		}
+		sketch.increment(key);
+
+		if (node.owner == probation) { // 在试用期内再次被访问，晋升到保护区
+			probation.remove(node);
+			protectedDeque.addLast(node);
+			demoteProtected();
+		} else {
+			node.owner.moveToLast(node);
+		}
+	}
+
+	@Override
+	public void recordWrite(K key, int weight, Collection<? super K> evicted) {
+		recordRemoval(key);
+		sketch.increment(key);
+		AccessOrderDeque.Node<K> node = new AccessOrderDeque.Node<>(key, weight);
+		nodes.put(key, node);
+		window.addLast(node);
+
+		// 窗口溢出的条目进入试用区尾部，成为准入候选者
+		while (window.weight() > windowMaximum) {
+			AccessOrderDeque.Node<K> first = window.peekFirst();
+			window.remove(first);
+			probation.addLast(first);
+			candidates.addLast(first);
+		}
+		try {
+			evict(evicted);
+		} finally {
+			candidates.clear();
+		}
+	}
+
+	private void evict(Collection<? super K> evicted) {
+		while (weightedSize() > maximumWeight) {
+			AccessOrderDeque.Node<K> evict;
+			AccessOrderDeque.Node<K> candidate = nextCandidate();
+			if (candidate != null) {
+				AccessOrderDeque.Node<K> victim = probation.peekFirst();
+				if (candidate == victim || candidate.weight > maximumWeight) {
+					evict = candidate;
+				} else {
+					evict = admit(candidate, victim) ? victim : candidate;
+				}
+			} else if (!probation.isEmpty()) {
+				evict = probation.peekFirst();
+			} else if (!protectedDeque.isEmpty()) {
+				evict = protectedDeque.peekFirst();
+			} else {
+				evict = window.peekFirst();
+			}
+			evict.owner.remove(evict);
+			nodes.remove(evict.key);
+			evicted.add(evict.key);
+		}
+	}
+
+	/*
+	 * 最后离开窗口、仍在试用区中的候选者；已经被淘汰的候选者被丢弃。
+	 */
+	private AccessOrderDeque.Node<K> nextCandidate() {
+		while (!candidates.isEmpty() && candidates.peekLast().owner != probation) {
+			candidates.pollLast();
+		}
+		return candidates.peekLast();
+	}
+
+	/*
+	 * 候选者的频率严格高于受害者时才被准入，平局时保留已有的数据。
+	 */
+	private boolean admit(AccessOrderDeque.Node<K> candidate, AccessOrderDeque.Node<K> victim) {
+		return sketch.frequency(candidate.key) > sketch.frequency(victim.key);
+	}
+
+	private void demoteProtected() {
+		while (protectedDeque.weight() > protectedMaximum) {
+			AccessOrderDeque.Node<K> first = protectedDeque.peekFirst();
+			protectedDeque.remove(first);
+			probation.addLast(first);
+		}
+	}
+
+	@Override
+	public void recordRemoval(K key) {
+		AccessOrderDeque.Node<K> node = nodes.remove(key);
+		if (node != null) {
+			node.owner.remove(node);
+		}
+	}
+
+	@Override
+	public long weightedSize() {
+		return window.weight() + probation.weight() + protectedDeque.weight();
+	}
+
+	@Override
+	public long maximumWeight() {
+		return maximumWeight;
+	}
+
+}
@@ -0,0 +1,36 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+/**
+ * 计算缓存条目的权重，用于按“权重总和”而不是“条目个数”来限制缓存大小。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public interface Weigher<A, V> {
+
+	/**
+	 * 返回条目的权重，必须为非负数。权重在条目写入缓存时计算一次，之后不再变化。
+	 *
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	int weigh(A key, V value);
+
+}
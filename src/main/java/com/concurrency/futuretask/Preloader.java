@@ -1,5 +1,7 @@
 package com.concurrency.futuretask;
 
+import com.concurrency.thread.MyThreadFactory;
+
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
@@ -27,7 +29,7 @@ public class Preloader {
                 }
             }
     );
-    private final Thread thread = new Thread(futureTask);
+    private final Thread thread = new MyThreadFactory("preloader").newThread(futureTask);
 
     public void start() {
         thread.start();
@@ -0,0 +1,28 @@
+package com.concurrency.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计数器。基于 {@link LongAdder}：竞争时每个线程累加到不同的单元（条带），读取时才求和，
+ * 所以很多线程同时计数也不会在同一个缓存行上竞争。
+ *
+ * @author Bert Lee 2026年10月18日 18:00
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long n) {
+        count.add(n);
+    }
+
+    /**
+     * 当前的计数，并发更新时是一个近似的快照。
+     */
+    public long count() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,11 @@
+package com.concurrency.metrics;
+
+/**
+ * 读取时才计算的瞬时值，例如队列深度、线程个数。实现必须是线程安全的，并且足够便宜。
+ *
+ * @author Bert Lee 2026年10月18日 18:00
+ */
+public interface Gauge {
+
+    Number value();
+}
@@ -0,0 +1,106 @@
+package com.concurrency.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * 把一个 {@link MetricsRegistry} 作为只读的 JMX MBean 暴露出来，每个展开后的度量（见 {@link MetricsRegistry#snapshot()}）
+ * 是一个属性，可以在 JConsole / VisualVM 中查看。
+ *
+ * <p>注册表中的度量可以在运行时增加，所以属性列表在每次 {@link #getMBeanInfo()} 时重新生成。
+ *
+ * @author Bert Lee 2026年10月18日 18:10
+ */
+public class MetricsMBean implements DynamicMBean {
+    /** 默认的 ObjectName 域 */
+    public static final String DOMAIN = "com.concurrency.metrics";
+
+    private final MetricsRegistry registry;
+
+    public MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 以 com.concurrency.metrics:type=Metrics,name=&lt;注册表名字&gt; 注册到平台 MBeanServer。
+     *
+     * @return 注册使用的名字，用于 {@link #unregister(ObjectName)}
+     * @throws JMException 名字已被占用等
+     */
+    public static ObjectName register(MetricsRegistry registry) throws JMException {
+        ObjectName name = new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(registry.getName()));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(registry), name);
+        return name;
+    }
+
+    /**
+     * 从平台 MBeanServer 中注销，名字未注册时什么都不做。
+     */
+    public static void unregister(ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = registry.snapshot().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> snapshot = registry.snapshot(); // 同一次调用中的属性来自同一个快照
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Number value = snapshot.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Number> entry : registry.snapshot().entrySet()) {
+            attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                    entry.getKey(), true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Metrics of " + registry.getName(),
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, null, null);
+    }
+}
@@ -0,0 +1,119 @@
+package com.concurrency.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 按名字注册的一组计数器、计时器和瞬时值。
+ *
+ * <p>组件在构造时取得自己的度量对象并保存在字段中，之后的更新不再经过注册表，
+ * 所以注册表本身不在热路径上。名字按字典序排列，报告和 JMX 属性因此是稳定的顺序，
+ * 惯例是用"阶段.指标"的形式命名，例如 queue.putBlocked、indexer.file。
+ *
+ * @author Bert Lee 2026年10月18日 18:05
+ */
+public class MetricsRegistry {
+    private final String name;
+    private final ConcurrentMap<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+    public MetricsRegistry(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 返回给定名字的计数器，不存在时创建。
+     */
+    public Counter counter(String name) {
+        return register(name, Counter.class, new Counter());
+    }
+
+    /**
+     * 返回给定名字的计时器，不存在时创建。
+     */
+    public Timer timer(String name) {
+        return register(name, Timer.class, new Timer());
+    }
+
+    /**
+     * 返回给定名字的线程时间，不存在时创建。它也是一个瞬时值，报告为毫秒。
+     */
+    public ThreadTime threadTime(String name) {
+        return register(name, ThreadTime.class, new ThreadTime());
+    }
+
+    /**
+     * 注册（或替换）一个瞬时值。
+     */
+    public void gauge(String name, Gauge gauge) {
+        Object existing = metrics.putIfAbsent(name, gauge);
+        if (existing != null) {
+            if (!(existing instanceof Gauge)) {
+                throw new IllegalArgumentException(name + " is already registered as " + existing.getClass().getSimpleName());
+            }
+            metrics.replace(name, existing, gauge);
+        }
+    }
+
+    public void remove(String name) {
+        metrics.remove(name);
+    }
+
+    /**
+     * 按名字排序的所有度量对象（Counter、Timer 或 Gauge）的只读视图。
+     */
+    public Map<String, Object> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * 把所有度量展开为 名字 -&gt; 数值：计数器和瞬时值直接使用名字，
+     * 计时器展开为 name.count、name.totalMillis、name.meanMicros、name.p50Micros、name.p99Micros 和 name.maxMicros。
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+            String key = entry.getKey();
+            Object metric = entry.getValue();
+            if (metric instanceof Counter) {
+                values.put(key, ((Counter) metric).count());
+            } else if (metric instanceof Timer) {
+                Timer timer = (Timer) metric;
+                values.put(key + ".count", timer.count());
+                values.put(key + ".totalMillis", timer.totalNanos() / 1000000);
+                values.put(key + ".meanMicros", timer.meanNanos() / 1000);
+                values.put(key + ".p50Micros", timer.percentile(50) / 1000);
+                values.put(key + ".p99Micros", timer.percentile(99) / 1000);
+                values.put(key + ".maxMicros", timer.maxNanos() / 1000);
+            } else {
+                Number value;
+                try {
+                    value = ((Gauge) metric).value();
+                } catch (RuntimeException e) { // 一个出错的瞬时值不影响其他度量
+                    value = null;
+                }
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+        }
+        return values;
+    }
+
+    private <T> T register(String name, Class<T> type, T metric) {
+        Object existing = metrics.putIfAbsent(name, metric);
+        if (existing == null) {
+            return metric;
+        }
+        if (!type.isInstance(existing)) {
+            throw new IllegalArgumentException(name + " is already registered as " + existing.getClass().getSimpleName());
+        }
+        return type.cast(existing);
+    }
+}
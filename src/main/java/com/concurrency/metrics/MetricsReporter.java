@@ -0,0 +1,95 @@
+package com.concurrency.metrics;
+
+import com.concurrency.thread.MyThreadFactory;
+
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定期把一个 {@link MetricsRegistry} 的快照写入日志（slf4j，由 logback 输出）。
+ *
+ * <p>每个计数器同时报告自上次报告以来的速率（每秒），{@link #stop()} 时再写一次最终的报告。
+ * 报告在 MyThreadFactory 创建的单个线程中进行，不影响被度量的线程。
+ *
+ * @author Bert Lee 2026年10月18日 18:15
+ */
+public class MetricsReporter {
+    private final MetricsRegistry registry;
+    private final Logger logger;
+
+    private ScheduledExecutorService executor;
+    private final Map<String, Long> lastCounts = new HashMap<>();
+    private long lastReportNanos = System.nanoTime();
+
+    public MetricsReporter(MetricsRegistry registry, Logger logger) {
+        this.registry = registry;
+        this.logger = logger;
+    }
+
+    /**
+     * 每隔 period 报告一次。
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (executor != null) {
+            throw new IllegalStateException("Already started");
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new MyThreadFactory("metrics-reporter"));
+        executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    report();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to report metrics of {}", registry.getName(), e);
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * 停止定期报告，并写一次最终的报告。
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            report();
+        }
+    }
+
+    /**
+     * 立即写一次报告。
+     */
+    public synchronized void report() {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        double seconds = Math.max(now - lastReportNanos, 1) / 1e9;
+        lastReportNanos = now;
+
+        StringBuilder report = new StringBuilder(registry.getName()).append(':');
+        Map<String, Object> metrics = registry.getMetrics();
+        for (Map.Entry<String, Number> entry : registry.snapshot().entrySet()) {
+            String key = entry.getKey();
+            Number value = entry.getValue();
+            report.append(' ').append(key).append('=');
+            if (value instanceof Double || value instanceof Float) {
+                report.append(String.format("%.3f", value.doubleValue()));
+            } else {
+                report.append(value);
+            }
+            if (metrics.get(key) instanceof Counter) {
+                Long last = lastCounts.put(key, value.longValue());
+                long delta = value.longValue() - ((last == null) ? 0 : last);
+                report.append(" (").append(Math.round(delta / seconds)).append("/s)");
+            }
+        }
+        logger.info(report.toString());
+    }
+}
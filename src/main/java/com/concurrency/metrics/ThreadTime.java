@@ -0,0 +1,56 @@
+package com.concurrency.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一组线程累计运行的时间（线程数 × 时间，纳秒），线程个数随时间变化时也能得到准确的积分。
+ * 用来把多个线程的累计等待时间换算成每个线程平均有多少比例的时间在等待。
+ *
+ * <p>作为瞬时值报告时的单位是毫秒。start/stop 只在线程开始和结束时调用，所以用锁就够了。
+ *
+ * @author Bert Lee 2026年10月18日 18:00
+ */
+public final class ThreadTime implements Gauge {
+    private int active;
+    private long totalNanos;
+    private long since = System.nanoTime();
+
+    /**
+     * threads 个线程开始运行。
+     */
+    public synchronized void start(int threads) {
+        advance();
+        active += threads;
+    }
+
+    /**
+     * threads 个线程结束运行。
+     */
+    public synchronized void stop(int threads) {
+        advance();
+        active -= threads;
+    }
+
+    public synchronized int active() {
+        return active;
+    }
+
+    /**
+     * 到目前为止累计的线程时间（纳秒），包括还在运行的线程。
+     */
+    public synchronized long totalNanos() {
+        advance();
+        return totalNanos;
+    }
+
+    @Override
+    public Number value() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos());
+    }
+
+    private void advance() {
+        long now = System.nanoTime();
+        totalNanos += active * (now - since);
+        since = now;
+    }
+}
@@ -0,0 +1,65 @@
+package com.concurrency.metrics;
+
+import com.concurrency.synchronization.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计时器：记录每次耗时的分布（{@link LatencyHistogram}，纳秒）以及总耗时。
+ * 记录一次只是几次无锁的原子操作。
+ *
+ * @author Bert Lee 2026年10月18日 18:00
+ */
+public final class Timer {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * 记录一次耗时。
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        histogram.recordValue(nanos);
+        totalNanos.add(nanos);
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    public long count() {
+        return histogram.getTotalCount();
+    }
+
+    /**
+     * 所有记录的耗时之和（纳秒）。
+     */
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * 给定分位（0 ~ 100）上的耗时（纳秒）。
+     */
+    public long percentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    public long maxNanos() {
+        return histogram.getMaxValue();
+    }
+
+    public double meanNanos() {
+        return histogram.getMean();
+    }
+
+    /**
+     * 当前分布的副本，例如用来计算一个报告周期内的分位数。
+     */
+    public LatencyHistogram snapshot() {
+        return histogram.copy();
+    }
+}
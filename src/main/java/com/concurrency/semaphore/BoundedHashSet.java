@@ -13,6 +13,9 @@ import java.util.concurrent.Semaphore;
  * 同样，remove操作释放一个许可，使更多的元素能够添加到容器中。
  * 底层的Set实现并不知道关于边界的任何信息，这是由 BoundedHashSet 来处理的。
  *
+ * <p>每次 add/remove 都要经过同一个 synchronizedSet 监视器，多个线程同时访问时会串行化，
+ * 需要扩展性时使用 {@link ConcurrentBoundedHashSet}。
+ *
  * @author Bert Lee 2015年08月16日 19:46
  */
 public class BoundedHashSet<T> {
@@ -0,0 +1,186 @@
+package com.concurrency.semaphore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.Semaphore;
+
+/**
+ * int 元素的 {@link BoundedHashSet}，散列表、删除和堆外存储的做法与 {@link BoundedLongHashSet} 相同，
+ * 每个槽位只占 4 字节。适合 int 范围内的编号，例如文档编号或者连接编号。
+ *
+ * @author Bert Lee 2026年10月18日 23:30
+ */
+public class BoundedIntHashSet {
+    static final int MAX_BOUND = 1 << 28; // 表最多 2^30 个槽位
+    private static final int CHUNK_BITS = 24; // 堆外的每块 2^24 个槽位（64 MB）
+
+    private final Semaphore semaphore;
+    private final int bound;
+    private final int mask;
+    private final int[] heapSlots;
+    private final IntBuffer[] directSlots;
+    private final int chunkMask;
+
+    // 以下字段在 this 上同步
+    private boolean containsZero;
+    private int size;
+
+    public BoundedIntHashSet(int bound) {
+        this(bound, false);
+    }
+
+    /**
+     * @param offHeap 槽位是否放在直接内存中
+     */
+    public BoundedIntHashSet(int bound, boolean offHeap) {
+        if (bound <= 0 || bound > MAX_BOUND) {
+            throw new IllegalArgumentException("bound: " + bound);
+        }
+        this.bound = bound;
+        this.semaphore = new Semaphore(bound);
+        int capacity = Integer.highestOneBit(bound) << 2; // 2 × bound < capacity ≤ 4 × bound
+        this.mask = capacity - 1;
+        if (offHeap) {
+            int chunkSize = Math.min(capacity, 1 << CHUNK_BITS);
+            this.heapSlots = null;
+            this.directSlots = new IntBuffer[capacity / chunkSize];
+            this.chunkMask = chunkSize - 1;
+            for (int i = 0; i < directSlots.length; i++) {
+                directSlots[i] = ByteBuffer.allocateDirect(chunkSize * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+        } else {
+            this.heapSlots = new int[capacity];
+            this.directSlots = null;
+            this.chunkMask = 0;
+        }
+    }
+
+    /**
+     * 加入元素，Set 已满时一直等待。
+     *
+     * @return 元素已经存在时返回 false
+     */
+    public boolean add(int value) throws InterruptedException {
+        semaphore.acquire();
+        boolean wasAdded = false;
+        try {
+            wasAdded = insert(value);
+            return wasAdded;
+        } finally {
+            if (!wasAdded) {
+                semaphore.release();
+            }
+        }
+    }
+
+    public boolean remove(int value) {
+        boolean wasRemoved = delete(value);
+        if (wasRemoved) {
+            semaphore.release();
+        }
+        return wasRemoved;
+    }
+
+    public synchronized boolean contains(int value) {
+        return (value == 0) ? containsZero : find(value) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getBound() {
+        return bound;
+    }
+
+    public boolean isOffHeap() {
+        return directSlots != null;
+    }
+
+    private synchronized boolean insert(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = hash(value) & mask;
+        int current;
+        while ((current = get(slot)) != 0) {
+            if (current == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        set(slot, value);
+        size++;
+        return true;
+    }
+
+    private synchronized boolean delete(int value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int hole = find(value);
+        if (hole < 0) {
+            return false;
+        }
+        // backward-shift：探测链上起始位置不在 (hole, slot] 之间的元素可以移到空洞中
+        int slot = hole;
+        int current;
+        while ((current = get(slot = (slot + 1) & mask)) != 0) {
+            int home = hash(current) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                set(hole, current);
+                hole = slot;
+            }
+        }
+        set(hole, 0);
+        size--;
+        return true;
+    }
+
+    private int find(int value) {
+        int slot = hash(value) & mask;
+        int current;
+        while ((current = get(slot)) != 0) {
+            if (current == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int get(int slot) {
+        return (heapSlots != null) ? heapSlots[slot] : directSlots[slot >>> CHUNK_BITS].get(slot & chunkMask);
+    }
+
+    private void set(int slot, int value) {
+        if (heapSlots != null) {
+            heapSlots[slot] = value;
+        } else {
+            directSlots[slot >>> CHUNK_BITS].put(slot & chunkMask, value);
+        }
+    }
+
+    /*
+     * MurmurHash3 的 fmix32，理由见 BoundedLongHashSet.hash。
+     */
+    private static int hash(int value) {
+        value ^= value >>> 16;
+        value *= 0x85ebca6b;
+        value ^= value >>> 13;
+        value *= 0xc2b2ae35;
+        value ^= value >>> 16;
+        return value;
+    }
+}
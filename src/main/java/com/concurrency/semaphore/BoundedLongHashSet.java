@@ -0,0 +1,200 @@
+package com.concurrency.semaphore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.Semaphore;
+
+/**
+ * long 元素的 {@link BoundedHashSet}：同样用 Semaphore 设置边界，add 在满了以后阻塞，remove 释放许可，
+ * 但元素直接存放在 long 数组中，不装箱，不为每个元素分配 HashMap.Node。
+ *
+ * <pre>
+ * 散列表
+ *    开放寻址、线性探测，0 表示空槽（元素 0 用一个单独的标志表示）。
+ *    元素个数不会超过 bound，所以表的大小在构造时就确定为大于 2 × bound 的最小的 2 的幂，永远不需要扩容。
+ * 删除
+ *    backward-shift：把删除位置之后同一探测链上的元素依次前移填补空洞，不留墓碑，探测链不会随着删除变长。
+ * 堆外存储
+ *    offHeap 为 true 时槽位放在直接内存（ByteBuffer.allocateDirect）中，按块分配，
+ *    不占用 -Xmx 的堆空间，适合 bound 很大的情况；直接内存在 Set 被回收后才释放。
+ * </pre>
+ *
+ * <p>与 BoundedHashSet 的 synchronizedSet 一样，对散列表的访问在 Set 的监视器上同步。
+ * 每个元素只占一个（最多两个）8 字节的槽位，而装箱的 Long 加上 HashMap.Node 大约需要 50 字节。
+ *
+ * @author Bert Lee 2026年10月18日 23:20
+ */
+public class BoundedLongHashSet {
+    static final int MAX_BOUND = 1 << 28; // 表最多 2^30 个槽位
+    private static final int CHUNK_BITS = 24; // 堆外的每块 2^24 个槽位（128 MB）
+
+    private final Semaphore semaphore;
+    private final int bound;
+    private final int mask;
+    private final long[] heapSlots;
+    private final LongBuffer[] directSlots;
+    private final int chunkMask;
+
+    // 以下字段在 this 上同步
+    private boolean containsZero;
+    private int size;
+
+    public BoundedLongHashSet(int bound) {
+        this(bound, false);
+    }
+
+    /**
+     * @param offHeap 槽位是否放在直接内存中
+     */
+    public BoundedLongHashSet(int bound, boolean offHeap) {
+        if (bound <= 0 || bound > MAX_BOUND) {
+            throw new IllegalArgumentException("bound: " + bound);
+        }
+        this.bound = bound;
+        this.semaphore = new Semaphore(bound);
+        int capacity = Integer.highestOneBit(bound) << 2; // 2 × bound < capacity ≤ 4 × bound
+        this.mask = capacity - 1;
+        if (offHeap) {
+            int chunkSize = Math.min(capacity, 1 << CHUNK_BITS);
+            this.heapSlots = null;
+            this.directSlots = new LongBuffer[capacity / chunkSize];
+            this.chunkMask = chunkSize - 1;
+            for (int i = 0; i < directSlots.length; i++) {
+                directSlots[i] = ByteBuffer.allocateDirect(chunkSize * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+        } else {
+            this.heapSlots = new long[capacity];
+            this.directSlots = null;
+            this.chunkMask = 0;
+        }
+    }
+
+    /**
+     * 加入元素，Set 已满时一直等待。
+     *
+     * @return 元素已经存在时返回 false
+     */
+    public boolean add(long value) throws InterruptedException {
+        semaphore.acquire();
+        boolean wasAdded = false;
+        try {
+            wasAdded = insert(value);
+            return wasAdded;
+        } finally {
+            if (!wasAdded) {
+                semaphore.release();
+            }
+        }
+    }
+
+    public boolean remove(long value) {
+        boolean wasRemoved = delete(value);
+        if (wasRemoved) {
+            semaphore.release();
+        }
+        return wasRemoved;
+    }
+
+    public synchronized boolean contains(long value) {
+        return (value == 0) ? containsZero : find(value) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getBound() {
+        return bound;
+    }
+
+    public boolean isOffHeap() {
+        return directSlots != null;
+    }
+
+    private synchronized boolean insert(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = hash(value) & mask;
+        long current;
+        while ((current = get(slot)) != 0) {
+            if (current == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        set(slot, value);
+        size++;
+        return true;
+    }
+
+    private synchronized boolean delete(long value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int hole = find(value);
+        if (hole < 0) {
+            return false;
+        }
+        // backward-shift：探测链上起始位置不在 (hole, slot] 之间的元素可以移到空洞中
+        int slot = hole;
+        long current;
+        while ((current = get(slot = (slot + 1) & mask)) != 0) {
+            int home = hash(current) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                set(hole, current);
+                hole = slot;
+            }
+        }
+        set(hole, 0);
+        size--;
+        return true;
+    }
+
+    private int find(long value) {
+        int slot = hash(value) & mask;
+        long current;
+        while ((current = get(slot)) != 0) {
+            if (current == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private long get(int slot) {
+        return (heapSlots != null) ? heapSlots[slot] : directSlots[slot >>> CHUNK_BITS].get(slot & chunkMask);
+    }
+
+    private void set(int slot, long value) {
+        if (heapSlots != null) {
+            heapSlots[slot] = value;
+        } else {
+            directSlots[slot >>> CHUNK_BITS].put(slot & chunkMask, value);
+        }
+    }
+
+    /*
+     * 连续分配的编号（最常见的用法）直接取低位会让线性探测形成很长的连续段，先打散（MurmurHash3 的 fmix64）。
+     */
+    private static int hash(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+}
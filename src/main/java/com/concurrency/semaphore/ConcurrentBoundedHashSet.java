@@ -0,0 +1,241 @@
+package com.concurrency.semaphore;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界的并发 Set，语义与 {@link BoundedHashSet} 相同（满了以后 add 阻塞，直到有元素被删除），但没有全局的锁。
+ *
+ * <pre>
+ * 元素
+ *    存放在 ConcurrentHashMap.newKeySet() 中，不同元素的 add/remove/contains 互不阻塞。
+ * 容量
+ *    许可分散在若干个条带（stripe）上，条带数是不小于 CPU 个数的 2 的幂，每个条带独占一个缓存行。
+ *    线程先在按线程编号散列到的条带上 CAS 取一个许可，取不到再依次尝试其他条带；
+ *    删除元素时许可还回当前线程的条带。许可只会在条带之间迁移，总数不变，所以元素个数永远不会超过 bound。
+ * 阻塞
+ *    只有所有条带都取不到许可时才进入 ReentrantLock，在 notFull 条件上等待；
+ *    归还许可的线程只在有等待者时才去加锁唤醒，所以没满的时候 add/remove 不会碰到锁。
+ * 公平
+ *    非公平模式下新来的线程可以抢在等待者前面拿到许可（吞吐量更高）；
+ *    公平模式下有等待者时新来的线程直接排队，等待者大致按到达的顺序被唤醒。
+ * </pre>
+ *
+ * <p>已经在 Set 中的元素不占用许可：重复的 add 直接返回 false，即使 Set 已满也不会阻塞。不允许 null 元素。
+ *
+ * @author Bert Lee 2026年10月18日 22:40
+ */
+public class ConcurrentBoundedHashSet<T> {
+    private static final int PADDING = 16; // 16 个 int 是一个 64 字节的缓存行
+
+    private final Set<T> set = ConcurrentHashMap.newKeySet();
+    private final int bound;
+    private final boolean fair;
+    private final AtomicIntegerArray permits; // 第 i 个条带的许可数在 permits[i × PADDING]
+    private final int stripeMask;
+
+    private final ReentrantLock lock;
+    private final Condition notFull;
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public ConcurrentBoundedHashSet(int bound) {
+        this(bound, false);
+    }
+
+    /**
+     * @param fair 满了以后等待的线程是否按到达的顺序得到许可
+     */
+    public ConcurrentBoundedHashSet(int bound, boolean fair) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound: " + bound);
+        }
+        this.bound = bound;
+        this.fair = fair;
+        int stripes = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() - 1, 1)) << 1;
+        this.stripeMask = stripes - 1;
+        this.permits = new AtomicIntegerArray(stripes * PADDING);
+        for (int i = 0; i < stripes; i++) {
+            permits.set(i * PADDING, bound / stripes + (i < bound % stripes ? 1 : 0));
+        }
+        this.lock = new ReentrantLock(fair);
+        this.notFull = lock.newCondition();
+    }
+
+    /**
+     * 加入元素，Set 已满时一直等待。
+     *
+     * @return 元素已经存在时返回 false
+     */
+    public boolean add(T o) throws InterruptedException {
+        return add(o, false, 0L);
+    }
+
+    /**
+     * 加入元素，Set 已满时最多等待给定的时间。
+     *
+     * @return 元素已经存在，或者超时时返回 false
+     */
+    public boolean tryAdd(T o, long timeout, TimeUnit unit) throws InterruptedException {
+        return add(o, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * 加入元素，不等待。
+     *
+     * @return 元素已经存在，或者 Set 已满时返回 false
+     */
+    public boolean offer(T o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        if (set.contains(o) || (fair && waiters.get() > 0) || !tryAcquire()) {
+            return false;
+        }
+        return insert(o);
+    }
+
+    public boolean remove(Object o) {
+        boolean wasRemoved = set.remove(o);
+        if (wasRemoved) {
+            release();
+        }
+        return wasRemoved;
+    }
+
+    public boolean contains(Object o) {
+        return set.contains(o);
+    }
+
+    public int size() {
+        return set.size();
+    }
+
+    public boolean isEmpty() {
+        return set.isEmpty();
+    }
+
+    public int getBound() {
+        return bound;
+    }
+
+    public boolean isFair() {
+        return fair;
+    }
+
+    /**
+     * 当前可用的许可数（各个条带之和），只是一个估计值。
+     */
+    public int availablePermits() {
+        int sum = 0;
+        for (int i = 0; i <= stripeMask; i++) {
+            sum += permits.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * 正在等待许可的线程数，只是一个估计值。
+     */
+    public int getWaitingThreads() {
+        return waiters.get();
+    }
+
+    private boolean add(T o, boolean timed, long nanos) throws InterruptedException {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (set.contains(o)) {
+            return false;
+        }
+        if ((!fair || waiters.get() == 0) && tryAcquire()) {
+            return insert(o);
+        }
+        if (!awaitPermit(timed, nanos)) {
+            return false;
+        }
+        return insert(o);
+    }
+
+    /*
+     * 慢路径：先登记为等待者再检查许可，归还许可的线程先还许可再检查等待者，所以唤醒不会丢失。
+     */
+    private boolean awaitPermit(boolean timed, long nanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            boolean queued = fair && waiters.get() > 0; // 公平模式：前面有人在等，先排队
+            waiters.incrementAndGet();
+            try {
+                while (queued || !tryAcquire()) {
+                    queued = false;
+                    if (!timed) {
+                        notFull.await();
+                    } else if (nanos <= 0L) {
+                        return false;
+                    } else {
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                }
+                return true;
+            } finally {
+                waiters.decrementAndGet();
+                if (waiters.get() > 0 && availablePermits() > 0) { // 把没用掉的唤醒传给下一个等待者
+                    notFull.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean insert(T o) {
+        boolean wasAdded = false;
+        try {
+            wasAdded = set.add(o);
+            return wasAdded;
+        } finally {
+            if (!wasAdded) { // 另一个线程同时加入了相同的元素
+                release();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        int home = stripe();
+        for (int i = 0; i <= stripeMask; i++) {
+            int index = ((home + i) & stripeMask) * PADDING;
+            int available;
+            while ((available = permits.get(index)) > 0) {
+                if (permits.compareAndSet(index, available, available - 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void release() {
+        permits.incrementAndGet(stripe() * PADDING);
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.synchronization;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.concurrency.thread.MyThreadFactory;
+
+/**
+ * 基于起始门/结束门的压测工具，是 {@link TimeStatsLatch#timeTasks(int, Runnable)} 的改进版本。
+ *
+ * <pre>
+ * TimeStatsLatch.timeTasks 的不足
+ *    1. 只用 System.currentTimeMillis() 统计总时间，没有单个任务的延迟分布；
+ *    2. 每次都为每个任务新建线程，并且在线程全部就绪之前就开始计时，线程的启动开销也被算了进去。
+ * 改进
+ *    1. 用 System.nanoTime() 记录每个任务的延迟，写入每个工作线程自己的 {@link LatencyHistogram}，结束后合并，
+ *       报告 p50/p99/p99.9/max 和吞吐量；
+ *    2. 工作线程池在构造时就全部启动，并在多次运行之间重用；所有线程都到达“就绪门”之后才打开起始门并开始计时；
+ *    3. 支持预热（{@link #warmUp(Runnable, int)}），让 JIT 编译完成之后再测量；
+ *    4. 固定速率模式（{@link #runAtFixedRate(Runnable, double, long, TimeUnit)}）：
+ *       每个请求的延迟从它“本应开始”的时间算起，而不是从实际开始的时间算起，
+ *       被测系统停顿时积压的请求都会计入延迟，修正了协调遗漏（coordinated omission）。
+ * </pre>
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class LatencyHarness {
+
+	private final int nThreads;
+	private final ThreadPoolExecutor workers;
+
+	public LatencyHarness(int nThreads) {
+		if (nThreads <= 0) {
+			throw new IllegalArgumentException("nThreads must be greater than 0: " + nThreads);
+		}
+		this.nThreads = nThreads;
+		this.workers = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new MyThreadFactory("LatencyHarness"));
+		this.workers.prestartAllCoreThreads(); // 线程的启动开销不计入测量
+	}
+
+	/**
+	 * 预热：与 {@link #run(Runnable, int)} 相同，只是结果通常被丢弃。
+	 */
+	public LatencyReport warmUp(Runnable task, int iterationsPerThread) throws InterruptedException {
+		return run(task, iterationsPerThread);
+	}
+
+	/**
+	 * 闭环模式：每个线程连续执行 iterationsPerThread 次任务，一个任务完成后立即开始下一个。
+	 *
+	 * @param task
+	 * @param iterationsPerThread
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public LatencyReport run(final Runnable task, final int iterationsPerThread) throws InterruptedException {
+		return execute(new Load() {
+			@Override
+			public void run(LatencyHistogram histogram, AtomicLong errors, long startTime, int worker) {
+				for (int i = 0; i < iterationsPerThread; i++) {
+					long start = System.nanoTime();
+					runTask(task, errors);
+					histogram.recordValue(System.nanoTime() - start);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 固定速率模式：所有线程一共以 opsPerSecond 的速率发起任务，持续 duration。
+	 *
+	 * <p>每个线程按照固定的时间表发起请求，延迟 = 完成时间 - 计划开始时间。
+	 * 线程数需要足够多，使得被测系统正常时每个线程都能跟上自己的时间表。
+	 *
+	 * @param task
+	 * @param opsPerSecond
+	 * @param duration
+	 * @param unit
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public LatencyReport runAtFixedRate(final Runnable task, double opsPerSecond, long duration, TimeUnit unit)
+			throws InterruptedException {
+		if (opsPerSecond <= 0) {
+			throw new IllegalArgumentException("opsPerSecond must be greater than 0: " + opsPerSecond);
+		}
+		final long intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) * nThreads / opsPerSecond));
+		final long durationNanos = unit.toNanos(duration);
+
+		return execute(new Load() {
+			@Override
+			public void run(LatencyHistogram histogram, AtomicLong errors, long startTime, int worker) {
+				long endTime = startTime + durationNanos;
+				long intended = startTime + worker * intervalNanos / nThreads; // 错开各个线程的发起时间
+				while (intended - endTime < 0) {
+					long now;
+					while ((now = System.nanoTime()) - intended < 0) {
+						LockSupport.parkNanos(intended - now);
+					}
+					runTask(task, errors);
+					histogram.recordValue(System.nanoTime() - intended);
+					intended += intervalNanos;
+				}
+			}
+		});
+	}
+
+	private LatencyReport execute(final Load load) throws InterruptedException {
+		final CountDownLatch readyGate = new CountDownLatch(nThreads); // 就绪门
+		final CountDownLatch startGate = new CountDownLatch(1); // 起始门
+		final CountDownLatch endGate = new CountDownLatch(nThreads); // 结束门
+		final LatencyHistogram[] histograms = new LatencyHistogram[nThreads];
+		final AtomicLong errors = new AtomicLong();
+		final long[] startTime = new long[1];
+
+		for (int i = 0; i < nThreads; i++) {
+			final int worker = i;
+			histograms[i] = new LatencyHistogram();
+			workers.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						readyGate.countDown();
+						startGate.await(); // 在启动门上等待
+						load.run(histograms[worker], errors, startTime[0], worker);
+					} catch (InterruptedException ignored) {
+						Thread.currentThread().interrupt();
+					} finally {
+						endGate.countDown();
+					}
+				}
+			});
+		}
+
+		readyGate.await(); // 所有线程都就绪后才开始计时
+		startTime[0] = System.nanoTime(); // 由 startGate.countDown() 安全发布
+		startGate.countDown();
+		endGate.await();
+		long elapsed = System.nanoTime() - startTime[0];
+
+		LatencyHistogram merged = new LatencyHistogram();
+		for (LatencyHistogram histogram : histograms) {
+			merged.add(histogram);
+		}
+		return new LatencyReport(merged, elapsed, errors.get());
+	}
+
+	private static void runTask(Runnable task, AtomicLong errors) {
+		try {
+			task.run();
+		} catch (RuntimeException e) {
+			errors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 关闭工作线程池。
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+	private interface Load {
+		void run(LatencyHistogram histogram, AtomicLong errors, long startTime, int worker);
+	}
+
+}
@@ -0,0 +1,204 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.synchronization;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * HDR 风格的延迟直方图，记录非负的 long 值（通常是纳秒）。
+ *
+ * <pre>
+ * 桶的布局（对数-线性）
+ *    [0, 256) 的值每个值一个桶；之后每个 2 的幂区间分成 128 个等宽的桶，
+ *    相对误差不超过 1/128（约 0.8%），覆盖整个 long 的范围只需要约 7300 个桶（不到 60KB）。
+ * 线程安全
+ *    每个桶是一个 AtomicLongArray 中的计数器，记录一次只是几次无锁的原子操作，可以被多个线程同时记录；
+ *    每次记录都要更新的总数和总和用 LongAdder，最大值和最小值用 LongAccumulator，
+ *    竞争激烈时分散到各个线程的单元上，不会在同一个 AtomicLong 上反复 CAS；
+ *    压测时也可以每个线程使用自己的直方图，结束后再用 {@link #add(LatencyHistogram)} 合并，彻底避免竞争。
+ * 协调遗漏（coordinated omission）
+ *    {@link #recordValueWithExpectedInterval(long, long)} 在一次长时间的停顿之后补记那些本应发出、
+ *    却因为停顿而被推迟的请求，使分位数反映的是用户实际感受到的延迟。
+ * </pre>
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 8;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS; // 256
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1; // 128
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT + SUB_BUCKET_COUNT;
+
+	private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.max(left, right);
+		}
+	};
+	private static final LongBinaryOperator MIN = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(long left, long right) {
+			return Math.min(left, right);
+		}
+	};
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalValue = new LongAdder();
+	private final LongAccumulator maxValue = new LongAccumulator(MAX, 0L);
+	private final LongAccumulator minValue = new LongAccumulator(MIN, Long.MAX_VALUE);
+
+	/**
+	 * 记录一个值。
+	 *
+	 * @param value 非负数
+	 */
+	public void recordValue(long value) {
+		recordValue(value, 1);
+	}
+
+	/**
+	 * 记录一个值，并补记因为这次停顿而被推迟的请求：
+	 * 如果 value 超过了预期的请求间隔，则再记录 value - interval、value - 2*interval…… 直到小于 interval。
+	 *
+	 * @param value 非负数
+	 * @param expectedInterval 预期的请求间隔，不大于 0 时不做修正
+	 */
+	public void recordValueWithExpectedInterval(long value, long expectedInterval) {
+		recordValue(value);
+		if (expectedInterval <= 0) {
+			return;
+		}
+		for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+			recordValue(missing);
+		}
+	}
+
+	private void recordValue(long value, long count) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value: " + value);
+		}
+		counts.addAndGet(indexOf(value), count);
+		totalCount.add(count);
+		totalValue.add(value * count);
+		maxValue.accumulate(value); // 值没有变化时不写
+		minValue.accumulate(value);
+	}
+
+	/**
+	 * 把 other 中的记录合并到当前直方图。
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			long count = other.counts.get(i);
+			if (count != 0) {
+				counts.addAndGet(i, count);
+			}
+		}
+		totalCount.add(other.totalCount.sum());
+		totalValue.add(other.totalValue.sum());
+		maxValue.accumulate(other.maxValue.get());
+		minValue.accumulate(other.minValue.get());
+	}
+
+	/**
+	 * 返回给定百分位上的值（所在桶的上界），没有任何记录时返回 0。
+	 *
+	 * @param percentile 范围是 [0, 100]
+	 * @return
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = getTotalCount();
+		if (total == 0) {
+			return 0;
+		}
+		double p = Math.min(Math.max(percentile, 0.0), 100.0);
+		long countAtPercentile = Math.max(1L, (long) Math.ceil(p / 100.0 * total));
+
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen >= countAtPercentile) {
+				return Math.min(highestEquivalentValue(i), getMaxValue());
+			}
+		}
+		return getMaxValue();
+	}
+
+	public long getTotalCount() {
+		return totalCount.sum();
+	}
+
+	public long getMaxValue() {
+		return maxValue.get();
+	}
+
+	public long getMinValue() {
+		return (getTotalCount() == 0) ? 0 : minValue.get();
+	}
+
+	public double getMean() {
+		long total = getTotalCount();
+		return (total == 0) ? 0.0 : (double) totalValue.sum() / total;
+	}
+
+	/**
+	 * 清空所有记录。与并发的记录操作同时进行时，结果只是近似的。
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.reset();
+		totalValue.reset();
+		maxValue.reset();
+		minValue.reset();
+	}
+
+	/**
+	 * 返回当前记录的一个副本。
+	 */
+	public LatencyHistogram copy() {
+		LatencyHistogram copy = new LatencyHistogram();
+		copy.add(this);
+		return copy;
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int msb = 63 - Long.numberOfLeadingZeros(value);
+		int shift = msb - (SUB_BUCKET_BITS - 1); // 使 value >>> shift 落在 [128, 256)
+		return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+		long subBucket = index - shift * SUB_BUCKET_HALF_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,95 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.synchronization;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次压测的结果：延迟分位数（纳秒）和吞吐量。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public final class LatencyReport {
+
+	private final LatencyHistogram histogram;
+	private final long elapsedNanos;
+	private final long errorCount;
+
+	LatencyReport(LatencyHistogram histogram, long elapsedNanos, long errorCount) {
+		this.histogram = histogram;
+		this.elapsedNanos = elapsedNanos;
+		this.errorCount = errorCount;
+	}
+
+	public long getCount() {
+		return histogram.getTotalCount();
+	}
+
+	/**
+	 * 抛出了异常的任务数，这些任务的延迟同样被记录。
+	 */
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * 每秒完成的任务数。
+	 */
+	public double getThroughput() {
+		return (elapsedNanos == 0) ? 0.0 : getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	public long getP50() {
+		return histogram.getValueAtPercentile(50.0);
+	}
+
+	public long getP99() {
+		return histogram.getValueAtPercentile(99.0);
+	}
+
+	public long getP999() {
+		return histogram.getValueAtPercentile(99.9);
+	}
+
+	public long getMax() {
+		return histogram.getMaxValue();
+	}
+
+	public double getMean() {
+		return histogram.getMean();
+	}
+
+	/**
+	 * 每个任务的延迟分布，可以查询任意百分位。
+	 */
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, errors=%d, throughput=%.1f ops/s, mean=%.1fus, p50=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus",
+				getCount(), errorCount, getThroughput(), getMean() / 1000.0,
+				getP50() / 1000.0, getP99() / 1000.0, getP999() / 1000.0, getMax() / 1000.0);
+	}
+
+}
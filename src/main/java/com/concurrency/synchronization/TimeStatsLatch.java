@@ -30,6 +30,8 @@ public class TimeStatsLatch {
 	 * 模拟真实并发应用程序，并进行执行时间性能统计。
 	 * 
 	 * <p>测试N个线程并发执行某个任务时需要的时间。
+	 * 
+	 * <p>只有毫秒级的总时间，并且包含了线程的启动开销；需要延迟分布时请使用 {@link LatencyHarness}。
 	 *
 	 * @param nThreads
 	 * @param task
@@ -0,0 +1,126 @@
+package com.concurrency.thread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linux 上的线程 CPU 亲和性。
+ *
+ * <p>绑定通过 util-linux 的 taskset（内部调用 sched_setaffinity）作用在线程的内核线程号（tid）上，
+ * tid 从 /proc/thread-self 读出，所以不需要 JNI 或 FFM，在 JDK 8 上也可以使用。
+ * 启动一个进程需要几毫秒，只适合在长期存在的线程启动时调用一次。
+ * 不是 Linux、没有 taskset 或者调用失败（例如容器的 cpuset 不允许）时什么都不做，返回 false。
+ *
+ * @author Bert Lee 2026年10月18日 20:10
+ */
+public final class Affinity {
+    private static final Logger logger = LoggerFactory.getLogger(Affinity.class);
+
+    private static final long TASKSET_TIMEOUT_SECONDS = 5;
+    private static final String TASKSET = findTaskset();
+
+    private Affinity() {
+    }
+
+    public static boolean isSupported() {
+        return TASKSET != null && new File("/proc/thread-self").exists();
+    }
+
+    /**
+     * 当前线程的内核线程号，无法得到时返回 -1。
+     */
+    public static long currentThreadNativeId() {
+        try {
+            Path link = Files.readSymbolicLink(Paths.get("/proc/thread-self")); // 形如 1234/task/1240
+            return Long.parseLong(link.getFileName().toString());
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 把当前线程绑定到给定的 CPU 上。
+     *
+     * @return 绑定成功时返回 true
+     */
+    public static boolean setCurrentThreadAffinity(int cpu) {
+        long tid = currentThreadNativeId();
+        if (!isSupported() || tid < 0) {
+            return false;
+        }
+        try {
+            Process process = new ProcessBuilder(TASKSET, "-p", "-c", Integer.toString(cpu), Long.toString(tid))
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null")))
+                    .start();
+            if (!process.waitFor(TASKSET_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroy();
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                logger.debug("taskset could not bind thread {} to CPU {}", tid, cpu);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.debug("Failed to run taskset", e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 当前线程最近一次运行所在的 CPU，无法得到时返回 -1。
+     */
+    public static int currentCpu() {
+        return cpuOf(new File("/proc/thread-self/stat"));
+    }
+
+    /**
+     * 本进程中内核线程号为 tid 的线程最近一次运行所在的 CPU，无法得到时返回 -1。
+     */
+    public static int currentCpu(long tid) {
+        return (tid < 0) ? -1 : cpuOf(new File("/proc/self/task/" + tid + "/stat"));
+    }
+
+    /*
+     * /proc/[pid]/task/[tid]/stat 的第 39 个字段是 processor。第 2 个字段（线程名）在括号中，可能包含空格，
+     * 所以从最后一个右括号之后开始数，那里是第 3 个字段。
+     */
+    static int cpuOf(File stat) {
+        try {
+            String line = new String(Files.readAllBytes(stat.toPath()), StandardCharsets.UTF_8);
+            String[] fields = line.substring(line.lastIndexOf(')') + 2).trim().split(" ");
+            return Integer.parseInt(fields[39 - 3]);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static String findTaskset() {
+        String path = System.getenv("PATH");
+        String[] directories = (path == null) ? new String[0] : path.split(File.pathSeparator);
+        for (String directory : directories) {
+            File taskset = new File(directory, "taskset");
+            if (taskset.canExecute()) {
+                return taskset.getPath();
+            }
+        }
+        for (String candidate : new String[] {"/usr/bin/taskset", "/bin/taskset"}) {
+            if (new File(candidate).canExecute()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.concurrency.thread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 线程池中的线程如何绑定到 CPU 上。线程按创建的顺序依次领取 {@link #order(CpuTopology)} 中的 CPU，循环使用。
+ *
+ * <pre>
+ * NONE      不绑定，由操作系统调度
+ * SPREAD    相邻的线程依次落在不同的 NUMA 节点上，每个节点内先用完物理核再用超线程，
+ *           适合访问各自内存、需要更多缓存和内存带宽的线程
+ * PACK      先填满一个 NUMA 节点（同样先物理核后超线程）再用下一个，
+ *           适合频繁共享数据、在屏障上同步的线程，避免跨插槽的缓存一致性流量和远程内存访问
+ * </pre>
+ *
+ * @author Bert Lee 2026年10月18日 20:05
+ */
+public enum CpuPlacement {
+    NONE {
+        @Override
+        public int[] order(CpuTopology topology) {
+            return new int[0];
+        }
+    },
+    SPREAD {
+        @Override
+        public int[] order(CpuTopology topology) {
+            // 每个节点内按 (超线程序号, 物理核) 排列，再在节点之间轮流取
+            TreeMap<Integer, List<Integer>> byNode = new TreeMap<>();
+            for (Integer index : sortedIndexes(topology, false)) {
+                List<Integer> list = byNode.get(topology.nodeAt(index));
+                if (list == null) {
+                    list = new ArrayList<>();
+                    byNode.put(topology.nodeAt(index), list);
+                }
+                list.add(index);
+            }
+            int[] order = new int[topology.cpuCount()];
+            int k = 0;
+            for (int round = 0; k < order.length; round++) {
+                for (List<Integer> list : byNode.values()) {
+                    if (round < list.size()) {
+                        order[k++] = topology.cpuAt(list.get(round));
+                    }
+                }
+            }
+            return order;
+        }
+    },
+    PACK {
+        @Override
+        public int[] order(CpuTopology topology) {
+            List<Integer> indexes = sortedIndexes(topology, true);
+            int[] order = new int[indexes.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = topology.cpuAt(indexes.get(i));
+            }
+            return order;
+        }
+    };
+
+    /**
+     * 线程依次使用的 CPU 编号，NONE 返回空数组。
+     */
+    public abstract int[] order(CpuTopology topology);
+
+    /*
+     * 按 (节点, 超线程序号, 物理核, CPU) 排序的 CPU 下标；byNodeFirst 为 false 时不考虑节点。
+     */
+    private static List<Integer> sortedIndexes(final CpuTopology topology, final boolean byNodeFirst) {
+        int n = topology.cpuCount();
+        final int[] siblingRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                if (topology.coreAt(j) == topology.coreAt(i)) {
+                    siblingRank[i]++;
+                }
+            }
+        }
+        List<Integer> indexes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            indexes.add(i);
+        }
+        Collections.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                if (byNodeFirst && topology.nodeAt(a) != topology.nodeAt(b)) {
+                    return Integer.compare(topology.nodeAt(a), topology.nodeAt(b));
+                }
+                if (siblingRank[a] != siblingRank[b]) {
+                    return Integer.compare(siblingRank[a], siblingRank[b]);
+                }
+                if (topology.coreAt(a) != topology.coreAt(b)) {
+                    return Integer.compare(topology.coreAt(a), topology.coreAt(b));
+                }
+                return Integer.compare(a, b);
+            }
+        });
+        return indexes;
+    }
+}
@@ -0,0 +1,232 @@
+package com.concurrency.thread;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本进程可以使用的 CPU 以及它们所在的物理核、插槽（socket）和 NUMA 节点，从 Linux 的 sysfs 和 /proc 中读出。
+ *
+ * <p>CPU 是逻辑 CPU（超线程），同一个物理核上的逻辑 CPU 共享 L1/L2 缓存，同一个插槽上的共享 L3，
+ * 同一个 NUMA 节点上的访问本地内存。不是 Linux 或者读取失败时，认为有 availableProcessors 个 CPU，
+ * 各自在单独的物理核上，都在节点 0。
+ *
+ * @author Bert Lee 2026年10月18日 20:00
+ */
+public final class CpuTopology {
+    private static final Pattern NODE_DIRECTORY = Pattern.compile("node(\\d+)");
+
+    private static volatile CpuTopology current;
+
+    private final int[] cpus;
+    private final int[] cores;
+    private final int[] packages;
+    private final int[] nodes;
+
+    CpuTopology(int[] cpus, int[] cores, int[] packages, int[] nodes) {
+        this.cpus = cpus;
+        this.cores = cores;
+        this.packages = packages;
+        this.nodes = nodes;
+    }
+
+    /**
+     * 当前机器的拓扑，第一次调用时读取后缓存。
+     */
+    public static CpuTopology current() {
+        CpuTopology topology = current;
+        if (topology == null) {
+            topology = read(new File("/sys/devices/system"), new File("/proc/self/status"));
+            current = topology;
+        }
+        return topology;
+    }
+
+    static CpuTopology read(File sysfs, File status) {
+        try {
+            int[] cpus = parseCpuList(readFirstLine(new File(sysfs, "cpu/online")));
+            int[] allowed = allowedCpus(status);
+            if (allowed != null) {
+                cpus = intersect(cpus, allowed);
+            }
+            if (cpus.length == 0) {
+                return fallback();
+            }
+
+            int[] cores = new int[cpus.length];
+            int[] packages = new int[cpus.length];
+            int[] nodes = new int[cpus.length];
+            for (int i = 0; i < cpus.length; i++) {
+                File topology = new File(sysfs, "cpu/cpu" + cpus[i] + "/topology");
+                packages[i] = readInt(new File(topology, "physical_package_id"), 0);
+                // core_id 只在插槽内唯一
+                cores[i] = packages[i] * 65536 + readInt(new File(topology, "core_id"), cpus[i]);
+            }
+            File[] nodeDirectories = new File(sysfs, "node").listFiles();
+            if (nodeDirectories != null) {
+                for (File nodeDirectory : nodeDirectories) {
+                    Matcher matcher = NODE_DIRECTORY.matcher(nodeDirectory.getName());
+                    if (!matcher.matches()) {
+                        continue;
+                    }
+                    int node = Integer.parseInt(matcher.group(1));
+                    for (int cpu : parseCpuList(readFirstLine(new File(nodeDirectory, "cpulist")))) {
+                        int i = Arrays.binarySearch(cpus, cpu);
+                        if (i >= 0) {
+                            nodes[i] = node;
+                        }
+                    }
+                }
+            }
+            return new CpuTopology(cpus, cores, packages, nodes);
+        } catch (IOException | RuntimeException e) {
+            return fallback();
+        }
+    }
+
+    /**
+     * 解析 Linux 的 CPU 列表格式，例如 "0-3,8,10-11"，返回升序的 CPU 编号。
+     */
+    static int[] parseCpuList(String list) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String range : list.trim().split(",")) {
+            range = range.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            int from = Integer.parseInt((dash < 0) ? range : range.substring(0, dash));
+            int to = (dash < 0) ? from : Integer.parseInt(range.substring(dash + 1));
+            for (int cpu = from; cpu <= to; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        int[] result = new int[cpus.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = cpus.get(i);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 可以使用的 CPU 编号，升序。
+     */
+    public int[] cpus() {
+        return cpus.clone();
+    }
+
+    public int cpuCount() {
+        return cpus.length;
+    }
+
+    /**
+     * 第 index 个 CPU 所在的物理核（在整台机器中唯一的编号）。
+     */
+    int coreAt(int index) {
+        return cores[index];
+    }
+
+    int packageAt(int index) {
+        return packages[index];
+    }
+
+    int nodeAt(int index) {
+        return nodes[index];
+    }
+
+    int cpuAt(int index) {
+        return cpus[index];
+    }
+
+    /**
+     * CPU 所在的 NUMA 节点，不是本进程可以使用的 CPU 时返回 -1。
+     */
+    public int nodeOf(int cpu) {
+        int i = Arrays.binarySearch(cpus, cpu);
+        return (i < 0) ? -1 : nodes[i];
+    }
+
+    /**
+     * NUMA 节点个数。
+     */
+    public int nodeCount() {
+        return distinct(nodes);
+    }
+
+    /**
+     * 物理核个数。
+     */
+    public int coreCount() {
+        return distinct(cores);
+    }
+
+    @Override
+    public String toString() {
+        return "CpuTopology{cpus=" + cpus.length + ", cores=" + coreCount() + ", packages=" + distinct(packages)
+                + ", nodes=" + nodeCount() + "}";
+    }
+
+    private static CpuTopology fallback() {
+        int n = Runtime.getRuntime().availableProcessors();
+        int[] cpus = new int[n];
+        for (int i = 0; i < n; i++) {
+            cpus[i] = i;
+        }
+        return new CpuTopology(cpus, cpus.clone(), new int[n], new int[n]);
+    }
+
+    private static int[] allowedCpus(File status) throws IOException {
+        if (!status.isFile()) {
+            return null;
+        }
+        for (String line : Files.readAllLines(status.toPath(), StandardCharsets.UTF_8)) {
+            if (line.startsWith("Cpus_allowed_list:")) {
+                return parseCpuList(line.substring("Cpus_allowed_list:".length()));
+            }
+        }
+        return null;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int k = 0;
+        for (int cpu : a) {
+            if (Arrays.binarySearch(b, cpu) >= 0) {
+                result[k++] = cpu;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    private static int distinct(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String readFirstLine(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        return lines.isEmpty() ? "" : lines.get(0);
+    }
+
+    private static int readInt(File file, int defaultValue) {
+        try {
+            return Integer.parseInt(readFirstLine(file).trim());
+        } catch (IOException | RuntimeException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.concurrency.thread;
+
+import com.concurrency.metrics.Counter;
+import com.concurrency.metrics.Gauge;
+import com.concurrency.metrics.MetricsMBean;
+import com.concurrency.metrics.MetricsRegistry;
+import com.concurrency.metrics.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * 记录任务在做什么的线程池：线程由 {@link MyThreadFactory} 创建（所以仍然有池名、未捕获异常日志和线程计数），
+ * 每个任务的排队时间、执行时间、失败和拒绝次数、活跃/空闲线程数以及吞吐量记录在一个 {@link MetricsRegistry} 中。
+ *
+ * <pre>
+ * 度量
+ *    submitted / completed / failed / rejected    任务计数
+ *    queueWait                                    从 execute 到开始执行的时间
+ *    execution                                    执行时间（包括抛出异常的任务）
+ *    active / idle / poolSize / queueSize         线程池当前的状态
+ * 开销
+ *    每个任务多一个包装对象、两次 System.nanoTime() 和几次 LongAdder / 直方图的无锁累加，
+ *    没有锁也没有 ThreadLocal，可以在生产环境中一直开着。
+ * 访问
+ *    {@link #snapshot()} 返回一个不可变的快照，{@link #registerMBean()} 把度量注册为 JMX MBean，
+ *    线程池终止时自动注销。
+ * </pre>
+ *
+ * <p>任务在队列中是被包装过的：{@link #getQueue()} 中的元素和 {@link #remove(Runnable)} 看到的是包装对象，
+ * {@link #shutdownNow()} 返回的和自定义的拒绝策略收到的则是原来的任务。
+ * JDK 的 CallerRunsPolicy 和 DiscardOldestPolicy 仍然收到包装对象，所以 CallerRunsPolicy 执行的任务同样被记录，
+ * DiscardOldestPolicy 重新提交时也不会被重复计数。
+ * submit 提交的任务抛出的异常被 Future 捕获，执行结束后检查 Future 的结果来计入 failed。
+ *
+ * @author Bert Lee 2026年10月18日 19:00
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedThreadPoolExecutor.class);
+
+    private final MetricsRegistry metrics;
+    private final Counter submitted;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Timer queueWait;
+    private final Timer execution;
+    private final long startNanos = System.nanoTime();
+
+    private volatile ObjectName mbeanName;
+    // 以下字段由 snapshot() 在 this 上同步访问
+    private long lastSnapshotNanos = startNanos;
+    private long lastCompleted;
+
+    /**
+     * 使用默认的拒绝策略（AbortPolicy）。
+     */
+    public InstrumentedThreadPoolExecutor(String poolName, int corePoolSize, int maximumPoolSize,
+                                          long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue) {
+        this(poolName, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, new AbortPolicy());
+    }
+
+    /**
+     * @param poolName 线程名的前缀，也是度量注册表和 MBean 的名字
+     * @param handler 被拒绝的任务交给它处理，处理之前计入 rejected
+     */
+    public InstrumentedThreadPoolExecutor(String poolName, int corePoolSize, int maximumPoolSize,
+                                          long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue,
+                                          RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, new MyThreadFactory(poolName),
+                new CountingRejectionHandler(handler));
+        this.metrics = new MetricsRegistry(poolName);
+        this.submitted = metrics.counter("submitted");
+        this.completed = metrics.counter("completed");
+        this.failed = metrics.counter("failed");
+        this.rejected = metrics.counter("rejected");
+        this.queueWait = metrics.timer("queueWait");
+        this.execution = metrics.timer("execution");
+        metrics.gauge("active", new Gauge() {
+            @Override
+            public Number value() {
+                return getActiveCount();
+            }
+        });
+        metrics.gauge("idle", new Gauge() {
+            @Override
+            public Number value() {
+                return Math.max(getPoolSize() - getActiveCount(), 0);
+            }
+        });
+        metrics.gauge("poolSize", new Gauge() {
+            @Override
+            public Number value() {
+                return getPoolSize();
+            }
+        });
+        metrics.gauge("queueSize", new Gauge() {
+            @Override
+            public Number value() {
+                return getQueue().size();
+            }
+        });
+    }
+
+    /**
+     * 固定大小的线程池，使用无界队列，相当于 Executors.newFixedThreadPool。
+     */
+    public static InstrumentedThreadPoolExecutor newFixedThreadPool(String poolName, int threads) {
+        return new InstrumentedThreadPoolExecutor(poolName, threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (command instanceof InstrumentedTask) { // 拒绝策略（例如 DiscardOldestPolicy）重新提交的任务
+            super.execute(command);
+            return;
+        }
+        submitted.increment();
+        super.execute(new InstrumentedTask(command, System.nanoTime()));
+    }
+
+    /**
+     * 返回尚未开始执行的原始任务。
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = super.shutdownNow();
+        List<Runnable> tasks = new ArrayList<>(pending.size());
+        for (Runnable runnable : pending) {
+            tasks.add((runnable instanceof InstrumentedTask) ? ((InstrumentedTask) runnable).task : runnable);
+        }
+        return tasks;
+    }
+
+    /**
+     * 以 com.concurrency.metrics:type=Metrics,name="poolName" 注册到平台 MBeanServer，线程池终止时注销。
+     */
+    public ObjectName registerMBean() throws JMException {
+        synchronized (metrics) {
+            if (mbeanName == null) {
+                mbeanName = MetricsMBean.register(metrics);
+            }
+            return mbeanName;
+        }
+    }
+
+    @Override
+    protected void terminated() {
+        try {
+            ObjectName name = mbeanName;
+            if (name != null) {
+                MetricsMBean.unregister(name);
+            }
+        } catch (JMException e) {
+            logger.warn("Failed to unregister {}", mbeanName, e);
+        } finally {
+            super.terminated();
+        }
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 当前度量的快照。吞吐量是自上一次调用 snapshot() 以来（第一次调用时是自线程池创建以来）每秒完成的任务数。
+     */
+    public synchronized Stats snapshot() {
+        long now = System.nanoTime();
+        long completedTasks = completed.count();
+        double throughput = (completedTasks - lastCompleted) * 1e9 / Math.max(now - lastSnapshotNanos, 1);
+        lastSnapshotNanos = now;
+        lastCompleted = completedTasks;
+
+        int poolSize = getPoolSize();
+        int active = getActiveCount();
+        return new Stats(submitted.count(), completedTasks, failed.count(), rejected.count(),
+                active, Math.max(poolSize - active, 0), poolSize, getQueue().size(), throughput,
+                queueWait.percentile(50), queueWait.percentile(99), queueWait.maxNanos(),
+                execution.percentile(50), execution.percentile(99), execution.maxNanos());
+    }
+
+    /**
+     * 线程池度量的不可变快照，时间单位是纳秒。
+     */
+    public static final class Stats {
+        private final long submittedTasks;
+        private final long completedTasks;
+        private final long failedTasks;
+        private final long rejectedTasks;
+        private final int activeThreads;
+        private final int idleThreads;
+        private final int poolSize;
+        private final int queueSize;
+        private final double throughput;
+        private final long queueWaitP50;
+        private final long queueWaitP99;
+        private final long queueWaitMax;
+        private final long executionP50;
+        private final long executionP99;
+        private final long executionMax;
+
+        Stats(long submittedTasks, long completedTasks, long failedTasks, long rejectedTasks,
+              int activeThreads, int idleThreads, int poolSize, int queueSize, double throughput,
+              long queueWaitP50, long queueWaitP99, long queueWaitMax,
+              long executionP50, long executionP99, long executionMax) {
+            this.submittedTasks = submittedTasks;
+            this.completedTasks = completedTasks;
+            this.failedTasks = failedTasks;
+            this.rejectedTasks = rejectedTasks;
+            this.activeThreads = activeThreads;
+            this.idleThreads = idleThreads;
+            this.poolSize = poolSize;
+            this.queueSize = queueSize;
+            this.throughput = throughput;
+            this.queueWaitP50 = queueWaitP50;
+            this.queueWaitP99 = queueWaitP99;
+            this.queueWaitMax = queueWaitMax;
+            this.executionP50 = executionP50;
+            this.executionP99 = executionP99;
+            this.executionMax = executionMax;
+        }
+
+        /**
+         * 提交的任务数，包括被拒绝的任务。
+         */
+        public long getSubmittedTasks() {
+            return submittedTasks;
+        }
+
+        /**
+         * 执行结束的任务数，包括抛出异常的任务。
+         */
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+
+        public long getFailedTasks() {
+            return failedTasks;
+        }
+
+        public long getRejectedTasks() {
+            return rejectedTasks;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        public int getIdleThreads() {
+            return idleThreads;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        /**
+         * 每秒完成的任务数。
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public long getQueueWaitP50() {
+            return queueWaitP50;
+        }
+
+        public long getQueueWaitP99() {
+            return queueWaitP99;
+        }
+
+        public long getQueueWaitMax() {
+            return queueWaitMax;
+        }
+
+        public long getExecutionP50() {
+            return executionP50;
+        }
+
+        public long getExecutionP99() {
+            return executionP99;
+        }
+
+        public long getExecutionMax() {
+            return executionMax;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{submitted=" + submittedTasks + ", completed=" + completedTasks + ", failed=" + failedTasks
+                    + ", rejected=" + rejectedTasks + ", active=" + activeThreads + ", idle=" + idleThreads
+                    + ", poolSize=" + poolSize + ", queueSize=" + queueSize
+                    + ", throughput=" + String.format("%.1f", throughput) + "/s"
+                    + ", queueWait(p50/p99/max)=" + queueWaitP50 + "/" + queueWaitP99 + "/" + queueWaitMax + "ns"
+                    + ", execution(p50/p99/max)=" + executionP50 + "/" + executionP99 + "/" + executionMax + "ns}";
+        }
+    }
+
+    /*
+     * 记住任务进入线程池的时间，执行时记录排队和执行时间。
+     */
+    private final class InstrumentedTask implements Runnable {
+        final Runnable task;
+        final long enqueuedNanos;
+
+        InstrumentedTask(Runnable task, long enqueuedNanos) {
+            this.task = task;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            queueWait.record(start - enqueuedNanos);
+            try {
+                task.run();
+                if (task instanceof Future && failed((Future<?>) task)) {
+                    failed.increment();
+                }
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            } finally {
+                execution.record(System.nanoTime() - start);
+                completed.increment();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+
+    private static boolean failed(Future<?> future) {
+        if (!future.isDone()) {
+            return false;
+        }
+        try {
+            future.get(); // 已经完成，不会阻塞
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (CancellationException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+     * 先计数再交给原来的拒绝策略。
+     */
+    private static final class CountingRejectionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler handler;
+        private final boolean wrapped; // 拒绝策略是否收到包装对象
+
+        CountingRejectionHandler(RejectedExecutionHandler handler) {
+            this.handler = handler;
+            // 只对不检查任务本身的 JDK 策略保留包装对象：CallerRunsPolicy 执行时记录度量，
+            // DiscardOldestPolicy 重新提交的包装对象由 execute 直接放入队列
+            this.wrapped = handler.getClass() == CallerRunsPolicy.class
+                    || handler.getClass() == DiscardOldestPolicy.class;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            ((InstrumentedThreadPoolExecutor) executor).rejected.increment();
+            if (!wrapped && r instanceof InstrumentedTask) {
+                r = ((InstrumentedTask) r).task;
+            }
+            handler.rejectedExecution(r, executor);
+        }
+    }
+}
@@ -3,12 +3,18 @@ package com.concurrency.thread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 定制 Thread 基类，包括 为线程指定名字，设置自定义 UncaughtExceptionHandler 向 Logger 中写入信息，
  * 维护一些统计信息（包括有多少个线程被创建和销毁），以及在线程被创建或者终止时把调试消息写入日志。
  *
+ * <p>线程可以在启动时绑定到一个 CPU 上（见 {@link CpuPlacement}），{@link #getCurrentCpu()} 报告线程最近运行在哪个 CPU 上。
+ *
+ * <p>虚拟线程不能被继承，{@link #newVirtualThread(ThreadFactory, Runnable, String)} 创建的虚拟线程
+ * 通过包装任务获得同样的名字、异常日志、计数和调试日志。
+ *
  * @author xingle
  * @since 2016年06月25日 22:12
  */
@@ -25,42 +31,117 @@ public class MyAppThread extends Thread {
 
     private static final AtomicInteger alive = new AtomicInteger(0);
 
+    private static final Thread.UncaughtExceptionHandler LOGGING_HANDLER = new Thread.UncaughtExceptionHandler() {
+        @Override
+        public void uncaughtException(Thread t, Throwable e) {
+            logger.error("Uncaught in thread {}", t.getName(), e);
+        }
+    };
+
+    private final int assignedCpu;
+    private volatile long nativeId = -1;
+    private volatile boolean pinned;
+
     public MyAppThread(Runnable runnable) {
         this(runnable, DEFAULT_NAME);
     }
 
     public MyAppThread(Runnable runnable, String poolName) {
-        super(runnable, poolName + "-" + created.incrementAndGet());
-        setUncaughtExceptionHandler(
-                new Thread.UncaughtExceptionHandler() {
-                    @Override
-                    public void uncaughtException(Thread t, Throwable e) {
-                        logger.error("Uncaught in thread {}", t.getName(), e);
-                    }
-                }
-        );
+        this(runnable, poolName, -1);
+    }
+
+    /**
+     * @param cpu 线程启动时绑定到的 CPU，-1 表示不绑定
+     */
+    public MyAppThread(Runnable runnable, String poolName, int cpu) {
+        super(runnable, nextName(poolName));
+        setUncaughtExceptionHandler(LOGGING_HANDLER);
+        this.assignedCpu = cpu;
+    }
+
+    /**
+     * 用 virtualThreadFactory 创建一个（未启动的）虚拟线程，名字、异常日志和统计信息与 MyAppThread 相同。
+     */
+    static Thread newVirtualThread(ThreadFactory virtualThreadFactory, final Runnable runnable, String poolName) {
+        Thread thread = virtualThreadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                runTracked(Thread.currentThread(), runnable);
+            }
+        });
+        thread.setName(nextName(poolName));
+        thread.setUncaughtExceptionHandler(LOGGING_HANDLER);
+        return thread;
     }
 
     @Override
     public void run() {
+        nativeId = Affinity.currentThreadNativeId();
+        if (assignedCpu >= 0) {
+            pinned = Affinity.setCurrentThreadAffinity(assignedCpu);
+            if (!pinned) {
+                logger.debug("Could not bind '{}' to CPU {}", getName(), assignedCpu);
+            }
+        }
+        runTracked(this, new Runnable() {
+            @Override
+            public void run() {
+                MyAppThread.super.run();
+            }
+        });
+    }
+
+    private static String nextName(String poolName) {
+        return poolName + "-" + created.incrementAndGet();
+    }
+
+    private static void runTracked(Thread thread, Runnable body) {
         // 复制 debug 标志以确保一致的值
         boolean debug = debugLifecycle;
         if (debug) {
-            logger.info("Created '{}' thread", getName());
+            logger.info("Created '{}' thread", thread.getName());
         }
 
         try {
             alive.incrementAndGet();
-            super.run();
+            body.run();
         } finally {
             alive.decrementAndGet();
 
             if (debug) {
-                logger.info("Exiting '{}' thread", getName());
+                logger.info("Exiting '{}' thread", thread.getName());
             }
         }
     }
 
+    /**
+     * 线程启动时要绑定到的 CPU，不绑定时返回 -1。
+     */
+    public int getAssignedCpu() {
+        return assignedCpu;
+    }
+
+    /**
+     * 线程是否真的被绑定到了 {@link #getAssignedCpu()} 上。
+     */
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    /**
+     * 线程的内核线程号，线程还没有启动或者不是 Linux 时返回 -1。
+     */
+    public long getNativeId() {
+        return nativeId;
+    }
+
+    /**
+     * 线程最近一次运行所在的 CPU，无法得到时返回 -1。可以从任何线程调用。
+     */
+    public int getCurrentCpu() {
+        return Affinity.currentCpu(nativeId);
+    }
+
     public static int getThreadsCreated() {
         return created.get();
     }
@@ -1,23 +1,73 @@
 package com.concurrency.thread;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 自定义的线程工厂，将一个特定于线程池的名字传递到构造函数，
  * 从而可以在线程转储和错误日志信息中区分来自不同线程池的线程。
  *
+ * <p>虚拟线程模式（JDK 21+）创建虚拟线程而不是平台线程 {@link MyAppThread}，适合大量阻塞在 I/O 上的任务，
+ * 线程名、未捕获异常日志、线程计数和调试日志保持不变。没有显式指定时由系统属性
+ * {@value #VIRTUAL_PROPERTY}=true 打开；JDK 不支持虚拟线程时退回平台线程。
+ * 平台线程可以按 {@link CpuPlacement} 依次绑定到不同的 CPU 上。
+ * 阻塞在 synchronized 中的虚拟线程会钉住（pin）载体线程，可以用 {@link PinningMonitor} 发现这些地方。
+ *
  * @author xingle
  * @since 2016年06月25日 22:05
  */
 public final class MyThreadFactory implements ThreadFactory {
+    private static final Logger logger = LoggerFactory.getLogger(MyThreadFactory.class);
+
+    /** 为 true 时，没有显式指定模式的线程工厂创建虚拟线程 */
+    public static final String VIRTUAL_PROPERTY = "com.concurrency.thread.virtual";
 
     private final String poolName;
+    private final ThreadFactory virtualThreadFactory; // 为 null 时创建平台线程
+    private final int[] cpus; // 依次绑定的 CPU，为空时不绑定
+    private final AtomicInteger nextCpu = new AtomicInteger();
 
     public MyThreadFactory(String poolName) {
+        this(poolName, Boolean.getBoolean(VIRTUAL_PROPERTY));
+    }
+
+    /**
+     * @param virtual 是否创建虚拟线程
+     */
+    public MyThreadFactory(String poolName, boolean virtual) {
         this.poolName = poolName;
+        if (virtual && !VirtualThreads.isSupported()) {
+            logger.warn("Virtual threads are not supported on this JDK, '{}' uses platform threads", poolName);
+            virtual = false;
+        }
+        this.virtualThreadFactory = virtual ? VirtualThreads.newThreadFactory() : null;
+        this.cpus = new int[0];
+    }
+
+    /**
+     * 创建按 placement 绑定到 CPU 上的平台线程。不支持绑定时（见 {@link Affinity#isSupported()}）线程不绑定。
+     */
+    public MyThreadFactory(String poolName, CpuPlacement placement) {
+        this.poolName = poolName;
+        this.virtualThreadFactory = null;
+        this.cpus = Affinity.isSupported() ? placement.order(CpuTopology.current()) : new int[0];
+    }
+
+    /**
+     * 是否创建虚拟线程。
+     */
+    public boolean isVirtual() {
+        return virtualThreadFactory != null;
     }
 
     public Thread newThread(Runnable runnable) {
-        return new MyAppThread(runnable, poolName);
+        if (virtualThreadFactory != null) {
+            return MyAppThread.newVirtualThread(virtualThreadFactory, runnable, poolName);
+        }
+        int cpu = (cpus.length == 0) ? -1 : cpus[(nextCpu.getAndIncrement() & Integer.MAX_VALUE) % cpus.length];
+        return new MyAppThread(runnable, poolName, cpu);
     }
 }
@@ -0,0 +1,127 @@
+package com.concurrency.thread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 发现钉住（pin）载体线程的虚拟线程：虚拟线程在 synchronized 块中或本地方法中阻塞时不能从载体线程上卸载，
+ * 这时每个阻塞的虚拟线程又占用了一个平台线程，成千上万个阻塞 I/O 任务就会退化成成千上万个 OS 线程。
+ *
+ * <p>通过 JFR 事件流（jdk.jfr.consumer.RecordingStream）订阅 jdk.VirtualThreadPinned 事件，
+ * 超过阈值的每次钉住计数并带着栈写入 warn 日志。JFR 流和虚拟线程都通过反射访问，
+ * 在不支持的 JDK 上 {@link #start(long)} 返回一个什么都不做的监视器。
+ *
+ * @author Bert Lee 2026年10月18日 19:40
+ */
+public final class PinningMonitor implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PinningMonitor.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final Object stream; // RecordingStream，不支持时为 null
+    private final LongAdder pinnedCount = new LongAdder();
+
+    private PinningMonitor(Object stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * 支持虚拟线程和 JFR 事件流时返回 true。
+     */
+    public static boolean isSupported() {
+        if (!VirtualThreads.isSupported()) {
+            return false;
+        }
+        try {
+            Class.forName("jdk.jfr.consumer.RecordingStream");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 开始在后台接收钉住事件。
+     *
+     * @param thresholdMillis 钉住时间不超过它的事件被忽略（JDK 默认 20 毫秒）
+     */
+    public static PinningMonitor start(long thresholdMillis) {
+        if (!isSupported()) {
+            return new PinningMonitor(null);
+        }
+        Object stream = null;
+        try {
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            stream = streamClass.getConstructor().newInstance();
+            Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+            settingsClass.getMethod("withThreshold", java.time.Duration.class)
+                    .invoke(settings, java.time.Duration.ofMillis(thresholdMillis));
+            settingsClass.getMethod("withStackTrace").invoke(settings);
+
+            PinningMonitor monitor = new PinningMonitor(stream);
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT,
+                    monitor.new EventHandler());
+            streamClass.getMethod("startAsync").invoke(stream);
+            return monitor;
+        } catch (Exception e) {
+            logger.warn("Cannot start virtual thread pinning monitor", e);
+            close(stream);
+            return new PinningMonitor(null);
+        }
+    }
+
+    /**
+     * 是否真正在接收事件。
+     */
+    public boolean isActive() {
+        return stream != null;
+    }
+
+    /**
+     * 到目前为止观察到的钉住次数。
+     */
+    public long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    @Override
+    public void close() {
+        close(stream);
+    }
+
+    private static void close(Object stream) {
+        if (stream != null) {
+            try {
+                stream.getClass().getMethod("close").invoke(stream);
+            } catch (Exception e) {
+                logger.debug("Failed to close recording stream", e);
+            }
+        }
+    }
+
+    /*
+     * 在 JFR 的事件线程中处理 RecordedEvent。
+     */
+    private final class EventHandler implements Consumer<Object> {
+        private Method getDuration;
+
+        @Override
+        public void accept(Object event) {
+            pinnedCount.increment();
+            try {
+                if (getDuration == null) {
+                    getDuration = event.getClass().getMethod("getDuration");
+                }
+                logger.warn("Virtual thread pinned its carrier for {}: {}", getDuration.invoke(event), event);
+            } catch (Exception e) {
+                logger.warn("Virtual thread pinned its carrier: {}", event);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.concurrency.thread;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程（JDK 21+）的反射入口，使代码仍然可以在更早的 JDK 上编译和运行。
+ *
+ * <p>虚拟线程适合大量阻塞在 I/O 上的任务：阻塞时不占用平台线程，所以线程数可以远多于 CPU 核数。
+ * 在不支持虚拟线程的 JDK 上 {@link #isSupported()} 返回 false，其他方法抛出 UnsupportedOperationException。
+ *
+ * @author Bert Lee 2026年10月18日 16:00
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+    private static final Method IS_VIRTUAL;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        Method isVirtual = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            builderName = builder.getMethod("name", String.class, long.class);
+            builderFactory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            isVirtual = Thread.class.getMethod("isVirtual");
+            ofVirtual.invoke(null); // JDK 19/20 上未启用预览特性时抛出异常
+        } catch (Exception e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建虚拟线程的工厂，线程没有名字。
+     */
+    public static ThreadFactory newThreadFactory() {
+        checkSupported();
+        try {
+            return (ThreadFactory) BUILDER_FACTORY.invoke(OF_VIRTUAL.invoke(null));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * 创建虚拟线程的工厂，线程名为 prefix-1、prefix-2 ……
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        checkSupported();
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, prefix + "-", 1L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * 为每个任务创建一个新的虚拟线程的执行器。
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        return newThreadPerTaskExecutor(newThreadFactory(prefix));
+    }
+
+    /**
+     * 为每个任务用 threadFactory 创建一个新线程的执行器，例如虚拟线程模式的 {@link MyThreadFactory}。
+     */
+    public static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+        checkSupported();
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot create virtual thread executor", e);
+        }
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException(
+                    "Virtual threads require JDK 21+, running on " + System.getProperty("java.version"));
+        }
+    }
+}
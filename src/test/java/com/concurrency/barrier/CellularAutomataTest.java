@@ -0,0 +1,288 @@
+package com.concurrency.barrier;
+
+import static org.testng.Assert.*;
+
+import com.concurrency.thread.CpuPlacement;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * {@link CellularAutomata} 和 {@link Board} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 20:50
+ */
+public class CellularAutomataTest {
+
+    @DataProvider
+    public Object[][] modes() {
+        return new Object[][] {{CellularAutomata.Mode.BARRIER}, {CellularAutomata.Mode.HALO}};
+    }
+
+    @Test(dataProvider = "modes")
+    public void stillLifeConvergesAfterOneGeneration(CellularAutomata.Mode mode) throws Exception {
+        Board board = new Board(8, 8);
+        board.setValue(3, 3, 1); // 方块
+        board.setValue(4, 3, 1);
+        board.setValue(3, 4, 1);
+        board.setValue(4, 4, 1);
+        new CellularAutomata(board, 3, 100, mode).start();
+        assertTrue(board.isStable());
+        assertEquals(board.getGeneration(), 1);
+        assertEquals(board.getValue(4, 4), 1);
+    }
+
+    @Test(dataProvider = "modes")
+    public void placementDefaultsToNoneAndCanBeChanged(CellularAutomata.Mode mode) throws Exception {
+        Board board = new Board(8, 8);
+        board.setValue(3, 3, 1);
+        CellularAutomata automata = new CellularAutomata(board, 2, 100, mode);
+        assertEquals(automata.getPlacement(), CpuPlacement.NONE);
+        automata.setPlacement(CpuPlacement.PACK); // 不支持绑定的平台上只是不绑定
+        assertEquals(automata.getPlacement(), CpuPlacement.PACK);
+        automata.start();
+        assertTrue(board.isStable());
+    }
+
+    @Test(dataProvider = "modes")
+    public void failingWorkerStopsTheOthers(CellularAutomata.Mode mode) throws Exception {
+        Board board = new Board(8, 16);
+        board.setValue(1, 2, 1); // 闪光灯，永远不会收敛
+        board.setValue(2, 2, 1);
+        board.setValue(3, 2, 1);
+        final AtomicReference<Thread> failing = new AtomicReference<>();
+        final ThreadLocal<int[]> calls = new ThreadLocal<int[]>() {
+            @Override
+            protected int[] initialValue() {
+                return new int[1];
+            }
+        };
+        StencilKernel kernel = new StencilKernel() {
+            @Override
+            public boolean apply(int[] from, int[] to, int row, int width, int fromX, int toX) {
+                failing.compareAndSet(null, Thread.currentThread());
+                if (failing.get() == Thread.currentThread()) {
+                    if (++calls.get()[0] > 2 * 8) { // 每代 8 行，第 3 代失败
+                        throw new IllegalStateException("kernel failed");
+                    }
+                } else {
+                    try {
+                        Thread.sleep(5); // 失败时另一个分区还在计算
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return StencilKernels.GAME_OF_LIFE.apply(from, to, row, width, fromX, toX);
+            }
+        };
+        final CellularAutomata automata = new CellularAutomata(board, 2, Long.MAX_VALUE, mode, kernel, 8);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread runner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    automata.start();
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        runner.start();
+        runner.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(runner.isAlive(), "start() hangs after a worker failed");
+        assertNull(error.get());
+        assertTrue(board.hasConverged());
+        assertFalse(board.isStable());
+    }
+
+    @Test(dataProvider = "modes")
+    public void oscillatorStopsAtGenerationLimit(CellularAutomata.Mode mode) throws Exception {
+        Board board = new Board(5, 5);
+        board.setValue(1, 2, 1); // 闪光灯，周期为 2
+        board.setValue(2, 2, 1);
+        board.setValue(3, 2, 1);
+        new CellularAutomata(board, 2, 7, mode).start();
+        assertFalse(board.isStable());
+        assertEquals(board.getGeneration(), 7);
+        assertEquals(board.getValue(2, 1), 1); // 奇数代是竖的
+        assertEquals(board.getValue(2, 3), 1);
+        assertEquals(board.getValue(1, 2), 0);
+    }
+
+    @Test(dataProvider = "modes")
+    public void partitionedRunMatchesSequentialRule(CellularAutomata.Mode mode) throws Exception {
+        int width = 67;
+        int height = 41;
+        Board board = new Board(width, height);
+        int[] expected = new int[width * height];
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = random.nextInt(3) == 0 ? 1 : 0;
+                board.setValue(x, y, value);
+                expected[y * width + x] = value;
+            }
+        }
+        int generations = 12;
+        for (int g = 0; g < generations; g++) {
+            expected = lifeStep(expected, width, height);
+        }
+
+        new CellularAutomata(board, 5, generations, mode).start();
+        assertEquals(board.getGeneration(), generations);
+        assertEquals(board.toArray(), expected);
+    }
+
+    @Test(dataProvider = "modes")
+    public void dyingPatternConvergesWithEmptyBoard(CellularAutomata.Mode mode) throws Exception {
+        Board board = new Board(30, 30);
+        board.setValue(5, 5, 1); // 孤立的细胞在第 1 代死亡，第 2 代没有变化
+        board.setValue(20, 25, 1);
+        new CellularAutomata(board, 7, 1000, mode).start();
+        assertTrue(board.isStable());
+        assertEquals(board.getGeneration(), 2);
+        assertEquals(board.toArray(), new int[30 * 30]);
+    }
+
+    @Test(dataProvider = "modes")
+    public void tiledVectorizedKernelsMatchSequentialRules(CellularAutomata.Mode mode) throws Exception {
+        int width = 53;
+        int height = 29;
+        int generations = 9;
+        for (boolean life : new boolean[] {true, false}) {
+            Board board = new Board(width, height);
+            int[] expected = new int[width * height];
+            Random random = new Random(7);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int value = life ? random.nextInt(2) : random.nextInt(1 << 16);
+                    board.setValue(x, y, value);
+                    expected[y * width + x] = value;
+                }
+            }
+            for (int g = 0; g < generations; g++) {
+                expected = life ? lifeStep(expected, width, height) : diffusionStep(expected, width, height);
+            }
+
+            StencilKernel rule = life ? StencilKernels.GAME_OF_LIFE : StencilKernels.DIFFUSION;
+            StencilKernel kernel = StencilKernels.vectorized(rule);
+            new CellularAutomata(board, 3, generations, mode, kernel, 37).start();
+            assertEquals(board.toArray(), expected, life ? "life" : "diffusion");
+        }
+    }
+
+    @Test(dataProvider = "modes")
+    public void restoredRunMatchesUninterruptedRun(CellularAutomata.Mode mode) throws Exception {
+        int width = 67;
+        int height = 41;
+        int[] initial = new int[width * height];
+        Random random = new Random(11);
+        for (int i = 0; i < initial.length; i++) {
+            initial[i] = random.nextInt(3) == 0 ? 1 : 0;
+        }
+        int[] expected = initial;
+        for (int g = 0; g < 20; g++) {
+            expected = lifeStep(expected, width, height);
+        }
+
+        File checkpoint = new File(Files.createTempDirectory("automata").toFile(), "board.ckpt");
+        Board first = new Board(width, height);
+        for (int i = 0; i < initial.length; i++) {
+            first.setValue(i % width, i / width, initial[i]);
+        }
+        CellularAutomata automata = new CellularAutomata(first, 4, 10, mode);
+        automata.setCheckpoint(checkpoint, 3);
+        automata.start(); // 进程在第 10 代“退出”
+        BoardSnapshot snapshot = BoardCheckpoint.read(checkpoint);
+        assertEquals(snapshot.getGeneration(), first.getGeneration());
+        assertEquals(snapshot.toArray(), first.toArray());
+
+        Board second = new Board(width, height); // 全 0，从检查点恢复
+        automata = new CellularAutomata(second, 3, 20, mode);
+        automata.setCheckpoint(checkpoint, 3);
+        automata.start();
+        assertEquals(second.toArray(), expected);
+        assertEquals(BoardCheckpoint.read(checkpoint).toArray(), expected);
+        assertFalse(new File(checkpoint.getPath() + BoardCheckpoint.TEMP_SUFFIX).exists());
+    }
+
+    @Test(dataProvider = "modes")
+    public void sinkReceivesEveryNthGeneration(CellularAutomata.Mode mode) throws Exception {
+        Board board = new Board(5, 5);
+        board.setValue(1, 2, 1); // 周期为 2 的振荡器
+        board.setValue(2, 2, 1);
+        board.setValue(3, 2, 1);
+        int[] initial = board.toArray();
+        final List<BoardSnapshot> received = Collections.synchronizedList(new ArrayList<BoardSnapshot>());
+        CellularAutomata automata = new CellularAutomata(board, 2, 13, mode);
+        automata.setGenerationSink(new GenerationSink() {
+            @Override
+            public void generation(BoardSnapshot snapshot) {
+                received.add(snapshot);
+            }
+        }, 4);
+        automata.start();
+
+        List<Long> generations = new ArrayList<>();
+        for (BoardSnapshot snapshot : received) {
+            generations.add(snapshot.getGeneration());
+            if (snapshot.getGeneration() % 2 == 0) {
+                assertEquals(snapshot.toArray(), initial);
+            }
+        }
+        // HALO 模式只在结束时输出；BARRIER 模式下后台线程跟不上时中间的快照可能被跳过，最后一代总会输出
+        List<Long> expected = (mode == CellularAutomata.Mode.BARRIER)
+                ? Arrays.asList(4L, 8L, 12L, 13L) : Collections.singletonList(13L);
+        assertTrue(expected.containsAll(generations), "generations: " + generations);
+        assertEquals(generations, new ArrayList<>(new TreeSet<>(generations))); // 按顺序，没有重复
+        assertEquals(generations.get(generations.size() - 1).longValue(), 13L);
+        assertEquals(received.get(received.size() - 1).toArray(), board.toArray());
+    }
+
+    private static int[] lifeStep(int[] cells, int width, int height) {
+        int[] next = new int[cells.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int neighbours = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if ((dx != 0 || dy != 0) && nx >= 0 && nx < width && ny >= 0 && ny < height
+                                && cells[ny * width + nx] != 0) {
+                            neighbours++;
+                        }
+                    }
+                }
+                boolean alive = cells[y * width + x] != 0;
+                next[y * width + x] = (neighbours == 3 || (alive && neighbours == 2)) ? 1 : 0;
+            }
+        }
+        return next;
+    }
+
+    private static int[] diffusionStep(int[] cells, int width, int height) {
+        int[] next = new int[cells.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int up = (y > 0) ? cells[(y - 1) * width + x] : 0;
+                int down = (y < height - 1) ? cells[(y + 1) * width + x] : 0;
+                int left = (x > 0) ? cells[y * width + x - 1] : 0;
+                int right = (x < width - 1) ? cells[y * width + x + 1] : 0;
+                next[y * width + x] = (4 * cells[y * width + x] + up + down + left + right) >> 3;
+            }
+        }
+        return next;
+    }
+}
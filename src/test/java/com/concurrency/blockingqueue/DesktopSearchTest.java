@@ -0,0 +1,153 @@
+package com.concurrency.blockingqueue;
+
+import static org.testng.Assert.*;
+
+import com.concurrency.blockingqueue.index.InvertedIndex;
+import com.concurrency.metrics.MetricsMBean;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.management.ObjectName;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * {@link DesktopSearch} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 15:30
+ */
+public class DesktopSearchTest {
+    private Path root;
+
+    @BeforeMethod
+    public void createTree() throws IOException {
+        root = Files.createTempDirectory("desktop-search");
+        for (int d = 0; d < 5; d++) {
+            Path dir = Files.createDirectories(root.resolve("dir" + d));
+            for (int f = 0; f < 20; f++) {
+                String content = "file" + f + " in dir" + d + (f % 2 == 0 ? " even" : " odd");
+                Files.write(dir.resolve("f" + f + ".txt"), content.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @AfterMethod
+    public void deleteTree() throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.forEach(new Consumer<Path>() {
+                @Override
+                public void accept(Path path) {
+                    paths.add(path);
+                }
+            });
+        }
+        Collections.reverse(paths); // 先删除子节点
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void completesAfterAllFilesAreIndexed() throws Exception {
+        DesktopSearch search = new DesktopSearch(new File[] {root.toFile()}, null, new InvertedIndex(), 4).start();
+        assertTrue(search.awaitCompletion(30, TimeUnit.SECONDS));
+        assertTrue(search.completion().isDone());
+        assertEquals(search.search("even").size(), 50);
+        assertEquals(search.searchAll("dir3", "odd").size(), 10);
+        assertTrue(search.shutdown(1, TimeUnit.SECONDS)); // 已经完成，立即返回
+    }
+
+    @Test
+    public void adaptivePoolCompletesInEitherMode() throws Exception {
+        for (AdaptiveIndexerPool.Mode mode : AdaptiveIndexerPool.Mode.values()) {
+            DesktopSearch search = new DesktopSearch(new File[] {root.toFile()}, null, new InvertedIndex(),
+                    1, 4, mode).start();
+            assertTrue(search.awaitCompletion(30, TimeUnit.SECONDS));
+            assertEquals(search.search("odd").size(), 50);
+            assertEquals(search.getIndexers().getWorkerCount(), 0);
+            assertEquals(search.getIndexers().getFilesIndexed(), 100);
+        }
+    }
+
+    @Test
+    public void ringBufferHandoff() throws Exception {
+        DesktopSearch search = new DesktopSearch(new File[] {root.toFile()}, null, new InvertedIndex(),
+                2, 2, AdaptiveIndexerPool.Mode.PLATFORM, new MpmcBlockingQueue<File>(16)).start();
+        assertTrue(search.awaitCompletion(30, TimeUnit.SECONDS));
+        assertEquals(search.search("even").size(), 50);
+        assertEquals(search.getIndexers().getFilesIndexed(), 100);
+    }
+
+    @Test
+    public void metricsCoverEveryStage() throws Exception {
+        DesktopSearch search = new DesktopSearch(new File[] {root.toFile()}, null, new InvertedIndex(), 2).start();
+        ObjectName mbean = new ObjectName(MetricsMBean.DOMAIN + ":type=Metrics,name="
+                + ObjectName.quote(search.getMetrics().getRegistry().getName()));
+        assertTrue(search.awaitCompletion(30, TimeUnit.SECONDS));
+
+        Map<String, Number> snapshot = search.getMetrics().getRegistry().snapshot();
+        assertEquals(snapshot.get("indexer.files").longValue(), 100);
+        assertEquals(snapshot.get("indexer.file.count").longValue(), 100);
+        assertTrue(snapshot.get("queue.put").longValue() >= 101); // 加上毒丸
+        assertTrue(snapshot.get("queue.take").longValue() >= 101);
+        assertEquals(snapshot.get("crawler.root.count").longValue(), 1);
+        assertEquals(snapshot.get("index.commit.count").longValue(), 1);
+        assertEquals(snapshot.get("crawler.active").intValue(), 0);
+        assertNotNull(search.getMetrics().bottleneck());
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(mbean)); // 完成时注销
+    }
+
+    @Test
+    public void parallelCrawlerCompletesToo() throws Exception {
+        ForkJoinPool crawlPool = new ForkJoinPool(2);
+        try {
+            DesktopSearch search = new DesktopSearch(new File[] {root.resolve("dir0").toFile(),
+                    root.resolve("dir1").toFile()}, crawlPool, new InvertedIndex(), 3).start();
+            search.completion().get(30, TimeUnit.SECONDS);
+            assertEquals(search.search("file7").size(), 2);
+        } finally {
+            crawlPool.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownStopsPipeline() throws Exception {
+        DesktopSearch search = new DesktopSearch(new File[] {root.toFile()}, null, new InvertedIndex(), 2).start();
+        search.shutdown(10, TimeUnit.SECONDS);
+        assertTrue(search.isDone());
+    }
+
+    @Test
+    public void restartSkipsUnchangedFiles() throws Exception {
+        File indexDirectory = Files.createDirectory(root.resolve("index")).toFile();
+        File[] roots = {root.resolve("dir0").toFile()};
+        DesktopSearch first = DesktopSearch.startIndexing(roots, indexDirectory);
+        first.awaitCompletion(30, TimeUnit.SECONDS);
+        int documents = first.getIndex().documentCount();
+        assertEquals(documents, 20);
+
+        Files.write(root.resolve("dir0").resolve("f3.txt"), "changed".getBytes(StandardCharsets.UTF_8));
+        DesktopSearch second = DesktopSearch.startIndexing(roots, indexDirectory);
+        second.awaitCompletion(30, TimeUnit.SECONDS);
+        assertEquals(second.getIndex().documentCount(), documents + 1); // 只有变化的文件被重新索引
+        assertEquals(second.search("changed").size(), 1);
+        assertEquals(second.search("file3").size(), 0);
+        assertEquals(second.search("even").size(), 10);
+    }
+}
@@ -0,0 +1,94 @@
+package com.concurrency.blockingqueue;
+
+import static org.testng.Assert.*;
+
+import com.concurrency.blockingqueue.index.IndexedFiles;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * {@link FileCrawler} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 16:50
+ */
+public class FileCrawlerTest {
+    private static final FileFilter ACCEPT_ALL = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            return true;
+        }
+    };
+
+    private Path root;
+
+    @BeforeMethod
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("file-crawler");
+        for (int d = 0; d < 2; d++) {
+            Path dir = Files.createDirectories(root.resolve("dir" + d));
+            for (int f = 0; f < 5; f++) {
+                Files.write(dir.resolve("f" + f + ".txt"), ("f" + f).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @AfterMethod
+    public void deleteRoot() throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.forEach(new Consumer<Path>() {
+                @Override
+                public void accept(Path path) {
+                    paths.add(path);
+                }
+            });
+        }
+        Collections.reverse(paths); // 先删除子节点
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void skipsUnchangedFiles() {
+        IndexedFiles indexedFiles = new IndexedFiles() {
+            @Override
+            public boolean isUpToDate(File file, long size, long lastModified) {
+                return file.getParentFile().getName().equals("dir0")
+                        && size == file.length() && lastModified == file.lastModified();
+            }
+        };
+        BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+        new FileCrawler(queue, ACCEPT_ALL, root.toFile(), new SeenFileIndex(), indexedFiles).run();
+        assertEquals(queue.size(), 5);
+        for (File file : queue) {
+            assertEquals(file.getParentFile().getName(), "dir1");
+        }
+    }
+
+    @Test
+    public void crawlersSharingAnIndexQueueEachFileOnce() {
+        BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+        SeenFileIndex seenFileIndex = new SeenFileIndex();
+        new FileCrawler(queue, ACCEPT_ALL, root.toFile(), seenFileIndex).run();
+        new FileCrawler(queue, ACCEPT_ALL, root.resolve("dir1").toFile(), seenFileIndex).run(); // 重叠的根目录
+        assertEquals(queue.size(), 10);
+        assertEquals(seenFileIndex.size(), 10);
+    }
+}
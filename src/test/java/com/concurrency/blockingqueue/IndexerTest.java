@@ -0,0 +1,49 @@
+package com.concurrency.blockingqueue;
+
+import static org.testng.Assert.*;
+
+import com.concurrency.blockingqueue.index.InvertedIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link Indexer} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 17:20
+ */
+public class IndexerTest {
+
+    @Test
+    public void filesAfterThePillInTheSameBatchAreIndexed() throws IOException {
+        Path before = Files.createTempFile("before", ".txt");
+        Path after = Files.createTempFile("after", ".txt");
+        try {
+            Files.write(before, "alpha".getBytes(StandardCharsets.UTF_8));
+            Files.write(after, "omega".getBytes(StandardCharsets.UTF_8));
+            BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+            queue.add(before.toFile());
+            queue.add(Indexer.END_OF_STREAM);
+            queue.add(after.toFile()); // 与毒丸在同一批中被 drainTo 取出
+
+            InvertedIndex index = new InvertedIndex();
+            new Indexer(queue, index, Indexer.UNMANAGED, 8, 0, TimeUnit.MICROSECONDS).run();
+
+            assertEquals(index.postings("alpha").length, 1);
+            assertEquals(index.postings("omega").length, 1);
+            assertSame(queue.poll(), Indexer.END_OF_STREAM); // 毒丸传给下一个索引者
+            assertTrue(queue.isEmpty());
+        } finally {
+            Files.delete(before);
+            Files.delete(after);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.concurrency.blockingqueue;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link MpmcBlockingQueue} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 17:40
+ */
+public class MpmcBlockingQueueTest {
+
+    @Test
+    public void boundedFifo() throws InterruptedException {
+        MpmcBlockingQueue<Integer> queue = new MpmcBlockingQueue<>(3);
+        assertEquals(queue.capacity(), 4); // 向上取整为 2 的幂
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertFalse(queue.offer(4, 10, TimeUnit.MILLISECONDS));
+        assertEquals(queue.size(), 4);
+        assertEquals(queue.peek(), Integer.valueOf(0));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(queue.drainTo(drained, 3), 3);
+        assertEquals(drained, Arrays.asList(0, 1, 2));
+        queue.putAll(Arrays.asList(4, 5, 6));
+        assertEquals(queue.poll(), Integer.valueOf(3));
+        assertEquals(queue.take(), Integer.valueOf(4));
+        assertEquals(queue.size(), 2);
+        queue.clear();
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void putAllWithNullInsertsNothing() throws InterruptedException {
+        MpmcBlockingQueue<Integer> queue = new MpmcBlockingQueue<>(8);
+        try {
+            queue.putAll(Arrays.asList(1, null, 3));
+            fail("expected NullPointerException");
+        } catch (NullPointerException expected) {
+        }
+        assertEquals(queue.size(), 0);
+        queue.putAll(Arrays.asList(4, 5)); // 没有留下领取了但不会发布的槽位
+        assertEquals(queue.poll(10, TimeUnit.MILLISECONDS), Integer.valueOf(4));
+        assertEquals(queue.poll(10, TimeUnit.MILLISECONDS), Integer.valueOf(5));
+    }
+
+    @Test
+    public void removeAndIteratorRemove() {
+        MpmcBlockingQueue<Integer> queue = new MpmcBlockingQueue<>(8);
+        for (int i = 0; i < 6; i++) {
+            queue.offer(i);
+        }
+        assertTrue(queue.remove(Integer.valueOf(0)));
+        assertFalse(queue.remove(Integer.valueOf(0)));
+        assertTrue(queue.remove(Integer.valueOf(2)));
+        assertFalse(queue.remove(Integer.valueOf(9)));
+        assertEquals(queue.peek(), Integer.valueOf(1)); // 跳过墓碑
+        for (Iterator<Integer> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next() == 4) {
+                it.remove();
+            }
+        }
+        assertFalse(queue.contains(4));
+
+        List<Integer> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        assertEquals(drained, Arrays.asList(1, 3, 5));
+        assertEquals(queue.size(), 0);
+        assertTrue(queue.offer(6)); // 墓碑占用的槽位已经释放
+    }
+
+    @Test
+    public void concurrentRemoveAndPollNeverShareAnElement() throws InterruptedException {
+        final int n = 1024;
+        for (int round = 0; round < 20; round++) {
+            final MpmcBlockingQueue<Integer> queue = new MpmcBlockingQueue<>(n);
+            for (int i = 0; i < n; i++) {
+                queue.offer(i);
+            }
+            final AtomicIntegerArray taken = new AtomicIntegerArray(n);
+            final CountDownLatch startGate = new CountDownLatch(1);
+            Thread remover = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startGate.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = n - 1; i >= 0; i--) {
+                        if (queue.remove(Integer.valueOf(i))) {
+                            taken.incrementAndGet(i);
+                        }
+                    }
+                }
+            });
+            remover.start();
+            startGate.countDown();
+            Integer value;
+            while ((value = queue.poll()) != null) {
+                taken.incrementAndGet(value);
+            }
+            remover.join();
+            for (int i = 0; i < n; i++) {
+                assertEquals(taken.get(i), 1, "element " + i);
+            }
+        }
+    }
+
+    @Test
+    public void everyElementIsDeliveredExactlyOnce() throws InterruptedException {
+        final MpmcBlockingQueue<Integer> queue = new MpmcBlockingQueue<>(64);
+        final int producers = 4;
+        final int consumers = 4;
+        final int perProducer = 20000;
+        final AtomicIntegerArray seen = new AtomicIntegerArray(producers * perProducer);
+        final CountDownLatch producersDone = new CountDownLatch(producers);
+        final CountDownLatch consumersDone = new CountDownLatch(consumers);
+
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            final boolean batched = (p % 2 == 0);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<Integer> chunk = new ArrayList<>();
+                        for (int i = 0; i < perProducer; i++) {
+                            if (batched) {
+                                chunk.add(base + i);
+                                if (chunk.size() == 17) {
+                                    queue.putAll(chunk);
+                                    chunk.clear();
+                                }
+                            } else {
+                                queue.put(base + i);
+                            }
+                        }
+                        queue.putAll(chunk);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        producersDone.countDown();
+                    }
+                }
+            }).start();
+        }
+        for (int c = 0; c < consumers; c++) {
+            final boolean batched = (c % 2 == 0);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<Integer> batch = new ArrayList<>();
+                        while (true) {
+                            batch.clear();
+                            if (batched) {
+                                Integer first = queue.take();
+                                batch.add(first);
+                                queue.drainTo(batch, 8);
+                            } else {
+                                batch.add(queue.take());
+                            }
+                            int pills = 0;
+                            for (Integer value : batch) {
+                                if (value < 0) {
+                                    pills++;
+                                } else {
+                                    seen.incrementAndGet(value);
+                                }
+                            }
+                            if (pills > 0) {
+                                for (int i = 1; i < pills; i++) {
+                                    queue.put(-1); // 多取的毒丸留给其他消费者
+                                }
+                                return;
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        consumersDone.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        assertTrue(producersDone.await(60, TimeUnit.SECONDS));
+        for (int c = 0; c < consumers; c++) {
+            queue.put(-1);
+        }
+        assertTrue(consumersDone.await(60, TimeUnit.SECONDS));
+        for (int i = 0; i < seen.length(); i++) {
+            assertEquals(seen.get(i), 1, "element " + i);
+        }
+    }
+}
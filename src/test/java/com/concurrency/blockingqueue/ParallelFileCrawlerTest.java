@@ -0,0 +1,176 @@
+package com.concurrency.blockingqueue;
+
+import static org.testng.Assert.*;
+
+import com.concurrency.blockingqueue.index.IndexedFiles;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * {@link ParallelFileCrawler} 和 {@link CrawlProgress} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 16:10
+ */
+public class ParallelFileCrawlerTest {
+    private static final FileFilter ACCEPT_TXT = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            return file.isDirectory() || file.getName().endsWith(".txt");
+        }
+    };
+
+    private Path root;
+    private ForkJoinPool pool;
+
+    @BeforeMethod
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("parallel-crawler");
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterMethod
+    public void deleteRoot() throws Exception {
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        final List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) { // 不跟随符号链接
+            walk.forEach(new Consumer<Path>() {
+                @Override
+                public void accept(Path path) {
+                    paths.add(path);
+                }
+            });
+        }
+        Collections.reverse(paths); // 先删除子节点
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void countsVisitedQueuedAndSkippedFiles() throws Exception {
+        for (int d = 0; d < 3; d++) {
+            Path dir = Files.createDirectories(root.resolve("dir" + d));
+            for (int f = 0; f < 10; f++) {
+                write(dir.resolve("f" + f + ".txt"));
+            }
+            write(dir.resolve("ignored.bin"));
+        }
+        BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+        ParallelFileCrawler crawler = new ParallelFileCrawler(queue, ACCEPT_TXT, root.toFile(), pool,
+                new SeenFileIndex(), true);
+        crawler.run();
+
+        CrawlProgress progress = crawler.getProgress();
+        assertEquals(progress.getDirectoriesVisited(), 4); // root + 3 个子目录
+        assertEquals(progress.getFilesQueued(), 30);
+        assertEquals(progress.getFilesSkipped(), 3);
+        assertEquals(progress.getFilesUnchanged(), 0);
+        assertEquals(progress.getSymlinkLoops(), 0);
+        assertEquals(progress.getErrors(), 0);
+        assertEquals(queue.size(), 30);
+        assertEquals(new HashSet<>(queue).size(), 30);
+    }
+
+    @Test
+    public void skipsUnchangedFiles() throws Exception {
+        write(root.resolve("old.txt"));
+        write(root.resolve("new.txt"));
+        IndexedFiles indexedFiles = new IndexedFiles() {
+            @Override
+            public boolean isUpToDate(File file, long size, long lastModified) {
+                return file.getName().equals("old.txt");
+            }
+        };
+        BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+        ParallelFileCrawler crawler = new ParallelFileCrawler(queue, ACCEPT_TXT, root.toFile(), pool,
+                new SeenFileIndex(), true, indexedFiles);
+        crawler.run();
+
+        assertEquals(crawler.getProgress().getFilesUnchanged(), 1);
+        assertEquals(crawler.getProgress().getFilesQueued(), 1);
+        assertEquals(queue.poll().getName(), "new.txt");
+    }
+
+    @Test
+    public void symlinkLoopIsVisitedOnce() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("a"));
+        write(root.resolve("f0.txt"));
+        write(dir.resolve("f1.txt"));
+        try {
+            Files.createSymbolicLink(dir.resolve("loop"), root); // a/loop -> root
+        } catch (UnsupportedOperationException | IOException e) {
+            throw new SkipException("Symbolic links are not supported: " + e);
+        }
+        BlockingQueue<File> queue = new LinkedBlockingQueue<>();
+        ParallelFileCrawler crawler = new ParallelFileCrawler(queue, ACCEPT_TXT, root.toFile(), pool,
+                new SeenFileIndex(), true);
+        crawler.run(); // 有环路时不会无限递归
+
+        CrawlProgress progress = crawler.getProgress();
+        assertEquals(progress.getDirectoriesVisited(), 2);
+        assertEquals(progress.getSymlinkLoops(), 1);
+        assertEquals(progress.getFilesQueued(), 2);
+        assertEquals(queue.size(), 2);
+    }
+
+    @Test
+    public void interruptCancelsCrawlBlockedOnFullQueue() throws Exception {
+        for (int f = 0; f < 100; f++) {
+            write(root.resolve("f" + f + ".txt"));
+        }
+        final BlockingQueue<File> queue = new ArrayBlockingQueue<>(1);
+        final ParallelFileCrawler crawler = new ParallelFileCrawler(queue, ACCEPT_TXT, root.toFile(), pool,
+                new SeenFileIndex(), true);
+        final AtomicBoolean interruptPreserved = new AtomicBoolean();
+        Thread runner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                crawler.run();
+                interruptPreserved.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        runner.start();
+        while (queue.remainingCapacity() > 0) { // 等待爬虫阻塞在满的队列上
+            Thread.sleep(10);
+        }
+
+        runner.interrupt();
+        runner.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(runner.isAlive());
+        assertTrue(interruptPreserved.get());
+
+        pool.shutdownNow(); // 中断阻塞在 put 上的工作线程
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(crawler.getProgress().getFilesQueued() < 100);
+        Set<File> queued = new HashSet<>(queue);
+        assertEquals(queued.size(), 1);
+    }
+
+    private static void write(Path file) throws IOException {
+        Files.write(file, file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
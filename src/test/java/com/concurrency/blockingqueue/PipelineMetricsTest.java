@@ -0,0 +1,133 @@
+package com.concurrency.blockingqueue;
+
+import static org.testng.Assert.*;
+
+import com.concurrency.metrics.MetricsRegistry;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link PipelineMetrics} 和 {@link InstrumentedBlockingQueue} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 18:40
+ */
+public class PipelineMetricsTest {
+
+    @Test
+    public void blockedProducerPointsAtIndexer() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics(new MetricsRegistry("test"));
+        final BlockingQueue<Integer> queue = metrics.instrument(new ArrayBlockingQueue<Integer>(1));
+        assertEquals(metrics.bottleneck(), PipelineMetrics.Bottleneck.UNKNOWN);
+
+        queue.put(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queue.put(2); // 队列满，阻塞
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+        assertEquals(queue.take().intValue(), 1);
+        producer.join();
+        assertEquals(queue.take().intValue(), 2);
+
+        assertEquals(metrics.getRegistry().counter("queue.put").count(), 2);
+        assertEquals(metrics.getRegistry().counter("queue.take").count(), 2);
+        assertTrue(metrics.getRegistry().timer("queue.putBlocked").totalNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(metrics.getRegistry().timer("queue.takeBlocked").count(), 0); // 取出时都不需要等待
+        assertEquals(metrics.bottleneck(), PipelineMetrics.Bottleneck.INDEXER);
+    }
+
+    @Test
+    public void starvedConsumerPointsAtCrawler() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics(new MetricsRegistry("test"));
+        BlockingQueue<Integer> queue = metrics.instrument(new ArrayBlockingQueue<Integer>(4));
+        assertNull(queue.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(metrics.getRegistry().counter("queue.take").count(), 0);
+        assertEquals(metrics.bottleneck(), PipelineMetrics.Bottleneck.CRAWLER);
+        assertEquals(metrics.getRegistry().snapshot().get("queue.depth").intValue(), 0);
+    }
+
+    @Test
+    public void lingerIsNotBlockedTime() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics(new MetricsRegistry("test"));
+        InstrumentedBlockingQueue<Integer> queue = metrics.instrument(new ArrayBlockingQueue<Integer>(4));
+        assertNull(queue.linger(20, TimeUnit.MILLISECONDS));
+        queue.put(1);
+        assertEquals(queue.linger(20, TimeUnit.MILLISECONDS).intValue(), 1);
+        assertEquals(metrics.getRegistry().counter("queue.take").count(), 1);
+        assertEquals(metrics.getRegistry().timer("queue.takeBlocked").count(), 0);
+        assertEquals(metrics.bottleneck(), PipelineMetrics.Bottleneck.UNKNOWN);
+    }
+
+    @Test
+    public void blockedTimeIsNormalisedByThreadCount() throws Exception {
+        PipelineMetrics metrics = new PipelineMetrics(new MetricsRegistry("test"));
+        metrics.getProducerTime().start(1);
+        metrics.getConsumerTime().start(16);
+        Thread.sleep(100);
+        metrics.getProducerTime().stop(1);
+        metrics.getConsumerTime().stop(16);
+
+        // 一个爬虫 80% 的时间在等待，16 个索引者每个只有 20% 的时间在等待：累计阻塞时间是索引者多，但瓶颈在索引者
+        metrics.getRegistry().timer("queue.putBlocked").record(80, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 16; i++) {
+            metrics.getRegistry().timer("queue.takeBlocked").record(20, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(metrics.blockedRatio() >= PipelineMetrics.IMBALANCE, "ratio: " + metrics.blockedRatio());
+        assertEquals(metrics.bottleneck(), PipelineMetrics.Bottleneck.INDEXER);
+    }
+
+    @Test
+    public void slowIndexersAreTheBottleneckWithManyConsumers() throws Exception {
+        final int consumers = 16;
+        final PipelineMetrics metrics = new PipelineMetrics(new MetricsRegistry("test"));
+        final InstrumentedBlockingQueue<Integer> queue = metrics.instrument(new ArrayBlockingQueue<Integer>(2));
+        Thread[] indexers = new Thread[consumers];
+        for (int i = 0; i < consumers; i++) {
+            indexers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    metrics.getConsumerTime().start(1);
+                    try {
+                        Integer item = queue.take();
+                        while (item >= 0) {
+                            Thread.sleep(10); // 索引一个文件很慢
+                            Integer next = queue.linger(1, TimeUnit.MILLISECONDS); // 凑批的等待不算阻塞
+                            item = (next != null) ? next : queue.take();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        metrics.getConsumerTime().stop(1);
+                    }
+                }
+            });
+            indexers[i].start();
+        }
+
+        metrics.getProducerTime().start(1);
+        for (int i = 0; i < consumers * 10; i++) {
+            queue.put(i);
+        }
+        for (int i = 0; i < consumers; i++) {
+            queue.put(-1); // 每个索引者一颗毒丸
+        }
+        metrics.getProducerTime().stop(1);
+        for (Thread indexer : indexers) {
+            indexer.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(indexer.isAlive());
+        }
+
+        assertEquals(metrics.bottleneck(), PipelineMetrics.Bottleneck.INDEXER, "ratio: " + metrics.blockedRatio());
+    }
+}
@@ -0,0 +1,139 @@
+package com.concurrency.blockingqueue;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * {@link SeenFileIndex} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 16:40
+ */
+public class SeenFileIndexTest {
+    private Path root;
+
+    @BeforeMethod
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("seen-file-index");
+    }
+
+    @AfterMethod
+    public void deleteRoot() throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.forEach(new Consumer<Path>() {
+                @Override
+                public void accept(Path path) {
+                    paths.add(path);
+                }
+            });
+        }
+        Collections.reverse(paths); // 先删除子节点
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void marksEachFileOnce() throws IOException {
+        File first = write("first.txt");
+        File second = write("second.txt");
+        SeenFileIndex index = new SeenFileIndex();
+        assertTrue(index.markSeen(first));
+        assertTrue(index.markSeen(second));
+        assertFalse(index.markSeen(first));
+        assertFalse(index.markSeen(new File(root.toFile(), "./first.txt"))); // 不同的路径，同一个文件
+        assertEquals(index.size(), 2);
+    }
+
+    @Test
+    public void hardLinkIsTheSameFile() throws IOException {
+        File file = write("original.txt");
+        Path link;
+        try {
+            link = Files.createLink(root.resolve("link.txt"), file.toPath());
+        } catch (UnsupportedOperationException e) {
+            return; // 文件系统不支持硬链接
+        }
+        SeenFileIndex index = new SeenFileIndex();
+        assertTrue(index.markSeen(file));
+        assertFalse(index.markSeen(link.toFile()));
+    }
+
+    @Test
+    public void collidingSlotsInDifferentSegmentsAreKept() {
+        SeenFileIndex index = new SeenFileIndex(4); // 用最高 2 位选择段
+        for (long segment = 0; segment < 4; segment++) {
+            for (long i = 1; i <= 2000; i++) { // 低位相同：在每个段中落在同一个槽位附近，并触发扩容
+                assertTrue(index.markSeen((segment << 62) | (i << 32) | 7L));
+            }
+        }
+        assertEquals(index.size(), 4 * 2000);
+        for (long segment = 0; segment < 4; segment++) {
+            for (long i = 1; i <= 2000; i++) {
+                assertFalse(index.markSeen((segment << 62) | (i << 32) | 7L));
+            }
+        }
+        assertEquals(index.size(), 4 * 2000);
+    }
+
+    @Test
+    public void concurrentMarksOfTheSameFingerprintsSucceedOnce() throws Exception {
+        final int threads = 8;
+        final int fingerprints = 50_000;
+        final SeenFileIndex index = new SeenFileIndex(4);
+        final CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        startGate.await();
+                        int added = 0;
+                        for (long i = 1; i <= fingerprints; i++) {
+                            if (index.markSeen(i * 0x9E3779B97F4A7C15L)) {
+                                added++;
+                            }
+                        }
+                        return added;
+                    }
+                }));
+            }
+            startGate.countDown();
+            int added = 0;
+            for (Future<Integer> result : results) {
+                added += result.get();
+            }
+            assertEquals(added, fingerprints); // 每个指纹恰好被一个线程加入
+            assertEquals(index.size(), fingerprints);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private File write(String name) throws IOException {
+        Path file = root.resolve(name);
+        Files.write(file, name.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
@@ -0,0 +1,286 @@
+package com.concurrency.blockingqueue.index;
+
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+/**
+ * {@link InvertedIndex} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 12:20
+ */
+public class InvertedIndexTest {
+
+    @Test
+    public void tokenizeLowercasesAndSplitsOnNonAlphanumerics() {
+        final List<String> terms = new ArrayList<>();
+        Tokenizer.tokenize("Hello, World-42 foo_bar", new Tokenizer.TermSink() {
+            @Override
+            public void term(String term) {
+                terms.add(term);
+            }
+        });
+        assertEquals(terms.toString(), "[hello, world, 42, foo, bar]");
+    }
+
+    @Test
+    public void byteTokenizerCarriesTermsAcrossChunksAndWindows() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("Word").append(i).append(' ');
+        }
+        content.append(new String(new char[100]).replace('\0', 'x')).append(" tail");
+        Path path = Files.createTempFile("document", ".txt");
+        try {
+            Files.write(path, content.toString().getBytes(StandardCharsets.UTF_8));
+            // 7 字节的缓冲区和 0 字节的映射阈值迫使词项跨越块边界
+            for (DocumentReader reader : new DocumentReader[] {
+                    new DocumentReader(new DirectBufferPool(7, 1), Long.MAX_VALUE),
+                    new DocumentReader(new DirectBufferPool(7, 1), 0)}) {
+                final List<String> terms = new ArrayList<>();
+                ByteTokenizer tokenizer = new ByteTokenizer(new ByteTokenizer.TermSink() {
+                    @Override
+                    public void term(byte[] term, int length) {
+                        terms.add(new String(term, 0, length, StandardCharsets.UTF_8));
+                    }
+                });
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    reader.read(channel, tokenizer);
+                }
+                assertEquals(terms.size(), 5001);
+                assertEquals(terms.get(1234), "word1234");
+                assertEquals(terms.get(5000), "tail"); // 超长词项被丢弃
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void fileTruncatedWhileMappedFailsWithIOException() throws IOException {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < (1 << 20)) {
+            content.append("word ");
+        }
+        final Path path = Files.createTempFile("truncated", ".txt");
+        try {
+            Files.write(path, content.toString().getBytes(StandardCharsets.UTF_8));
+            final AtomicBoolean truncateFailed = new AtomicBoolean();
+            ByteTokenizer tokenizer = new ByteTokenizer(new ByteTokenizer.TermSink() {
+                private boolean truncated;
+
+                @Override
+                public void term(byte[] term, int length) {
+                    if (!truncated) { // 读到第一个词项时截断文件，之后的页面已经不存在
+                        truncated = true;
+                        try (FileChannel writer = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                            writer.truncate(0);
+                        } catch (IOException e) { // 例如 Windows 不允许截断已经映射的文件
+                            truncateFailed.set(true);
+                        }
+                    }
+                }
+            });
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                new DocumentReader(new DirectBufferPool(4096, 1), 0).read(channel, tokenizer);
+                if (truncateFailed.get()) {
+                    throw new SkipException("Cannot truncate a mapped file on this platform");
+                }
+                fail("expected IOException");
+            } catch (IOException expected) {
+                assertTrue(expected.getCause() instanceof InternalError);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void booleanQueries() {
+        InvertedIndex index = new InvertedIndex();
+        SegmentBuilder segment = new SegmentBuilder();
+        int a = addDocument(index, segment, "a.txt", "java concurrency in practice");
+        int b = addDocument(index, segment, "b.txt", "java memory model");
+        int c = addDocument(index, segment, "c.txt", "concurrency concurrency everywhere");
+        index.merge(segment);
+
+        assertEquals(Query.term("JAVA").evaluate(index), new int[] {a, b});
+        assertEquals(Query.term("concurrency").evaluate(index), new int[] {a, c});
+        assertEquals(Query.and(Query.term("java"), Query.term("concurrency")).evaluate(index), new int[] {a});
+        assertEquals(Query.or(Query.term("memory"), Query.term("everywhere")).evaluate(index), new int[] {b, c});
+        assertEquals(Query.andNot(Query.term("java"), Query.term("memory")).evaluate(index), new int[] {a});
+        assertEquals(Query.term("missing").evaluate(index).length, 0);
+    }
+
+    @Test
+    public void queryTermsAreTokenizedLikeDocuments() {
+        InvertedIndex index = new InvertedIndex();
+        SegmentBuilder segment = new SegmentBuilder();
+        int a = addDocument(index, segment, "a.txt", "lock-free queue");
+        addDocument(index, segment, "b.txt", "free lunch");
+        index.merge(segment);
+
+        assertEquals(Query.term("Lock-Free").evaluate(index), new int[] {a}); // lock AND free
+        assertEquals(Query.term("Lock-Free").toString(), "[lock, free]");
+        assertEquals(Query.term("QUEUE").toString(), "queue");
+        assertEquals(Query.term("--").evaluate(index).length, 0);
+    }
+
+    @Test
+    public void singleDocumentMergesAppendWithoutLosingPostings() {
+        InvertedIndex index = new InvertedIndex();
+        SegmentBuilder segment = new SegmentBuilder();
+        for (int i = 0; i < 1000; i++) {
+            addDocument(index, segment, "doc" + i, (i % 3 == 0) ? "common three" : "common");
+            index.merge(segment); // 每次合并追加一个块
+        }
+        int[] common = index.postings("common");
+        assertEquals(common.length, 1000);
+        for (int i = 0; i < common.length; i++) {
+            assertEquals(common[i], i);
+        }
+        assertEquals(index.postings("three").length, 334);
+    }
+
+    @Test
+    public void concurrentMergesKeepPostingsSortedAndComplete() throws InterruptedException {
+        final InvertedIndex index = new InvertedIndex();
+        final int threads = 8;
+        final int documentsPerThread = 500;
+        final CountDownLatch startGate = new CountDownLatch(1);
+        final CountDownLatch endGate = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final String prefix = "thread" + t + "-doc";
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startGate.await();
+                        SegmentBuilder segment = new SegmentBuilder();
+                        for (int i = 0; i < documentsPerThread; i++) {
+                            addDocument(index, segment, prefix + i, "common term" + (i % 10));
+                            if (segment.documentCount() == 16) {
+                                index.merge(segment);
+                            }
+                        }
+                        index.merge(segment);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        endGate.countDown();
+                    }
+                }
+            }).start();
+        }
+        startGate.countDown();
+        endGate.await();
+
+        int[] common = index.postings("common");
+        assertEquals(common.length, threads * documentsPerThread);
+        for (int i = 0; i < common.length; i++) {
+            assertEquals(common[i], i);
+        }
+        assertEquals(index.postings("term3").length, threads * documentsPerThread / 10);
+        assertEquals(index.documentCount(), threads * documentsPerThread);
+    }
+
+    @Test
+    public void discardedDocumentIsNotUpToDateOrSearchable() {
+        InvertedIndex index = new InvertedIndex();
+        SegmentBuilder segment = new SegmentBuilder();
+        int partial = addDocument(index, segment, "a.txt", 10, 100, "apple banana");
+        int other = addDocument(index, segment, "b.txt", 20, 200, "banana");
+        assertTrue(index.isUpToDate(new File("a.txt"), 10, 100));
+
+        index.discardDocument(partial); // 例如读取到一半时发生 I/O 错误
+        index.merge(segment);
+        assertFalse(index.isUpToDate(new File("a.txt"), 10, 100));
+        assertTrue(index.isUpToDate(new File("b.txt"), 20, 200));
+        assertEquals(index.postings("apple").length, 0);
+        assertEquals(index.postings("banana"), new int[] {other});
+    }
+
+    @Test
+    public void segmentsSurviveReopenAndMergeDropsSupersededDocuments() throws IOException {
+        File directory = Files.createTempDirectory("index").toFile();
+        try {
+            InvertedIndex index = InvertedIndex.open(directory);
+            SegmentBuilder segment = new SegmentBuilder();
+            int old = addDocument(index, segment, "a.txt", 10, 100, "apple banana");
+            addDocument(index, segment, "b.txt", 20, 200, "banana cherry");
+            index.merge(segment);
+            index.commit();
+            assertEquals(index.segmentCount(), 1);
+            index.close();
+
+            index = InvertedIndex.open(directory);
+            assertEquals(index.postings("banana").length, 2);
+            assertTrue(index.isUpToDate(new File("a.txt"), 10, 100));
+            assertFalse(index.isUpToDate(new File("a.txt"), 10, 101));
+            assertFalse(index.isUpToDate(new File("c.txt"), 10, 100));
+
+            // 新版本的 a.txt 替代旧版本，之后的提交触发合并
+            int updated = addDocument(index, segment, "a.txt", 11, 101, "apple durian");
+            assertTrue(updated > old);
+            index.merge(segment);
+            for (int i = 0; i < InvertedIndex.MERGE_FACTOR; i++) {
+                index.commit();
+                addDocument(index, segment, "extra" + i + ".txt", 1, 1, "extra");
+                index.merge(segment);
+            }
+            index.close();
+            assertTrue(index.segmentCount() < InvertedIndex.MERGE_FACTOR);
+
+            index = InvertedIndex.open(directory);
+            assertEquals(index.postings("apple"), new int[] {updated});
+            assertEquals(index.postings("banana").length, 1);
+            assertEquals(index.postings("durian"), new int[] {updated});
+            assertEquals(index.postings("extra").length, InvertedIndex.MERGE_FACTOR);
+            assertTrue(index.isUpToDate(new File("a.txt"), 11, 101));
+            index.close();
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static int addDocument(InvertedIndex index, final SegmentBuilder segment, String name,
+                                   long size, long lastModified, String content) {
+        final int docId = index.addDocument(new File(name), size, lastModified);
+        segment.startDocument(docId);
+        Tokenizer.tokenize(content, new Tokenizer.TermSink() {
+            @Override
+            public void term(String term) {
+                segment.addTerm(term, docId);
+            }
+        });
+        return docId;
+    }
+
+    private static int addDocument(InvertedIndex index, final SegmentBuilder segment, String name, String content) {
+        final int docId = index.addDocument(new File(name));
+        segment.startDocument(docId);
+        Tokenizer.tokenize(content, new Tokenizer.TermSink() {
+            @Override
+            public void term(String term) {
+                segment.addTerm(term, docId);
+            }
+        });
+        return docId;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link AsyncMemoizer} 测试。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class AsyncMemoizerTest {
+
+	@Test
+	public void concurrentCallersShareOneComputation() throws Exception {
+		ControlledComputable computable = new ControlledComputable();
+		AsyncMemoizer<String, Integer> memoizer = new AsyncMemoizer<>(computable);
+
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(memoizer.compute("a"));
+		}
+		assertEquals(computable.calls.get(), 1);
+		for (CompletableFuture<Integer> future : futures) {
+			assertFalse(future.isDone());
+		}
+
+		computable.last.complete(42);
+		for (CompletableFuture<Integer> future : futures) {
+			assertEquals(future.get(1, TimeUnit.SECONDS).intValue(), 42);
+		}
+		assertEquals(memoizer.compute("a").get().intValue(), 42); // 命中缓存
+		assertEquals(computable.calls.get(), 1);
+	}
+
+	@Test
+	public void blockingComputableRunsOncePerKeyOnExecutor() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final AsyncMemoizer<Integer, Integer> memoizer = new AsyncMemoizer<>(new Computable<Integer, Integer>() {
+				@Override
+				public Integer compute(Integer arg) throws InterruptedException {
+					calls.incrementAndGet();
+					Thread.sleep(20);
+					return arg * 2;
+				}
+			}, executor);
+
+			List<CompletableFuture<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				futures.add(memoizer.compute(i % 4));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals(futures.get(i).get(5, TimeUnit.SECONDS).intValue(), (i % 4) * 2);
+			}
+			assertEquals(calls.get(), 4);
+			assertEquals(memoizer.cacheSize(), 4);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void failedComputationIsEvictedAndRetried() throws Exception {
+		ControlledComputable computable = new ControlledComputable();
+		AsyncMemoizer<String, Integer> memoizer = new AsyncMemoizer<>(computable);
+
+		CompletableFuture<Integer> first = memoizer.compute("a");
+		CompletableFuture<Integer> second = memoizer.compute("a");
+		computable.last.completeExceptionally(new IllegalStateException("expected"));
+		for (CompletableFuture<Integer> future : Arrays.asList(first, second)) {
+			try {
+				future.get(1, TimeUnit.SECONDS);
+				fail("computation failed");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		}
+		assertEquals(memoizer.cacheSize(), 0);
+
+		CompletableFuture<Integer> retry = memoizer.compute("a");
+		assertEquals(computable.calls.get(), 2);
+		computable.last.complete(7);
+		assertEquals(retry.get(1, TimeUnit.SECONDS).intValue(), 7);
+	}
+
+	@Test
+	public void callerCannotAffectOtherCallers() throws Exception {
+		ControlledComputable computable = new ControlledComputable();
+		AsyncMemoizer<String, Integer> memoizer = new AsyncMemoizer<>(computable);
+
+		CompletableFuture<Integer> cancelled = memoizer.compute("a");
+		CompletableFuture<Integer> completed = memoizer.compute("a");
+		CompletableFuture<Integer> waiting = memoizer.compute("a");
+		assertTrue(cancelled.cancel(true));
+		assertTrue(completed.complete(-1));
+		assertFalse(waiting.isDone());
+		assertEquals(memoizer.cacheSize(), 1);
+
+		computable.last.complete(42);
+		assertEquals(waiting.get(1, TimeUnit.SECONDS).intValue(), 42);
+		assertTrue(cancelled.isCancelled());
+		assertEquals(completed.get().intValue(), -1);
+
+		memoizer.compute("a").obtrudeValue(-2);
+		assertEquals(memoizer.compute("a").get().intValue(), 42);
+		assertEquals(computable.calls.get(), 1);
+	}
+
+	/**
+	 * 由测试决定什么时候完成的计算。
+	 */
+	private static class ControlledComputable implements AsyncComputable<String, Integer> {
+		final AtomicInteger calls = new AtomicInteger();
+		volatile CompletableFuture<Integer> last;
+
+		@Override
+		public CompletableFuture<Integer> compute(String arg) {
+			calls.incrementAndGet();
+			last = new CompletableFuture<>();
+			return last;
+		}
+	}
+
+}
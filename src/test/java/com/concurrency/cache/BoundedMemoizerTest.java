@@ -0,0 +1,145 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import static org.testng.Assert.*;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.concurrency.synchronization.TimeStatsLatch;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link BoundedMemoizer} 测试。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class BoundedMemoizerTest {
+
+	@Test
+	public void lruEvictsLeastRecentlyUsed() throws InterruptedException {
+		CountingFunction function = new CountingFunction();
+		BoundedMemoizer<String, BigInteger> memoizer =
+				new BoundedMemoizer<>(function, new LruPolicy<String>(2));
+
+		memoizer.compute("1");
+		memoizer.compute("2");
+		memoizer.compute("1"); // "2" 成为最久未访问的条目
+		memoizer.compute("3");
+
+		assertEquals(memoizer.cacheSize(), 2);
+		assertEquals(memoizer.evictionCount(), 1L);
+		memoizer.compute("1");
+		assertEquals(function.count.get(), 3); // "1" 仍然在缓存中
+		memoizer.compute("2");
+		assertEquals(function.count.get(), 4); // "2" 已经被淘汰
+	}
+
+	@Test
+	public void weigherBoundsTotalWeight() throws InterruptedException {
+		Weigher<String, BigInteger> byLength = new Weigher<String, BigInteger>() {
+			@Override
+			public int weigh(String key, BigInteger value) {
+				return key.length();
+			}
+		};
+		BoundedMemoizer<String, BigInteger> memoizer =
+				new BoundedMemoizer<>(new CountingFunction(), new LruPolicy<String>(10), byLength);
+
+		for (int i = 1000; i < 1100; i++) {
+			memoizer.compute(String.valueOf(i));
+			assertTrue(memoizer.weightedSize() <= 10);
+		}
+		assertEquals(memoizer.cacheSize(), 2);
+	}
+
+	@Test
+	public void tinyLfuKeepsHotKeysDuringScan() throws InterruptedException {
+		CountingFunction function = new CountingFunction();
+		BoundedMemoizer<String, BigInteger> memoizer = new BoundedMemoizer<>(function, 100);
+
+		for (int round = 0; round < 10; round++) {
+			for (int hot = 0; hot < 50; hot++) {
+				memoizer.compute(String.valueOf(hot));
+			}
+		}
+		for (int scan = 1000; scan < 11000; scan++) { // 一次性扫描不应挤掉热点数据
+			memoizer.compute(String.valueOf(scan));
+		}
+
+		int before = function.count.get();
+		for (int hot = 0; hot < 50; hot++) {
+			memoizer.compute(String.valueOf(hot));
+		}
+		assertTrue(function.count.get() - before < 5);
+		assertTrue(memoizer.cacheSize() <= 100);
+	}
+
+	@Test
+	public void tinyLfuOnlyRunsAdmissionForEntriesLeavingTheWindow() {
+		TinyLfuPolicy<Integer> policy = new TinyLfuPolicy<>(100); // 窗口容量为 1
+		List<Integer> evicted = new ArrayList<>();
+		for (int key = 0; key < 100; key++) {
+			policy.recordWrite(key, 1, evicted);
+		}
+		assertEquals(evicted, Collections.emptyList());
+
+		policy.recordWrite(100, 5, evicted); // 99 和 100 离开窗口，窗口变空；冷的候选者 100 被拒绝
+		assertEquals(evicted, Collections.singletonList(100));
+
+		evicted.clear();
+		policy.recordWrite(101, 1, evicted); // 没有条目离开窗口：试用区尾部的 99 已经在主空间中，不是候选者
+		assertEquals(evicted, Collections.singletonList(0)); // 淘汰试用区中最久未访问的条目
+		assertEquals(policy.weightedSize(), 100L);
+	}
+
+	@Test
+	public void computesOnceUnderContention() throws InterruptedException {
+		final CountingFunction function = new CountingFunction();
+		final BoundedMemoizer<String, BigInteger> memoizer = new BoundedMemoizer<>(function, 10);
+
+		TimeStatsLatch.timeTasks(200, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					memoizer.compute("23");
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		assertEquals(function.count.get(), 1);
+		assertEquals(memoizer.cacheSize(), 1);
+	}
+
+	private static class CountingFunction implements Computable<String, BigInteger> {
+		final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public BigInteger compute(String arg) throws InterruptedException {
+			count.incrementAndGet();
+			return new BigInteger(arg);
+		}
+	}
+
+}
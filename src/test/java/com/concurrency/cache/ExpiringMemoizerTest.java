@@ -0,0 +1,155 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * {@link ExpiringMemoizer} 测试。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class ExpiringMemoizerTest {
+
+	private final TimerWheel timerWheel = new TimerWheel("test-timer", 10, TimeUnit.MILLISECONDS, 64);
+
+	@AfterClass
+	public void stopTimer() {
+		timerWheel.stop();
+	}
+
+	@Test
+	public void expireAfterWriteRemovesEntry() throws InterruptedException {
+		VersionedFunction function = new VersionedFunction();
+		ExpiringMemoizer<String, Integer> memoizer = new ExpiringMemoizer<>(
+				function, 50, 0, 0, TimeUnit.MILLISECONDS, directExecutor(), timerWheel);
+
+		assertEquals(memoizer.compute("a").intValue(), 1);
+		assertEquals(memoizer.compute("a").intValue(), 1);
+
+		Thread.sleep(200); // 时间轮应该已经移除了过期条目
+		assertEquals(memoizer.cacheSize(), 0);
+		assertEquals(memoizer.compute("a").intValue(), 2);
+	}
+
+	@Test
+	public void expireAfterAccessKeepsActiveEntry() throws InterruptedException {
+		VersionedFunction function = new VersionedFunction();
+		ExpiringMemoizer<String, Integer> memoizer = new ExpiringMemoizer<>(
+				function, 0, 100, 0, TimeUnit.MILLISECONDS, directExecutor(), timerWheel);
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(memoizer.compute("a").intValue(), 1);
+			Thread.sleep(30);
+		}
+		Thread.sleep(250);
+		assertEquals(memoizer.cacheSize(), 0);
+	}
+
+	@Test
+	public void refreshServesStaleValueWhileReloading() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final VersionedFunction function = new VersionedFunction();
+		Computable<String, Integer> blockingAfterFirst = new Computable<String, Integer>() {
+			@Override
+			public Integer compute(String arg) throws InterruptedException {
+				if (function.version.get() > 0) {
+					release.await();
+				}
+				return function.compute(arg);
+			}
+		};
+		ExpiringMemoizer<String, Integer> memoizer = new ExpiringMemoizer<>(
+				blockingAfterFirst, 0, 0, 100, TimeUnit.MILLISECONDS, newThreadExecutor(), timerWheel);
+
+		assertEquals(memoizer.compute("a").intValue(), 1);
+		Thread.sleep(150);
+		for (int i = 0; i < 10; i++) { // 刷新任务被阻塞，所有调用都返回旧值
+			assertEquals(memoizer.compute("a").intValue(), 1);
+		}
+		release.countDown();
+
+		long deadline = System.currentTimeMillis() + 1000;
+		while (memoizer.compute("a") != 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(memoizer.compute("a").intValue(), 2);
+		assertEquals(function.version.get(), 2); // 只有一个刷新任务
+	}
+
+	@Test
+	public void failedComputationIsNotScheduledForExpiration() throws InterruptedException {
+		TimerWheel wheel = new TimerWheel("failure-timer", 10, TimeUnit.MILLISECONDS, 64);
+		try {
+			Computable<String, Integer> failing = new Computable<String, Integer>() {
+				@Override
+				public Integer compute(String arg) {
+					throw new IllegalStateException("boom");
+				}
+			};
+			ExpiringMemoizer<String, Integer> memoizer = new ExpiringMemoizer<>(
+					failing, 1, 0, 0, TimeUnit.MINUTES, directExecutor(), wheel);
+			try {
+				memoizer.compute("a");
+				fail("expected the failure to be reported");
+			} catch (InterruptedException expected) {
+				// ExpiringMemoizer 把计算失败报告为 InterruptedException
+			}
+			assertEquals(memoizer.cacheSize(), 0);
+			assertEquals(wheel.pendingTimeouts(), 0L);
+		} finally {
+			wheel.stop();
+		}
+	}
+
+	private static Executor directExecutor() {
+		return new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		};
+	}
+
+	private static Executor newThreadExecutor() {
+		return new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				new Thread(command).start();
+			}
+		};
+	}
+
+	private static class VersionedFunction implements Computable<String, Integer> {
+		final AtomicInteger version = new AtomicInteger();
+
+		@Override
+		public Integer compute(String arg) throws InterruptedException {
+			return version.incrementAndGet();
+		}
+	}
+
+}
@@ -20,6 +20,19 @@ import static java.lang.System.out;
 
 import static org.testng.Assert.*;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.concurrency.synchronization.TimeStatsLatch;
 
 import org.testng.annotations.DataProvider;
@@ -73,6 +86,91 @@ public class MemoizerTest {
 		assertEquals(mTask.cacheSize(), 1);
 	}
 	
+	/**
+	 * 未命中的 key 合并为一次批量请求；并发的批量计算中，每个 key 只计算一次。
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void computeAll() throws InterruptedException {
+		final CountingBatchFunction function = new CountingBatchFunction();
+		final Memoizer<String, BigInteger> memoizer = new Memoizer<>(function);
+		List<String> keys = Arrays.asList("1", "2", "3", "5", "8", "13", "21", "34");
+
+		memoizer.compute("5");
+		Map<String, BigInteger> result = memoizer.computeAll(keys);
+		assertEquals(new ArrayList<>(result.keySet()), keys);
+		assertEquals(result.get("13"), BigInteger.valueOf(13));
+		assertEquals(function.batches.get(), 1); // 除了已经缓存的 "5"，其余 7 个 key 在同一批中计算
+		assertEquals(function.lastBatch, Arrays.asList("1", "2", "3", "8", "13", "21", "34"));
+		assertEquals(function.singles.get(), 1);
+
+		final List<String> concurrentKeys = Arrays.asList("55", "89", "144", "233", "377", "610", "987", "1597");
+		final Queue<Map<String, BigInteger>> results = new ConcurrentLinkedQueue<>();
+		final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		TimeStatsLatch.timeTasks(100, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					results.add(memoizer.computeAll(concurrentKeys));
+				} catch (Throwable t) {
+					failures.add(t);
+				}
+			}
+		});
+
+		assertTrue(failures.isEmpty(), "failures: " + failures);
+		assertEquals(results.size(), 100);
+		for (Map<String, BigInteger> r : results) {
+			assertEquals(new ArrayList<>(r.keySet()), concurrentKeys);
+			for (String key : concurrentKeys) {
+				assertEquals(r.get(key), new BigInteger(key));
+			}
+		}
+		for (String key : concurrentKeys) {
+			assertEquals(function.counts.get(key).get(), 1);
+		}
+		// 每个 key 都只通过批量请求计算了一次，没有退化为逐个调用 compute
+		assertEquals(function.batchedKeys.get(), 7 + concurrentKeys.size());
+		assertEquals(function.singles.get(), 1);
+		assertEquals(memoizer.cacheSize(), keys.size() + concurrentKeys.size());
+	}
+
+	/**
+	 * 失败的批量计算不会把失败留在缓存中。
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void failedBatchDoesNotPoisonLaterLookups() throws InterruptedException {
+		CountingBatchFunction function = new CountingBatchFunction();
+		Memoizer<String, BigInteger> memoizer = new Memoizer<>(function);
+		List<String> keys = Arrays.asList("1", "2", "3");
+
+		function.failure = new IllegalStateException("batch failed");
+		try {
+			memoizer.computeAll(keys);
+			fail("expected the batch to fail");
+		} catch (InterruptedException expected) {
+		}
+		assertEquals(memoizer.cacheSize(), 0);
+		assertEquals(memoizer.compute("2"), BigInteger.valueOf(2));
+
+		function.failure = new InterruptedException("batch interrupted");
+		try {
+			memoizer.computeAll(Arrays.asList("5", "8"));
+			fail("expected the batch to be interrupted");
+		} catch (InterruptedException expected) {
+		}
+		assertEquals(memoizer.cacheSize(), 1);
+
+		Map<String, BigInteger> result = memoizer.computeAll(keys);
+		assertEquals(result.get("1"), BigInteger.ONE);
+		assertEquals(result.get("3"), BigInteger.valueOf(3));
+		assertEquals(memoizer.computeAll(Arrays.asList("5", "8")).get("8"), BigInteger.valueOf(8));
+		assertEquals(memoizer.cacheSize(), 5);
+	}
+
 	@DataProvider(name = "compute")
 	protected static final Object[][] computeTestData() {
 		Object[][] testData = new Object[][] {
@@ -98,5 +196,47 @@ public class MemoizerTest {
 		return testData;
 	}
 
+	private static class CountingBatchFunction implements BatchComputable<String, BigInteger> {
+		final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+		final AtomicInteger singles = new AtomicInteger();
+		final AtomicInteger batches = new AtomicInteger();
+		final AtomicInteger batchedKeys = new AtomicInteger();
+		volatile List<String> lastBatch;
+		volatile Exception failure; // 下一次批量计算抛出的异常
+
+		@Override
+		public BigInteger compute(String arg) throws InterruptedException {
+			singles.incrementAndGet();
+			return count(arg);
+		}
+
+		@Override
+		public Map<String, BigInteger> computeAll(Collection<? extends String> args)
+				throws InterruptedException {
+			Exception e = failure;
+			if (e != null) {
+				failure = null;
+				if (e instanceof InterruptedException) {
+					throw (InterruptedException) e;
+				}
+				throw (RuntimeException) e;
+			}
+			batches.incrementAndGet();
+			batchedKeys.addAndGet(args.size());
+			lastBatch = new ArrayList<>(args);
+			Map<String, BigInteger> result = new HashMap<>();
+			for (String arg : args) {
+				result.put(arg, count(arg));
+			}
+			return result;
+		}
+
+		private BigInteger count(String arg) {
+			counts.putIfAbsent(arg, new AtomicInteger());
+			counts.get(arg).incrementAndGet();
+			return new BigInteger(arg);
+		}
+	}
+
 }
 
@@ -0,0 +1,102 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.cache;
+
+import static java.lang.System.out;
+
+import static org.testng.Assert.*;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.concurrency.synchronization.TimeStatsLatch;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * {@link StripedMemoizer} 测试，使用与 {@link MemoizerTest} 相同的热点 key 和线程数。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class StripedMemoizerTest {
+
+	@Test(dataProvider = "compute")
+	public void compute(String key, int nThreads) throws InterruptedException {
+		final AtomicInteger count = new AtomicInteger();
+		final StripedMemoizer<String, BigInteger> memoizer = new StripedMemoizer<>(
+				new Computable<String, BigInteger>() {
+					@Override
+					public BigInteger compute(String arg) throws InterruptedException {
+						count.incrementAndGet();
+						return new BigInteger(arg);
+					}
+				});
+		final String k = key;
+
+		long time = TimeStatsLatch.timeTasks(nThreads, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					memoizer.compute(k);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		out.println("Thread Number: " + nThreads + "\t Run Time(ms): " + time);
+		assertEquals(count.get(), 1);
+		assertEquals(memoizer.cacheSize(), 1);
+	}
+
+	@Test
+	public void failedComputationIsNotCached() throws InterruptedException {
+		final AtomicInteger count = new AtomicInteger();
+		StripedMemoizer<String, BigInteger> memoizer = new StripedMemoizer<>(
+				new Computable<String, BigInteger>() {
+					@Override
+					public BigInteger compute(String arg) throws InterruptedException {
+						if (count.incrementAndGet() == 1) {
+							throw new IllegalStateException("first call fails");
+						}
+						return new BigInteger(arg);
+					}
+				});
+
+		try {
+			memoizer.compute("7");
+			fail();
+		} catch (InterruptedException expected) {
+			// 第一次计算失败
+		}
+		assertEquals(memoizer.cacheSize(), 0);
+		assertEquals(memoizer.compute("7"), BigInteger.valueOf(7));
+	}
+
+	@DataProvider(name = "compute")
+	protected static final Object[][] computeTestData() {
+		return new Object[][] {
+				{"23", Integer.valueOf(300)},
+				{"23", Integer.valueOf(1400)},
+				{"23", Integer.valueOf(2600)},
+				{"23", Integer.valueOf(3500)},
+				{"23", Integer.valueOf(3900)},
+		};
+	}
+
+}
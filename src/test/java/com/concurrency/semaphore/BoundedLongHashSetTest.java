@@ -0,0 +1,108 @@
+package com.concurrency.semaphore;
+
+import static org.testng.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * {@link BoundedLongHashSet} 和 {@link BoundedIntHashSet} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 23:40
+ */
+public class BoundedLongHashSetTest {
+
+    @DataProvider
+    public Object[][] storage() {
+        return new Object[][] {{false}, {true}};
+    }
+
+    @Test(dataProvider = "storage")
+    public void randomOperationsMatchHashSet(boolean offHeap) throws Exception {
+        int bound = 300;
+        BoundedLongHashSet longs = new BoundedLongHashSet(bound, offHeap);
+        BoundedIntHashSet ints = new BoundedIntHashSet(bound, offHeap);
+        assertEquals(longs.isOffHeap(), offHeap);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 200000; i++) {
+            long value = random.nextInt(600) - 100; // 包括 0 和负数，探测链经常相互重叠
+            if (random.nextBoolean() && expected.size() < bound) {
+                boolean added = expected.add(value);
+                assertEquals(longs.add(value), added);
+                assertEquals(ints.add((int) value), added);
+            } else {
+                boolean removed = expected.remove(value);
+                assertEquals(longs.remove(value), removed);
+                assertEquals(ints.remove((int) value), removed);
+            }
+            long probe = random.nextInt(600) - 100;
+            assertEquals(longs.contains(probe), expected.contains(probe));
+            assertEquals(ints.contains((int) probe), expected.contains(probe));
+        }
+        assertEquals(longs.size(), expected.size());
+        assertEquals(ints.size(), expected.size());
+        for (long value : expected) {
+            assertTrue(longs.contains(value));
+            assertTrue(ints.contains((int) value));
+        }
+    }
+
+    @Test(dataProvider = "storage")
+    public void sequentialIdsFillToBound(boolean offHeap) throws Exception {
+        BoundedLongHashSet set = new BoundedLongHashSet(1000, offHeap);
+        long base = 1L << 40;
+        for (long id = base; id < base + 1000; id++) {
+            assertTrue(set.add(id));
+        }
+        assertEquals(set.size(), 1000);
+        for (long id = base; id < base + 1000; id += 2) {
+            assertTrue(set.remove(id));
+        }
+        for (long id = base; id < base + 1000; id++) {
+            assertEquals(set.contains(id), (id - base) % 2 == 1);
+        }
+    }
+
+    @Test(dataProvider = "storage")
+    public void addBlocksUntilAnElementIsRemoved(boolean offHeap) throws Exception {
+        final BoundedLongHashSet set = new BoundedLongHashSet(2, offHeap);
+        assertTrue(set.add(0));
+        assertTrue(set.add(7));
+
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread adder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (set.add(42)) {
+                        added.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        adder.start();
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(set.remove(8)); // 不存在的元素不释放许可
+        assertFalse(added.await(50, TimeUnit.MILLISECONDS));
+
+        assertTrue(set.remove(0));
+        assertTrue(added.await(5, TimeUnit.SECONDS));
+        adder.join();
+        assertTrue(set.contains(42));
+        assertEquals(set.size(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsBoundAboveMaximum() {
+        new BoundedIntHashSet(BoundedIntHashSet.MAX_BOUND + 1);
+    }
+}
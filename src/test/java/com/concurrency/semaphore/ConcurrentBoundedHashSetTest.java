@@ -0,0 +1,164 @@
+package com.concurrency.semaphore;
+
+import static org.testng.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * {@link ConcurrentBoundedHashSet} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 22:55
+ */
+public class ConcurrentBoundedHashSetTest {
+
+    @DataProvider
+    public Object[][] fairness() {
+        return new Object[][] {{false}, {true}};
+    }
+
+    @Test(dataProvider = "fairness")
+    public void offerRespectsBoundAndDuplicatesUseNoPermit(boolean fair) {
+        ConcurrentBoundedHashSet<Integer> set = new ConcurrentBoundedHashSet<>(3, fair);
+        assertTrue(set.offer(1));
+        assertTrue(set.offer(2));
+        assertFalse(set.offer(2));
+        assertTrue(set.offer(3));
+        assertFalse(set.offer(4));
+        assertEquals(set.size(), 3);
+        assertEquals(set.availablePermits(), 0);
+
+        assertTrue(set.remove(2));
+        assertFalse(set.remove(2));
+        assertEquals(set.availablePermits(), 1);
+        assertTrue(set.offer(4));
+        assertTrue(set.contains(4));
+        assertFalse(set.contains(2));
+    }
+
+    @Test(dataProvider = "fairness")
+    public void addBlocksUntilAnElementIsRemoved(boolean fair) throws Exception {
+        final ConcurrentBoundedHashSet<String> set = new ConcurrentBoundedHashSet<>(1, fair);
+        assertTrue(set.add("a"));
+        assertFalse(set.add("a")); // 已经存在：满了也不阻塞
+
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread adder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (set.add("b")) {
+                        added.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        adder.start();
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(set.getWaitingThreads(), 1);
+
+        assertTrue(set.remove("a"));
+        assertTrue(added.await(5, TimeUnit.SECONDS));
+        adder.join();
+        assertTrue(set.contains("b"));
+        assertEquals(set.size(), 1);
+        assertEquals(set.getWaitingThreads(), 0);
+    }
+
+    @Test(dataProvider = "fairness")
+    public void tryAddTimesOutWhenFull(boolean fair) throws Exception {
+        ConcurrentBoundedHashSet<Integer> set = new ConcurrentBoundedHashSet<>(1, fair);
+        assertTrue(set.tryAdd(1, 0, TimeUnit.MILLISECONDS));
+        long start = System.nanoTime();
+        assertFalse(set.tryAdd(2, 50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(set.size(), 1);
+        assertEquals(set.availablePermits(), 0);
+        assertEquals(set.getWaitingThreads(), 0);
+    }
+
+    @Test
+    public void interruptedAddLeavesNoWaiter() throws Exception {
+        final ConcurrentBoundedHashSet<Integer> set = new ConcurrentBoundedHashSet<>(1);
+        set.add(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        Thread adder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    set.add(2);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            }
+        });
+        adder.start();
+        while (set.getWaitingThreads() == 0) {
+            Thread.sleep(1);
+        }
+        adder.interrupt();
+        adder.join();
+        assertTrue(interrupted.get());
+        assertEquals(set.getWaitingThreads(), 0);
+        assertTrue(set.remove(1));
+        assertEquals(set.availablePermits(), 1);
+    }
+
+    @Test(dataProvider = "fairness")
+    public void concurrentAddRemoveNeverExceedsBound(boolean fair) throws Exception {
+        final int bound = 16;
+        final ConcurrentBoundedHashSet<Integer> set = new ConcurrentBoundedHashSet<>(bound, fair);
+        final AtomicInteger maxSize = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    try {
+                        for (int i = 0; i < 5000; i++) {
+                            int value = random.nextInt(64);
+                            if (random.nextBoolean()) {
+                                set.tryAdd(value, 50, TimeUnit.MICROSECONDS);
+                            } else {
+                                set.remove(value);
+                            }
+                            int size = set.size();
+                            int max;
+                            while ((max = maxSize.get()) < size && !maxSize.compareAndSet(max, size)) {
+                            }
+                        }
+                    } catch (Throwable e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(errors.get(), 0);
+        assertTrue(maxSize.get() <= bound, "max size " + maxSize.get());
+        assertEquals(set.size() + set.availablePermits(), bound);
+        assertEquals(set.getWaitingThreads(), 0);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void rejectsNull() {
+        new ConcurrentBoundedHashSet<Object>(1).offer(null);
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.concurrency.synchronization;
+
+import static java.lang.System.out;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link LatencyHistogram} 和 {@link LatencyHarness} 测试。
+ *
+ * @author	Bert Lee
+ * @version 2026-10-18
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void bucketsKeepRelativeErrorBelowOnePercent() {
+		long[] values = {0, 1, 255, 256, 257, 1000, 123456, 987654321L, Long.MAX_VALUE / 3};
+		for (long value : values) {
+			int index = LatencyHistogram.indexOf(value);
+			long upper = LatencyHistogram.highestEquivalentValue(index);
+			assertTrue(upper >= value, "value " + value);
+			assertTrue(upper - value <= Math.max(1, value / 128), "value " + value);
+		}
+	}
+
+	@Test
+	public void percentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			histogram.recordValue(i * 1000L);
+		}
+		assertEquals(histogram.getTotalCount(), 10000L);
+		assertEquals(histogram.getMaxValue(), 10000000L);
+		assertEquals(histogram.getMinValue(), 1000L);
+		assertEquals(histogram.getValueAtPercentile(50.0), 5000000L, 5000000L / 100);
+		assertEquals(histogram.getValueAtPercentile(99.0), 9900000L, 9900000L / 100);
+		assertEquals(histogram.getValueAtPercentile(100.0), 10000000L);
+	}
+
+	@Test
+	public void expectedIntervalBackfillsStalledRequests() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 99; i++) {
+			histogram.recordValueWithExpectedInterval(1000, 10000);
+		}
+		histogram.recordValueWithExpectedInterval(1000000, 10000); // 停顿了 1ms
+		assertEquals(histogram.getTotalCount(), 99L + 100L);
+		assertTrue(histogram.getValueAtPercentile(75.0) > 100000);
+	}
+
+	@Test
+	public void concurrentRecordsAreAllCounted() throws InterruptedException {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		final int threads = 8;
+		final int perThread = 100000;
+		final CountDownLatch startGate = new CountDownLatch(1);
+		Thread[] recorders = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final long base = t * perThread;
+			recorders[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						startGate.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 1; i <= perThread; i++) {
+						histogram.recordValue(base + i);
+					}
+				}
+			});
+			recorders[t].start();
+		}
+		startGate.countDown();
+		for (Thread recorder : recorders) {
+			recorder.join();
+		}
+		long n = (long) threads * perThread;
+		assertEquals(histogram.getTotalCount(), n);
+		assertEquals(histogram.getMinValue(), 1L);
+		assertEquals(histogram.getMaxValue(), n);
+		assertEquals(histogram.getMean(), (n + 1) / 2.0, 1e-6);
+
+		histogram.reset();
+		assertEquals(histogram.getTotalCount(), 0L);
+		assertEquals(histogram.getMaxValue(), 0L);
+		assertEquals(histogram.getMinValue(), 0L);
+	}
+
+	@Test
+	public void harnessReportsEveryTask() throws InterruptedException {
+		final AtomicInteger count = new AtomicInteger();
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				count.incrementAndGet();
+			}
+		};
+		LatencyHarness harness = new LatencyHarness(4);
+		try {
+			harness.warmUp(task, 1000);
+			count.set(0);
+			LatencyReport report = harness.run(task, 1000);
+			out.println("closed loop: " + report);
+			assertEquals(report.getCount(), 4000L);
+			assertEquals(count.get(), 4000);
+
+			report = harness.runAtFixedRate(task, 2000, 200, TimeUnit.MILLISECONDS);
+			out.println("fixed rate: " + report);
+			assertEquals(report.getCount(), 400L, 40L);
+		} finally {
+			harness.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.concurrency.thread;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link CpuTopology}、{@link CpuPlacement} 和 {@link Affinity} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 20:30
+ */
+public class CpuPlacementTest {
+
+    /*
+     * 两个节点，每个节点两个物理核，每个物理核两个超线程：CPU 0-3 在节点 0，4-7 在节点 1，
+     * 0 和 2、1 和 3、4 和 6、5 和 7 是同一个物理核上的超线程。
+     */
+    private static CpuTopology twoSockets() {
+        int[] cpus = {0, 1, 2, 3, 4, 5, 6, 7};
+        int[] cores = {0, 1, 0, 1, 65536, 65537, 65536, 65537};
+        int[] packages = {0, 0, 0, 0, 1, 1, 1, 1};
+        int[] nodes = {0, 0, 0, 0, 1, 1, 1, 1};
+        return new CpuTopology(cpus, cores, packages, nodes);
+    }
+
+    @Test
+    public void parsesCpuLists() {
+        assertEquals(CpuTopology.parseCpuList("0-3,8,10-11\n"), new int[] {0, 1, 2, 3, 8, 10, 11});
+        assertEquals(CpuTopology.parseCpuList("5"), new int[] {5});
+        assertEquals(CpuTopology.parseCpuList(""), new int[0]);
+    }
+
+    @Test
+    public void spreadAlternatesNodesAndUsesCoresBeforeSiblings() {
+        assertEquals(CpuPlacement.SPREAD.order(twoSockets()), new int[] {0, 4, 1, 5, 2, 6, 3, 7});
+    }
+
+    @Test
+    public void packFillsOneNodeFirst() {
+        assertEquals(CpuPlacement.PACK.order(twoSockets()), new int[] {0, 1, 2, 3, 4, 5, 6, 7});
+        assertEquals(CpuPlacement.NONE.order(twoSockets()).length, 0);
+        assertEquals(twoSockets().nodeCount(), 2);
+        assertEquals(twoSockets().coreCount(), 4);
+    }
+
+    @Test
+    public void reportsCpuOfPinnedThread() throws Exception {
+        final int cpu = CpuPlacement.PACK.order(CpuTopology.current())[0];
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        MyAppThread thread = (MyAppThread) new MyThreadFactory("placement-test", CpuPlacement.PACK)
+                .newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        running.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+        thread.start();
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        try {
+            if (!Affinity.isSupported()) {
+                assertEquals(thread.getAssignedCpu(), -1);
+                return;
+            }
+            assertEquals(thread.getAssignedCpu(), cpu);
+            assertTrue(thread.getNativeId() > 0);
+            if (thread.isPinned()) {
+                assertEquals(thread.getCurrentCpu(), cpu);
+            }
+        } finally {
+            release.countDown();
+            thread.join(10000);
+        }
+    }
+}
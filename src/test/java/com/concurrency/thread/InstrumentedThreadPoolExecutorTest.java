@@ -0,0 +1,175 @@
+package com.concurrency.thread;
+
+import static org.testng.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link InstrumentedThreadPoolExecutor} 测试。
+ *
+ * @author Bert Lee 2026年10月18日 19:20
+ */
+public class InstrumentedThreadPoolExecutorTest {
+
+    @Test
+    public void recordsTasksFailuresAndRejections() throws Exception {
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor("instrumented-test", 1, 1,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1));
+        ObjectName mbean = executor.registerMBean();
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(mbean));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() { // 占住唯一的线程
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        executor.submit(new Callable<Void>() { // 在队列中等待，执行时失败
+            @Override
+            public Void call() {
+                throw new IllegalStateException("expected");
+            }
+        });
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("queue is full");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        InstrumentedThreadPoolExecutor.Stats busy = executor.snapshot();
+        assertEquals(busy.getActiveThreads(), 1);
+        assertEquals(busy.getQueueSize(), 1);
+        assertEquals(busy.getRejectedTasks(), 1);
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        InstrumentedThreadPoolExecutor.Stats done = executor.snapshot();
+        assertEquals(done.getSubmittedTasks(), 3);
+        assertEquals(done.getCompletedTasks(), 2);
+        assertEquals(done.getFailedTasks(), 1);
+        assertTrue(done.getQueueWaitMax() >= TimeUnit.MILLISECONDS.toNanos(10)); // 第二个任务至少等了第一个任务的 sleep
+        assertTrue(done.getExecutionMax() >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(executor.getMetrics().snapshot().get("idle").intValue(), 0);
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(mbean)); // 终止时注销
+    }
+
+    @Test
+    public void shutdownNowReturnsOriginalTasks() throws Exception {
+        InstrumentedThreadPoolExecutor executor = InstrumentedThreadPoolExecutor.newFixedThreadPool("instrumented-test", 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Runnable pending = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        executor.execute(pending);
+        started.await();
+
+        List<Runnable> neverRun = executor.shutdownNow();
+        assertEquals(neverRun.size(), 1);
+        assertSame(neverRun.get(0), pending);
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void rejectionHandlerReceivesOriginalTask() throws Exception {
+        final List<Runnable> rejected = new CopyOnWriteArrayList<>();
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor("instrumented-test", 1, 1,
+                0L, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(), new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                        rejected.add(r);
+                    }
+                });
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() { // 占住唯一的线程
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() {
+                return "rejected";
+            }
+        });
+        executor.execute(task);
+
+        assertEquals(rejected.size(), 1);
+        assertSame(rejected.get(0), task);
+        assertEquals(executor.snapshot().getRejectedTasks(), 1);
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void callerRunsPolicyTasksAreStillRecorded() throws Exception {
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor("instrumented-test", 1, 1,
+                0L, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(), new ThreadPoolExecutor.CallerRunsPolicy());
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        executor.execute(new Runnable() { // 在调用者线程中执行
+            @Override
+            public void run() {
+            }
+        });
+        assertEquals(executor.snapshot().getCompletedTasks(), 1);
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(executor.snapshot().getCompletedTasks(), 2);
+    }
+}
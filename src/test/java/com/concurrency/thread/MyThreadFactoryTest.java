@@ -0,0 +1,78 @@
+package com.concurrency.thread;
+
+import static org.testng.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+/**
+ * {@link MyThreadFactory} 测试，两种模式下线程的名字和统计信息相同。
+ *
+ * @author Bert Lee 2026年10月18日 19:50
+ */
+public class MyThreadFactoryTest {
+
+    @Test
+    public void platformAndVirtualThreadsAreNamedAndCounted() throws Exception {
+        for (boolean virtual : new boolean[] {false, true}) {
+            MyThreadFactory factory = new MyThreadFactory("factory-test", virtual);
+            assertEquals(factory.isVirtual(), virtual && VirtualThreads.isSupported());
+
+            final CountDownLatch running = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final AtomicInteger aliveInside = new AtomicInteger();
+            int created = MyAppThread.getThreadsCreated();
+            Thread thread = factory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    aliveInside.set(MyAppThread.getThreadsAlive());
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            assertTrue(thread.getName().startsWith("factory-test-"));
+            assertTrue(MyAppThread.getThreadsCreated() > created);
+            assertEquals(VirtualThreads.isVirtual(thread), factory.isVirtual());
+
+            thread.start();
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            assertTrue(aliveInside.get() >= 1); // 其他测试的线程可能同时退出，只能断言包含自己
+            release.countDown();
+            thread.join(10000);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    @Test
+    public void uncaughtExceptionsGoToTheLogger() throws Exception {
+        for (boolean virtual : new boolean[] {false, true}) {
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread thread = new MyThreadFactory("factory-test", virtual).newThread(new Runnable() {
+                @Override
+                public void run() {
+                    throw new IllegalStateException("expected");
+                }
+            });
+            assertNotNull(thread.getUncaughtExceptionHandler());
+            final Thread.UncaughtExceptionHandler logging = thread.getUncaughtExceptionHandler();
+            thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    failure.set(e);
+                    logging.uncaughtException(t, e);
+                }
+            });
+            thread.start();
+            thread.join(10000);
+            assertTrue(failure.get() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.concurrency.barrier;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 内置规则的 SIMD 实现，基于 jdk.incubator.vector（JDK 16+）。
+ *
+ * <p>只在 vector profile 中编译（mvn -P vector ...），运行时需要 --add-modules jdk.incubator.vector；
+ * 主代码通过 {@link StencilKernels#vectorized(StencilKernel)} 反射加载，类不存在时退回标量实现。
+ * 每次处理一整段 SIMD 宽度的格子，第 0 列、最后一列和不足一段的尾部交给标量实现。
+ *
+ * @author Bert Lee 2026年10月18日 21:45
+ */
+public final class VectorStencilKernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorStencilKernels() {
+    }
+
+    /**
+     * 返回 kernel 的 SIMD 实现，没有对应实现时返回 kernel 本身。
+     */
+    public static StencilKernel vectorize(StencilKernel kernel) {
+        if (kernel == StencilKernels.GAME_OF_LIFE) {
+            return new GameOfLife();
+        }
+        if (kernel == StencilKernels.DIFFUSION) {
+            return new Diffusion();
+        }
+        return kernel;
+    }
+
+    static final class GameOfLife implements StencilKernel {
+        @Override
+        public boolean apply(int[] from, int[] to, int row, int width, int fromX, int toX) {
+            StencilKernel scalar = StencilKernels.GAME_OF_LIFE;
+            int start = Math.max(fromX, 1);
+            int end = Math.min(toX, width - 1);
+            boolean changed = false;
+            if (fromX < start) {
+                changed = scalar.apply(from, to, row, width, fromX, Math.min(start, toX));
+            }
+
+            int above = row - width;
+            int below = row + width;
+            IntVector zero = IntVector.zero(SPECIES);
+            IntVector one = IntVector.broadcast(SPECIES, 1);
+            int x = start;
+            for (; x <= end - SPECIES.length(); x += SPECIES.length()) {
+                IntVector n = alive(from, above + x - 1, zero, one)
+                        .add(alive(from, above + x, zero, one))
+                        .add(alive(from, above + x + 1, zero, one))
+                        .add(alive(from, row + x - 1, zero, one))
+                        .add(alive(from, row + x + 1, zero, one))
+                        .add(alive(from, below + x - 1, zero, one))
+                        .add(alive(from, below + x, zero, one))
+                        .add(alive(from, below + x + 1, zero, one));
+                IntVector current = IntVector.fromArray(SPECIES, from, row + x);
+                VectorMask<Integer> live = n.compare(VectorOperators.EQ, 3)
+                        .or(n.compare(VectorOperators.EQ, 2).and(current.compare(VectorOperators.NE, 0)));
+                IntVector value = zero.blend(one, live);
+                value.intoArray(to, row + x);
+                if (!changed && value.compare(VectorOperators.NE, current).anyTrue()) {
+                    changed = true;
+                }
+            }
+            if (x < toX && x >= start) {
+                changed |= scalar.apply(from, to, row, width, x, toX);
+            }
+            return changed;
+        }
+
+        private static IntVector alive(int[] cells, int offset, IntVector zero, IntVector one) {
+            return zero.blend(one, IntVector.fromArray(SPECIES, cells, offset).compare(VectorOperators.NE, 0));
+        }
+    }
+
+    static final class Diffusion implements StencilKernel {
+        @Override
+        public boolean apply(int[] from, int[] to, int row, int width, int fromX, int toX) {
+            StencilKernel scalar = StencilKernels.DIFFUSION;
+            int start = Math.max(fromX, 1);
+            int end = Math.min(toX, width - 1);
+            boolean changed = false;
+            if (fromX < start) {
+                changed = scalar.apply(from, to, row, width, fromX, Math.min(start, toX));
+            }
+
+            int above = row - width;
+            int below = row + width;
+            int x = start;
+            for (; x <= end - SPECIES.length(); x += SPECIES.length()) {
+                IntVector current = IntVector.fromArray(SPECIES, from, row + x);
+                IntVector value = current.lanewise(VectorOperators.LSHL, 2)
+                        .add(IntVector.fromArray(SPECIES, from, above + x))
+                        .add(IntVector.fromArray(SPECIES, from, below + x))
+                        .add(IntVector.fromArray(SPECIES, from, row + x - 1))
+                        .add(IntVector.fromArray(SPECIES, from, row + x + 1))
+                        .lanewise(VectorOperators.ASHR, 3);
+                value.intoArray(to, row + x);
+                if (!changed && value.compare(VectorOperators.NE, current).anyTrue()) {
+                    changed = true;
+                }
+            }
+            if (x < toX && x >= start) {
+                changed |= scalar.apply(from, to, row, width, x, toX);
+            }
+            return changed;
+        }
+    }
+}